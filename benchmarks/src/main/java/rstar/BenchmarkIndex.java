@@ -0,0 +1,88 @@
+package rstar;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The data file and index every benchmark runs on, built once per trial from a synthetic dataset.
+ * <p>
+ * DataHandler keeps its files in the working directory under fixed names, so the trial writes data.csv there,
+ * loads it into a new data file and bulk loads the index from it, replacing the files of the previous trial.
+ * The benchmarks must be run from a directory of their own: files the benchmarks did not create themselves
+ * are never replaced, a marker file records that the ones there are theirs.
+ * <p>
+ * Node sizes follow from the dimensions of the data when Node is loaded, and every combination of parameters
+ * runs in its own forked JVM, so each trial gets the node size of its dimensions.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkIndex {
+    private static final Path MARKER = Paths.get("rstar-benchmark.marker");
+    private static final List<String> FILES = List.of("data.csv", "datafile.dat", "indexfile.dat", "indexfile.wal", "indexfile.dwb");
+    private static final long SEED = 42;
+    private static final int NEW_POINTS = 1 << 16;
+
+    @Param({"UNIFORM", "CLUSTERED", "OSM"})
+    public Dataset dataset;
+
+    @Param({"2", "3", "5"})
+    public int dimensions;
+
+    @Param({"100000"})
+    public int records;
+
+    @Param({"false"})
+    public boolean writeAheadLogging;
+
+    double[][] points; // The points of the records, the point of record id i at index i
+    double[][] newPoints; // Points of the same distribution that are not in the index, for queries and inserts
+    RStarTree tree;
+
+    @Setup(Level.Trial)
+    public void build() throws IOException {
+        claimWorkingDirectory();
+        double[][] generated = dataset.generate(records + NEW_POINTS, dimensions, SEED);
+        points = Arrays.copyOfRange(generated, 0, records);
+        newPoints = Arrays.copyOfRange(generated, records, generated.length);
+        Dataset.writeCsv(points, Paths.get(FILES.get(0)));
+
+        DataHandler.setWriteAheadLogging(writeAheadLogging);
+        DataHandler dataHandler = new DataHandler();
+        dataHandler.initializeDataFile(dimensions);
+        dataHandler.initializeIndexFile(dimensions);
+        if (DataHandler.getTotalBlocksInDataFile() <= 1)
+            throw new IllegalStateException("No records were loaded from " + FILES.get(0));
+        tree = new RStarTree(true);
+    }
+
+    // Deletes the files of the previous trial, refusing to touch files of a directory the benchmarks did not create
+    private static void claimWorkingDirectory() throws IOException {
+        if (!Files.exists(MARKER)) {
+            for (String file : FILES)
+                if (Files.exists(Paths.get(file)))
+                    throw new IllegalStateException("The benchmarks replace " + file + " of the working directory " + Paths.get("").toAbsolutePath() + ", run them from an empty directory");
+            Files.createFile(MARKER);
+        }
+        for (String file : FILES)
+            Files.deleteIfExists(Paths.get(file));
+    }
+
+    // A node of the tree whose children are leaves
+    Node nodeAboveLeaves() {
+        Node node = DataHandler.readIndexFileBlock(RStarTree.getRootBlockId());
+        while (node.getLevel() > RStarTree.getLeafLevel() + 1)
+            node = DataHandler.readIndexFileBlock(node.getEntries().get(0).getBlockIdOfChildNode());
+        if (node.getLevel() != RStarTree.getLeafLevel() + 1)
+            throw new IllegalStateException("The tree of " + records + " records has a single level");
+        return node;
+    }
+}
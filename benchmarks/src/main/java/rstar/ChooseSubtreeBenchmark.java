@@ -0,0 +1,47 @@
+package rstar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RStarTree.chooseSubTree on a node of the bulk loaded tree whose children are leaves, where the least overlap
+ * enlargement is looked for, choosing the leaf for the box of a new point. Nothing is inserted, so the node stays
+ * the same for the whole trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChooseSubtreeBenchmark {
+    private Node node;
+    private BoundingBox[] boxes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void chooseNode(BenchmarkIndex index) {
+        node = index.nodeAboveLeaves();
+        boxes = new BoundingBox[index.newPoints.length];
+        for (int i = 0; i < boxes.length; i++)
+            boxes[i] = BoundingBox.ofPoint(index.newPoints[i]);
+    }
+
+    @Benchmark
+    public Entry chooseSubTree(BenchmarkIndex index) {
+        BoundingBox box = boxes[next];
+        next = (next + 1) % boxes.length;
+        return index.tree.chooseSubTree(node, box, RStarTree.getLeafLevel());
+    }
+}
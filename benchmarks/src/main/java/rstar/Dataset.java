@@ -0,0 +1,136 @@
+package rstar;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Synthetic point sets the benchmarks build their indexes from, generated the same way for a given seed.
+ * <p>
+ * UNIFORM spreads the points evenly over a cube of side 1000. CLUSTERED draws them around a few Gaussian
+ * centres, so most of the space is empty and the nodes of the tree overlap more. OSM imitates the nodes of an
+ * OpenStreetMap extract: latitude and longitude in a country-sized box, with most points in towns of very
+ * different sizes, many along the roads between them and a few scattered in between, at the 7 decimals
+ * of OSM coordinates, so that dense places repeat the same points. Dimensions past the first two are
+ * uniform for every distribution.
+ */
+public enum Dataset {
+    UNIFORM {
+        @Override
+        double[][] generate(int count, int dimensions, Random random) {
+            double[][] points = new double[count][dimensions];
+            for (double[] point : points)
+                fillUniform(point, 0, random);
+            return points;
+        }
+    },
+    CLUSTERED {
+        private static final int CLUSTERS = 20;
+        private static final double SPREAD = 10; // Standard deviation of the points around their centre, 1% of the side
+
+        @Override
+        double[][] generate(int count, int dimensions, Random random) {
+            double[][] centres = new double[CLUSTERS][dimensions];
+            for (double[] centre : centres)
+                fillUniform(centre, 0, random);
+            double[][] points = new double[count][dimensions];
+            for (double[] point : points) {
+                double[] centre = centres[random.nextInt(CLUSTERS)];
+                for (int d = 0; d < dimensions; d++)
+                    point[d] = centre[d] + random.nextGaussian() * SPREAD;
+            }
+            return points;
+        }
+    },
+    OSM {
+        private static final double MIN_LATITUDE = 34.8, MAX_LATITUDE = 41.8;
+        private static final double MIN_LONGITUDE = 19.3, MAX_LONGITUDE = 28.3;
+        private static final int TOWNS = 60;
+        private static final int ROADS = 150;
+        private static final double TOWN_POINTS = 0.55, ROAD_POINTS = 0.35; // The rest are scattered
+        private static final double OSM_PRECISION = 1e7; // OSM stores coordinates with 7 decimals
+
+        @Override
+        double[][] generate(int count, int dimensions, Random random) {
+            if (dimensions < 2)
+                throw new IllegalArgumentException("OSM points have a latitude and a longitude");
+            // Town sizes follow Zipf's law, the n-th largest town has 1/n of the points of the largest
+            double[][] towns = new double[TOWNS][2];
+            double[] cumulativeWeights = new double[TOWNS];
+            double totalWeight = 0;
+            for (int t = 0; t < TOWNS; t++) {
+                towns[t][0] = MIN_LATITUDE + random.nextDouble() * (MAX_LATITUDE - MIN_LATITUDE);
+                towns[t][1] = MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE);
+                totalWeight += 1.0 / (t + 1);
+                cumulativeWeights[t] = totalWeight;
+            }
+            int[][] roads = new int[ROADS][2];
+            for (int[] road : roads) {
+                road[0] = pickTown(cumulativeWeights, random);
+                road[1] = pickTown(cumulativeWeights, random);
+            }
+
+            double[][] points = new double[count][dimensions];
+            for (double[] point : points) {
+                double kind = random.nextDouble();
+                if (kind < TOWN_POINTS) {
+                    int town = pickTown(cumulativeWeights, random);
+                    double radius = 0.08 / Math.sqrt(town + 1); // Larger towns spread further
+                    point[0] = towns[town][0] + random.nextGaussian() * radius;
+                    point[1] = towns[town][1] + random.nextGaussian() * radius;
+                } else if (kind < TOWN_POINTS + ROAD_POINTS) {
+                    int[] road = roads[random.nextInt(ROADS)];
+                    double along = random.nextDouble();
+                    point[0] = towns[road[0]][0] + along * (towns[road[1]][0] - towns[road[0]][0]) + random.nextGaussian() * 0.0005;
+                    point[1] = towns[road[0]][1] + along * (towns[road[1]][1] - towns[road[0]][1]) + random.nextGaussian() * 0.0005;
+                } else {
+                    point[0] = MIN_LATITUDE + random.nextDouble() * (MAX_LATITUDE - MIN_LATITUDE);
+                    point[1] = MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE);
+                }
+                point[0] = Math.round(point[0] * OSM_PRECISION) / OSM_PRECISION;
+                point[1] = Math.round(point[1] * OSM_PRECISION) / OSM_PRECISION;
+                fillUniform(point, 2, random);
+            }
+            return points;
+        }
+
+        private int pickTown(double[] cumulativeWeights, Random random) {
+            double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+            int town = 0;
+            while (cumulativeWeights[town] < target)
+                town++;
+            return town;
+        }
+    };
+
+    private static final double SIDE = 1000; // Side of the space of uniform coordinates
+
+    // Returns count points of the given dimensions
+    abstract double[][] generate(int count, int dimensions, Random random);
+
+    double[][] generate(int count, int dimensions, long seed) {
+        return generate(count, dimensions, new Random(seed));
+    }
+
+    private static void fillUniform(double[] point, int fromDimension, Random random) {
+        for (int d = fromDimension; d < point.length; d++)
+            point[d] = random.nextDouble() * SIDE;
+    }
+
+    // Writes the points to a csv file in the format CsvLoader reads, one "id,coordinate,..." line per point
+    // with ids from 0 in the order of the array
+    static void writeCsv(double[][] points, Path csvFile) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(csvFile)) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < points.length; i++) {
+                line.setLength(0);
+                line.append(i);
+                for (double coordinate : points[i])
+                    line.append(',').append(coordinate);
+                writer.append(line).append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package rstar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of RStarTree.addRecord into the bulk loaded index, one record per write.
+ * <p>
+ * The records are new points of the dataset's distribution, with ids after those of the index. The index grows
+ * over the trial, so later iterations insert into a larger tree. Once every new point has been inserted the
+ * points are inserted again under new ids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InsertBenchmark {
+    private Record[] records;
+    private long nextRecordId;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createRecords(BenchmarkIndex index) {
+        records = new Record[index.newPoints.length];
+        nextRecordId = index.records;
+        for (int i = 0; i < records.length; i++)
+            records[i] = newRecord(index.newPoints[i]);
+    }
+
+    private Record newRecord(double[] point) {
+        ArrayList<Double> coordinates = new ArrayList<>(point.length);
+        for (double coordinate : point)
+            coordinates.add(coordinate);
+        return new Record(nextRecordId++, coordinates);
+    }
+
+    @Benchmark
+    public void addRecord(BenchmarkIndex index) {
+        if (next == records.length) {
+            for (int i = 0; i < records.length; i++)
+                records[i] = newRecord(records[i].getCoordinates());
+            next = 0;
+        }
+        // The block of the data file is not read by the index, any block will do
+        index.tree.addRecord(records[next++], 1);
+    }
+}
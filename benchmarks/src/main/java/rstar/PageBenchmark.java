@@ -0,0 +1,137 @@
+package rstar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing pages, and converting them to and from nodes and records.
+ * <p>
+ * readIndexNode, readIndexNodeView, readDataBlock and readRecord go through DataHandler and the buffer pool, which
+ * holds the whole index and data file of the default dataset size, so they measure a hit and the decoding of the
+ * page, or of the slot of one record of the first leaf for readRecord. encodeNode, decodeNode and encodeDataBlock convert
+ * pages without any I/O. readPage and
+ * writePage read and write blocks of a page file of their own straight through its channel, bypassing the pool;
+ * the blocks are usually in the page cache of the operating system, and writePage does not force them to disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageBenchmark {
+    private static final String PAGE_FILENAME = "benchmark.pages";
+    private static final int PAGE_FILE_BLOCKS = 256;
+
+    private long[] leafBlockIds;
+    private int nextLeaf;
+    private int nextDataBlock;
+    private int nextLeafEntry;
+    private Node leaf;
+    private byte[] leafPage;
+    private ArrayList<Record> records;
+    private byte[] dataPage;
+    private byte[] page;
+    private PageFile pageFile;
+    private int nextPage;
+
+    @Setup(Level.Trial)
+    public void readPages(BenchmarkIndex index) throws IOException {
+        Node nodeAboveLeaves = index.nodeAboveLeaves();
+        leafBlockIds = new long[nodeAboveLeaves.getEntries().size()];
+        for (int i = 0; i < leafBlockIds.length; i++)
+            leafBlockIds[i] = nodeAboveLeaves.getEntries().get(i).getBlockIdOfChildNode();
+        leaf = DataHandler.readIndexFileBlock(leafBlockIds[0]);
+        leafPage = IndexManager.writeNode(leaf, DataHandler.getBlockSize(), index.dimensions);
+        records = DataHandler.readDataFileBlock(1);
+        dataPage = new byte[DataHandler.getBlockSize()];
+        DataHandler.encodeDataFileBlock(records, dataPage, 0);
+
+        page = new byte[DataHandler.getBlockSize()];
+        pageFile = new PageFile(PAGE_FILENAME, DataHandler.getBlockSize());
+        pageFile.writeBlocks(0, new byte[PAGE_FILE_BLOCKS * DataHandler.getBlockSize()], PAGE_FILE_BLOCKS);
+    }
+
+    @TearDown(Level.Trial)
+    public void deletePageFile() throws IOException {
+        pageFile.close();
+        Files.deleteIfExists(Paths.get(PAGE_FILENAME));
+    }
+
+    private long nextLeafBlockId() {
+        long blockId = leafBlockIds[nextLeaf];
+        nextLeaf = (nextLeaf + 1) % leafBlockIds.length;
+        return blockId;
+    }
+
+    @Benchmark
+    public Node readIndexNode() {
+        return DataHandler.readIndexFileBlock(nextLeafBlockId());
+    }
+
+    @Benchmark
+    public int readIndexNodeView() {
+        try (NodeView view = DataHandler.readIndexNodeView(nextLeafBlockId())) {
+            return view.getEntryCount();
+        }
+    }
+
+    @Benchmark
+    public ArrayList<Record> readDataBlock() {
+        nextDataBlock = nextDataBlock % (int) (DataHandler.getTotalBlocksInDataFile() - 1) + 1;
+        return DataHandler.readDataFileBlock(nextDataBlock);
+    }
+
+    @Benchmark
+    public Record readRecord() {
+        LeafEntry entry = (LeafEntry) leaf.getEntries().get(nextLeafEntry);
+        nextLeafEntry = (nextLeafEntry + 1) % leaf.getEntries().size();
+        return DataHandler.readRecord(entry.getDataFileBlockId(), entry.getSlot());
+    }
+
+    @Benchmark
+    public byte[] encodeNode(BenchmarkIndex index) {
+        return IndexManager.writeNode(leaf, DataHandler.getBlockSize(), index.dimensions);
+    }
+
+    @Benchmark
+    public Node decodeNode(BenchmarkIndex index) {
+        return IndexManager.readNode(leafPage, leaf.getBlockId(), index.dimensions);
+    }
+
+    @Benchmark
+    public byte[] encodeDataBlock() throws IOException {
+        DataHandler.encodeDataFileBlock(records, dataPage, 0);
+        return dataPage;
+    }
+
+    @Benchmark
+    public byte[] readPage() throws IOException {
+        pageFile.readBlock(nextPage, page);
+        nextPage = (nextPage + 1) % PAGE_FILE_BLOCKS;
+        return page;
+    }
+
+    @Benchmark
+    public byte[] writePage() throws IOException {
+        pageFile.writeBlock(nextPage, page);
+        nextPage = (nextPage + 1) % PAGE_FILE_BLOCKS;
+        return page;
+    }
+}
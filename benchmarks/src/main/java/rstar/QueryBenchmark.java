@@ -0,0 +1,91 @@
+package rstar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Range, k-NN and skyline queries on the bulk loaded index.
+ * <p>
+ * Range windows are centred on new points of the dataset's distribution and cover rangeSelectivity of the
+ * volume of the box of the data, so dense places return more records than sparse ones, as with real queries.
+ * rangeCount counts the records of the same windows without passing them to a consumer.
+ * The k-NN queries look for the k nearest records of the same points. The skyline is the same for every
+ * call, it is computed from scratch each time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+    @Param({"0.001"})
+    public double rangeSelectivity;
+
+    @Param({"10"})
+    public int k;
+
+    private BoundingBox[] windows;
+    private int nextWindow;
+    private int nextPoint;
+
+    @Setup(Level.Trial)
+    public void createWindows(BenchmarkIndex index) {
+        double[] dataBox = BoundingBox.ofPoint(index.points[0]).getPackedBounds();
+        for (double[] point : index.points)
+            BoundingBox.union(dataBox, BoundingBox.ofPoint(point).getPackedBounds(), dataBox);
+
+        // The side of the window in each dimension is the same fraction of the side of the data box
+        double sideFraction = Math.pow(rangeSelectivity, 1.0 / index.dimensions);
+        windows = new BoundingBox[index.newPoints.length];
+        for (int i = 0; i < windows.length; i++) {
+            double[] window = new double[2 * index.dimensions];
+            for (int d = 0; d < index.dimensions; d++) {
+                double halfSide = sideFraction * (dataBox[2 * d + 1] - dataBox[2 * d]) / 2;
+                window[2 * d] = index.newPoints[i][d] - halfSide;
+                window[2 * d + 1] = index.newPoints[i][d] + halfSide;
+            }
+            windows[i] = new BoundingBox(window);
+        }
+    }
+
+    @Benchmark
+    public void rangeQuery(BenchmarkIndex index, Blackhole blackhole) {
+        BoundingBox window = windows[nextWindow];
+        nextWindow = (nextWindow + 1) % windows.length;
+        index.tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> blackhole.consume(recordId));
+    }
+
+    @Benchmark
+    public long rangeCount(BenchmarkIndex index) {
+        BoundingBox window = windows[nextWindow];
+        nextWindow = (nextWindow + 1) % windows.length;
+        return index.tree.rangeCount(window);
+    }
+
+    @Benchmark
+    public ArrayList<LeafEntry> nearestNeighbours(BenchmarkIndex index) {
+        double[] point = index.newPoints[nextPoint];
+        nextPoint = (nextPoint + 1) % index.newPoints.length;
+        return index.tree.nearestNeighbours(point, k);
+    }
+
+    @Benchmark
+    public void skylineQuery(BenchmarkIndex index, Blackhole blackhole) {
+        index.tree.skylineQuery((recordId, dataFileBlockId, slot) -> blackhole.consume(recordId));
+    }
+}
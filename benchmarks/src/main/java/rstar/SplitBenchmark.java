@@ -0,0 +1,53 @@
+package rstar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node.split of an overflowing leaf, with one entry more than the maximum.
+ * <p>
+ * The entries are those of neighbouring leaves of the bulk loaded tree, so they cover a small part of the space
+ * like the entries of a node that fills up during inserts. The working arrays of the split are reused from one
+ * split to the next, as a tree reuses them for all its splits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplitBenchmark {
+    private ArrayList<Entry> leafEntries;
+    private final Node.SplitBuffers buffers = new Node.SplitBuffers();
+
+    @Setup(Level.Trial)
+    public void collectEntries(BenchmarkIndex index) {
+        Node nodeAboveLeaves = index.nodeAboveLeaves();
+        leafEntries = new ArrayList<>();
+        for (Entry entry : nodeAboveLeaves.getEntries()) {
+            leafEntries.addAll(DataHandler.readIndexFileBlock(entry.getBlockIdOfChildNode()).getEntries());
+            if (leafEntries.size() > Node.getMaxEntriesInNode())
+                break;
+        }
+        if (leafEntries.size() <= Node.getMaxEntriesInNode())
+            throw new IllegalStateException("The tree has too few leaf entries for an overflowing node");
+        leafEntries = new ArrayList<>(leafEntries.subList(0, Node.getMaxEntriesInNode() + 1));
+    }
+
+    @Benchmark
+    public ArrayList<Node> split() {
+        return new Node(RStarTree.getLeafLevel(), new ArrayList<>(leafEntries)).split(buffers);
+    }
+}
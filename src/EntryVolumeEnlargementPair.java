@@ -1,29 +0,0 @@
-// Class that compares and sorts Entry objects based on their area enlargement
-class EntryAreaEnlargementPair implements Comparable {
-    private Entry entry; // The Entry object
-    private double areaEnlargement; // It's area enlargement assigned
-
-    public EntryAreaEnlargementPair(Entry entry, double areaEnlargement){
-        this.entry = entry;
-        this.areaEnlargement = areaEnlargement;
-    }
-
-    public Entry getEntry() {
-        return entry;
-    }
-
-    private double getAreaEnlargement() {
-        return areaEnlargement;
-    }
-
-    // Comparing the pairs by area enlargement
-    @Override
-    public int compareTo(Object obj) {
-        EntryAreaEnlargementPair pairB = (EntryAreaEnlargementPair)obj;
-        // Resolve ties by choosing the entry with the rectangle of smallest area
-        if (this.getAreaEnlargement() == pairB.getAreaEnlargement())
-            return Double.compare(this.getEntry().getBoundingBox().getVolume(),pairB.getEntry().getBoundingBox().getVolume());
-        else
-            return Double.compare(this.getAreaEnlargement(),pairB.getAreaEnlargement());
-    }
-}
\ No newline at end of file
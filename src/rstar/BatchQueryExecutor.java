@@ -0,0 +1,102 @@
+package rstar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs batches of independent range and nearest-neighbour queries in parallel on a ForkJoinPool.
+ * <p>
+ * All the queries of a batch read the same IndexSnapshot, so they see the same version of the tree while inserts
+ * and deletes go on. Their nodes are read through a cache shared by the batch: index pages are never modified
+ * in place, so the cache keeps the page arrays themselves and hands out views over them, without pinning the
+ * blocks and without taking the buffer pool's lock on a hit. The upper levels of the tree, read by every query,
+ * are then only read from the pool once per batch.
+ */
+public class BatchQueryExecutor implements AutoCloseable {
+    private final ForkJoinPool pool;
+    private final int cacheCapacity; // Pages kept by the node cache of a batch
+
+    public BatchQueryExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), DataHandler.getBufferPool().getCapacity());
+    }
+
+    // parallelism is the number of queries run at the same time,
+    // cacheCapacity the number of index pages each batch keeps in its node cache
+    public BatchQueryExecutor(int parallelism, int cacheCapacity) {
+        if (cacheCapacity < 0)
+            throw new IllegalArgumentException("The capacity of the node cache cannot be negative");
+        this.pool = new ForkJoinPool(parallelism);
+        this.cacheCapacity = cacheCapacity;
+    }
+
+    // Starts every query of the batch and returns the future result of each one, in the order of the queries.
+    // The last query to finish closes the snapshot of the batch before completing its future, so the snapshot is
+    // closed by the time every future of the batch has completed
+    public List<CompletableFuture<ArrayList<LeafEntry>>> execute(List<? extends IndexQuery> queries) {
+        IndexSnapshot snapshot = DataHandler.openIndexSnapshot();
+        SharedNodeCache nodes = new SharedNodeCache(snapshot, cacheCapacity);
+        List<CompletableFuture<ArrayList<LeafEntry>>> results = new ArrayList<>(queries.size());
+        AtomicInteger running = new AtomicInteger(queries.size());
+        if (queries.isEmpty())
+            snapshot.close();
+        try {
+            for (IndexQuery query : queries)
+                results.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return query.execute(nodes);
+                    } finally {
+                        if (running.decrementAndGet() == 0)
+                            snapshot.close();
+                    }
+                }, pool));
+        } catch (RuntimeException e) {
+            // The queries that could not be started do not count down
+            if (running.addAndGet(results.size() - queries.size()) == 0)
+                snapshot.close();
+            throw e;
+        }
+        return results;
+    }
+
+    // Runs a single query on the pool, reading from its own snapshot
+    public CompletableFuture<ArrayList<LeafEntry>> submit(IndexQuery query) {
+        return execute(List.of(query)).get(0);
+    }
+
+    // Waits for the queries already started to finish and stops the threads of the pool
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    // Node pages of one snapshot shared by the queries of a batch. Pages are only added while the cache
+    // has room, the rest are read from the snapshot every time
+    private static class SharedNodeCache implements NodeReader {
+        private final IndexSnapshot snapshot;
+        private final int capacity;
+        private final int dimensions;
+        private final ConcurrentHashMap<Long, byte[]> pages = new ConcurrentHashMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        SharedNodeCache(IndexSnapshot snapshot, int capacity) {
+            this.snapshot = snapshot;
+            this.capacity = capacity;
+            this.dimensions = DataHandler.getDataDimensions();
+        }
+
+        @Override
+        public NodeView readNodeView(long blockId) {
+            byte[] page = pages.get(blockId);
+            if (page == null) {
+                page = snapshot.readBlock(blockId);
+                if (size.get() < capacity && pages.putIfAbsent(blockId, page) == null)
+                    size.incrementAndGet();
+            }
+            return new NodeView(page, blockId, dimensions, null, null);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package rstar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Math.sqrt;
+
+/**
+ * Implementation of a box of N-dimensions.
+ * <p>
+ * The bounds are kept in a single packed double[] of interleaved lower and upper values, lower and upper bound
+ * of the first dimension, then of the second and so on. The static kernels (union, intersection, containment, overlap,
+ * margin, area, mindist) work on packed arrays and allocate nothing, so the geometry of inserts, splits and queries does
+ * not create a Bounds object per dimension and a list per box for every intermediate result. A packed array
+ * held by a BoundingBox is never modified once the box is created.
+ */
+public class BoundingBox {
+    private final double[] bounds; // lower0, upper0, lower1, upper1, ... of the box
+
+    public BoundingBox(ArrayList<Bounds> bounds) {
+        this.bounds = new double[2 * bounds.size()];
+        for (int d = 0; d < bounds.size(); d++) {
+            this.bounds[2 * d] = bounds.get(d).getLower();
+            this.bounds[2 * d + 1] = bounds.get(d).getUpper();
+        }
+    }
+
+    // Wraps the packed bounds, which must not be modified afterwards
+    BoundingBox(double[] bounds) {
+        this.bounds = bounds;
+    }
+
+    // Box whose lower and upper bounds are the coordinates of the point
+    static BoundingBox ofPoint(double[] point) {
+        double[] bounds = new double[2 * point.length];
+        for (int d = 0; d < point.length; d++) {
+            bounds[2 * d] = point[d];
+            bounds[2 * d + 1] = point[d];
+        }
+        return new BoundingBox(bounds);
+    }
+
+    // Smallest box enclosing the boxes of all the entries
+    static BoundingBox fitting(List<? extends Entry> entries) {
+        double[] fitted = entries.get(0).getBoundingBox().bounds.clone();
+        for (int i = 1; i < entries.size(); i++)
+            union(fitted, entries.get(i).getBoundingBox().bounds, fitted);
+        return new BoundingBox(fitted);
+    }
+
+    // The packed bounds of the box, not copied, so they must only be read
+    double[] getPackedBounds() {
+        return bounds;
+    }
+
+    public int getDimensions() {
+        return bounds.length / 2;
+    }
+
+    public double getLower(int dimension) {
+        return bounds[2 * dimension];
+    }
+
+    public double getUpper(int dimension) {
+        return bounds[2 * dimension + 1];
+    }
+
+    // Bounds for each dimension, created on every call
+    public ArrayList<Bounds> getBounds() {
+        ArrayList<Bounds> boundsList = new ArrayList<>(getDimensions());
+        for (int d = 0; d < getDimensions(); d++)
+            boundsList.add(new Bounds(getUpper(d), getLower(d)));
+        return boundsList;
+    }
+
+    //Total area that the box covers
+    public double getVolume() {
+        return area(bounds);
+    }
+
+    public double getPerimeter() {
+        return margin(bounds);
+    }
+
+    public double getCenter(int dimension) {
+        return (bounds[2 * dimension] + bounds[2 * dimension + 1]) / 2;
+    }
+
+    public double findMinDistance(double[] point) {
+        return minDistance(bounds, point);
+    }
+
+    //True if point's radius overlaps with BoundingBox
+    public boolean checkOverlapWithPoint(double[] point, double radius) {
+        return findMinDistance(point) <= radius;
+    }
+
+    public static double findOverlap(BoundingBox box1, BoundingBox box2) {
+        return overlap(box1.bounds, box2.bounds);
+    }
+
+    // Calculates and returns the euclidean distance value between two bounding boxes's centers
+    static double findDistanceBetweenBoundingBoxes(BoundingBox boundingBoxA, BoundingBox boundingBoxB) {
+        return centerDistance(boundingBoxA.bounds, boundingBoxB.bounds);
+    }
+
+    // Kernels on packed bounds
+
+    // Writes the smallest box enclosing a and b to out, which may be a or b
+    static void union(double[] a, double[] b, double[] out) {
+        union(a, 0, b, 0, out, 0, a.length);
+    }
+
+    // Same as union for boxes of boxLength bounds stored at the given offsets of larger arrays
+    static void union(double[] a, int aOffset, double[] b, int bOffset, double[] out, int outOffset, int boxLength) {
+        for (int i = 0; i < boxLength; i += 2) {
+            out[outOffset + i] = Math.min(a[aOffset + i], b[bOffset + i]);
+            out[outOffset + i + 1] = Math.max(a[aOffset + i + 1], b[bOffset + i + 1]);
+        }
+    }
+
+    // Area of the smallest box enclosing a and b, without materializing it
+    static double unionArea(double[] a, double[] b) {
+        double product = 1;
+        for (int i = 0; i < a.length; i += 2)
+            product *= Math.max(a[i + 1], b[i + 1]) - Math.min(a[i], b[i]);
+        return product;
+    }
+
+    // Writes the intersection of a and b to out, which may be a or b. Returns false, leaving out undefined,
+    // if the boxes do not intersect
+    static boolean intersection(double[] a, double[] b, double[] out) {
+        for (int i = 0; i < a.length; i += 2) {
+            double lower = Math.max(a[i], b[i]);
+            double upper = Math.min(a[i + 1], b[i + 1]);
+            if (lower > upper)
+                return false;
+            out[i] = lower;
+            out[i + 1] = upper;
+        }
+        return true;
+    }
+
+    // True if the boxes intersect, touching boundaries included
+    static boolean intersects(double[] a, double[] b) {
+        for (int i = 0; i < a.length; i += 2)
+            if (a[i] > b[i + 1] || a[i + 1] < b[i])
+                return false;
+        return true;
+    }
+
+    // True if a contains b, boundaries included
+    static boolean contains(double[] a, double[] b) {
+        for (int i = 0; i < a.length; i += 2)
+            if (b[i] < a[i] || b[i + 1] > a[i + 1])
+                return false;
+        return true;
+    }
+
+    // Area of the intersection of a and b, 0 if they only touch or do not intersect
+    static double overlap(double[] a, double[] b) {
+        return overlap(a, 0, b, 0, a.length);
+    }
+
+    static double overlap(double[] a, int aOffset, double[] b, int bOffset, int boxLength) {
+        double overlap = 1;
+        for (int i = 0; i < boxLength; i += 2) {
+            double overlapInDimension = Math.min(a[aOffset + i + 1], b[bOffset + i + 1]) - Math.max(a[aOffset + i], b[bOffset + i]);
+            if (overlapInDimension <= 0)
+                return 0;
+            overlap *= overlapInDimension;
+        }
+        return overlap;
+    }
+
+    // Sum of the edge lengths of the box in every dimension
+    static double margin(double[] box) {
+        return margin(box, 0, box.length);
+    }
+
+    static double margin(double[] boxes, int offset, int boxLength) {
+        double sum = 0;
+        for (int i = offset; i < offset + boxLength; i += 2)
+            sum += boxes[i + 1] - boxes[i];
+        return sum;
+    }
+
+    static double area(double[] box) {
+        return area(box, 0, box.length);
+    }
+
+    static double area(double[] boxes, int offset, int boxLength) {
+        double product = 1;
+        for (int i = offset; i < offset + boxLength; i += 2)
+            product *= boxes[i + 1] - boxes[i];
+        return product;
+    }
+
+    // Euclidean distance between the point and the closest point of the box, 0 if the point is inside it
+    static double minDistance(double[] box, double[] point) {
+        double sum = 0;
+        for (int d = 0; d < point.length; d++) {
+            double difference;
+            if (point[d] < box[2 * d])
+                difference = box[2 * d] - point[d];
+            else if (point[d] > box[2 * d + 1])
+                difference = point[d] - box[2 * d + 1];
+            else
+                difference = 0;
+            sum += difference * difference;
+        }
+        return sqrt(sum);
+    }
+
+    // Euclidean distance between the centers of a and b
+    static double centerDistance(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i += 2) {
+            double difference = (a[i] + a[i + 1]) / 2 - (b[i] + b[i + 1]) / 2;
+            sum += difference * difference;
+        }
+        return sqrt(sum);
+    }
+}
@@ -0,0 +1,23 @@
+package rstar;
+
+// Bounds of an interval in a single dimension
+public class Bounds {
+    private double upper;
+    private double lower;
+
+    public Bounds(double upper, double lower) {
+        if (lower <= upper) {
+            this.upper = upper;
+            this.lower = lower;
+        }
+        else
+            throw new IllegalArgumentException("The lower value of the bounds cannot be greater than the upper value.");
+    }
+
+    public double getUpper() {
+        return upper;
+    }
+    public double getLower() {
+        return lower;
+    }
+}
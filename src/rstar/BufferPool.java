@@ -0,0 +1,333 @@
+package rstar;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.TreeMap;
+
+/**
+ * Bounded cache of file blocks, shared by the data file and the index file.
+ * Each frame holds one block, keyed by its file and block id.
+ * <p>
+ * Eviction follows the CLOCK algorithm: every access sets the frame's reference bit, and the clock hand
+ * sweeps the frames clearing reference bits until it finds an unpinned frame that was not referenced since
+ * the last sweep. Writes only replace the frame's contents and mark it dirty; a dirty frame is written back
+ * to its file when it is evicted or when the pool is flushed.
+ * <p>
+ * The block arrays handed out by the pool are never modified in place: a write installs the caller's array
+ * as the new contents of the frame. Callers must not modify an array after writing it or after reading it.
+ * <p>
+ * The pool is shared by every thread and guarded by its lock, which is not held while a missing block is read from
+ * its file: a miss reserves a frame for the block under the lock, marked as loading and pinned so that it is not
+ * evicted, reads the block without the lock and then publishes it. Meanwhile other threads are served the blocks
+ * already cached, and those that want the block being loaded wait for it, so a block is never read into two frames.
+ */
+public class BufferPool {
+    private final Frame[] frames;
+    private final HashMap<PageKey, Frame> pageTable; // The frame holding each cached block
+    private final HashSet<PageFile> noStealFiles = new HashSet<>(); // Files whose dirty blocks are never evicted
+    private int clockHand;
+    private int framesInUse;
+    private long hits;
+    private long misses;
+
+    public BufferPool(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("The capacity of the buffer pool must be a positive number of pages");
+        this.frames = new Frame[capacity];
+        this.pageTable = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized int getCapacity() {
+        return frames.length;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    // Returns the contents of the given block, reading it from the file if it is not cached
+    public byte[] readBlock(PageFile file, long blockId) throws IOException {
+        return fetch(file, blockId, false);
+    }
+
+    // Returns the contents of the given block if it is cached, null without reading it from the file otherwise.
+    // Either way the access is counted as a hit or a miss, for callers that read the missing part of the block themselves
+    public synchronized byte[] readCachedBlock(PageFile file, long blockId) {
+        Frame frame = pageTable.get(new PageKey(file, blockId));
+        if (frame == null || frame.loading) {
+            misses++;
+            file.getMetrics().cacheMiss();
+            return null;
+        }
+        hits++;
+        file.getMetrics().cacheHit();
+        frame.referenced = true;
+        return frame.data;
+    }
+
+    // Replaces the contents of the given block with the given array, without reading the block from the file.
+    // The block is written back to the file when it is evicted or flushed
+    public synchronized void writeBlock(PageFile file, long blockId, byte[] block) throws IOException {
+        if (block.length != file.getBlockSize())
+            throw new IllegalArgumentException("Block size written was not of " + file.getBlockSize() + " bytes");
+        Frame frame = loadedFrame(new PageKey(file, blockId));
+        if (frame == null)
+            frame = allocateFrame(file, blockId);
+        frame.data = block;
+        frame.dirty = true;
+        frame.referenced = true;
+    }
+
+    // Returns the contents of the given block and keeps it in the pool until it is unpinned.
+    // Every call must be matched by a call to unpin
+    public byte[] pin(PageFile file, long blockId) throws IOException {
+        return fetch(file, blockId, true);
+    }
+
+    public synchronized void unpin(PageFile file, long blockId) {
+        Frame frame = pageTable.get(new PageKey(file, blockId));
+        if (frame == null || frame.loading || frame.pinCount == 0)
+            throw new IllegalStateException("Block " + blockId + " of " + file.getFilename() + " is not pinned");
+        frame.pinCount--;
+    }
+
+    // With noSteal set, dirty blocks of the file are kept in the pool until it is flushed instead of being written
+    // back when evicted, so the file only changes at the points the caller flushes it
+    public synchronized void setNoSteal(PageFile file, boolean noSteal) {
+        if (noSteal)
+            noStealFiles.add(file);
+        else
+            noStealFiles.remove(file);
+    }
+
+    public synchronized int countDirtyBlocks(PageFile file) {
+        int count = 0;
+        for (int i = 0; i < framesInUse; i++)
+            if (frames[i].key != null && frames[i].dirty && frames[i].key.file == file)
+                count++;
+        return count;
+    }
+
+    // Returns the contents of every dirty block of the given file, by block id
+    public synchronized TreeMap<Long, byte[]> getDirtyBlocks(PageFile file) {
+        TreeMap<Long, byte[]> dirtyBlocks = new TreeMap<>();
+        for (int i = 0; i < framesInUse; i++) {
+            Frame frame = frames[i];
+            if (frame.key != null && frame.dirty && frame.key.file == file)
+                dirtyBlocks.put(frame.key.blockId, frame.data);
+        }
+        return dirtyBlocks;
+    }
+
+    // Writes every dirty block of the given file back to it
+    public synchronized void flush(PageFile file) throws IOException {
+        writeBackDirtyFrames(file);
+    }
+
+    // Writes every dirty block of every file back to its file
+    public synchronized void flushAll() throws IOException {
+        writeBackDirtyFrames(null);
+    }
+
+    // Drops every cached block of the given file without writing it back,
+    // used when the file is rewritten or deleted outside the pool
+    public synchronized void invalidate(PageFile file) {
+        while (isLoading(file))
+            awaitLoad();
+        for (int i = 0; i < framesInUse; i++) {
+            Frame frame = frames[i];
+            if (frame.key != null && frame.key.file == file)
+                drop(frame);
+        }
+    }
+
+    // Drops the given block from the pool without writing it back, used when the block is written outside the pool
+    public synchronized void invalidateBlock(PageFile file, long blockId) {
+        Frame frame = loadedFrame(new PageKey(file, blockId));
+        if (frame != null)
+            drop(frame);
+    }
+
+    // Frees the frame without writing it back
+    private void drop(Frame frame) {
+        if (frame.pinCount > 0)
+            throw new IllegalStateException("Cannot invalidate pinned block " + frame.key.blockId + " of " + frame.key.file.getFilename());
+        pageTable.remove(frame.key);
+        frame.key = null;
+        frame.data = null;
+        frame.dirty = false;
+        frame.referenced = false;
+    }
+
+    // Returns the contents of the given block, pinned if asked. A miss reserves a frame for the block under the lock
+    // and reads the block into it without the lock
+    private byte[] fetch(PageFile file, long blockId, boolean pin) throws IOException {
+        Frame frame;
+        synchronized (this) {
+            frame = loadedFrame(new PageKey(file, blockId));
+            if (frame != null) {
+                hits++;
+                file.getMetrics().cacheHit();
+                frame.referenced = true;
+                if (pin)
+                    frame.pinCount++;
+                return frame.data;
+            }
+            misses++;
+            file.getMetrics().cacheMiss();
+            frame = allocateFrame(file, blockId);
+            frame.data = null;
+            frame.dirty = false;
+            frame.referenced = true;
+            frame.loading = true;
+            frame.pinCount = 1; // Keeps the frame from being evicted or dropped while the block is read
+        }
+
+        byte[] block = new byte[file.getBlockSize()];
+        boolean read = false;
+        try {
+            file.readBlock(blockId, block);
+            read = true;
+        } finally {
+            synchronized (this) {
+                frame.loading = false;
+                frame.pinCount = 0;
+                if (read) {
+                    frame.data = block;
+                    if (pin)
+                        frame.pinCount++;
+                } else
+                    drop(frame);
+                notifyAll();
+            }
+        }
+        return block;
+    }
+
+    // Returns the frame holding the given block once it is loaded, waiting for a read of the block in progress,
+    // or null if the block is not cached. Called under the lock
+    private Frame loadedFrame(PageKey key) {
+        Frame frame = pageTable.get(key);
+        while (frame != null && frame.loading) {
+            awaitLoad();
+            frame = pageTable.get(key);
+        }
+        return frame;
+    }
+
+    // True if a block of the given file is being read into a frame. Called under the lock
+    private boolean isLoading(PageFile file) {
+        for (int i = 0; i < framesInUse; i++)
+            if (frames[i].loading && frames[i].key.file == file)
+                return true;
+        return false;
+    }
+
+    // Waits until a block being read is published. Called under the lock
+    private void awaitLoad() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a block to be read", e);
+        }
+    }
+
+    // Returns a frame registered for the given block, evicting a cached block if the pool is full
+    private Frame allocateFrame(PageFile file, long blockId) throws IOException {
+        Frame frame;
+        if (framesInUse < frames.length) {
+            frame = new Frame();
+            frames[framesInUse++] = frame;
+        } else {
+            frame = findVictim();
+            if (frame.key != null) {
+                writeBack(frame);
+                pageTable.remove(frame.key);
+            }
+        }
+        frame.key = new PageKey(file, blockId);
+        frame.pinCount = 0;
+        pageTable.put(frame.key, frame);
+        return frame;
+    }
+
+    // CLOCK sweep: at most two full turns are needed, since the first one clears every reference bit
+    private Frame findVictim() {
+        for (int i = 0; i < 2 * frames.length; i++) {
+            Frame frame = frames[clockHand];
+            clockHand = (clockHand + 1) % frames.length;
+            if (frame.key == null)
+                return frame;
+            if (frame.pinCount > 0 || (frame.dirty && noStealFiles.contains(frame.key.file)))
+                continue;
+            if (frame.referenced)
+                frame.referenced = false;
+            else
+                return frame;
+        }
+        throw new IllegalStateException("All " + frames.length + " frames of the buffer pool are pinned or hold dirty blocks that cannot be evicted");
+    }
+
+    // Writes back the dirty frames of the given file (or of every file if null) in block order,
+    // so that blocks appended since the last flush reach the file as one sequential run
+    private void writeBackDirtyFrames(PageFile file) throws IOException {
+        ArrayList<Frame> dirtyFrames = new ArrayList<>();
+        for (int i = 0; i < framesInUse; i++) {
+            Frame frame = frames[i];
+            if (frame.key != null && frame.dirty && (file == null || frame.key.file == file))
+                dirtyFrames.add(frame);
+        }
+        dirtyFrames.sort(Comparator.comparing((Frame frame) -> frame.key.file.getFilename()).thenComparingLong(frame -> frame.key.blockId));
+        for (Frame frame : dirtyFrames)
+            writeBack(frame);
+    }
+
+    private void writeBack(Frame frame) throws IOException {
+        if (frame.key != null && frame.dirty) {
+            frame.key.file.writeBlock(frame.key.blockId, frame.data);
+            frame.dirty = false;
+        }
+    }
+
+    private static class Frame {
+        private PageKey key; // null while the frame is free
+        private byte[] data;
+        private int pinCount;
+        private boolean dirty;
+        private boolean referenced;
+        private boolean loading; // True while the block is read from its file without the lock, data is null until then
+    }
+
+    private static final class PageKey {
+        private final PageFile file;
+        private final long blockId;
+
+        private PageKey(PageFile file, long blockId) {
+            this.file = file;
+            this.blockId = blockId;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof PageKey))
+                return false;
+            PageKey other = (PageKey) obj;
+            return file == other.file && blockId == other.blockId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(file) + Long.hashCode(blockId);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package rstar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Builds the R*-tree bottom-up from every record of the data file with Sort-Tile-Recursive (STR) packing.
+ * <p>
+ * The entries of a level are sorted by the center of their boxes on the first dimension and cut into slabs,
+ * every slab is sorted on the next dimension and cut again, down to the last dimension where runs of
+ * nodeCapacity consecutive entries become the nodes of the level. The entries pointing to those nodes are
+ * packed the same way into the next level, until they fit in the root.
+ * <p>
+ * Sorting uses Arrays.parallelSort, so it is spread over all cores. Every level is written to the index file
+ * right after it is packed, with consecutive block ids, so the whole tree is laid out in one sequential pass
+ * (the root is written last, to its fixed block).
+ * <p>
+ * A repack packs the leaf entries of a snapshot of the index the same way, into a file of its own.
+ */
+public class BulkLoader {
+    private final int nodeCapacity; // Entries placed in every packed node
+    private final int dimensions;
+    private long nextBlockId;
+
+    // fillFactor is the fraction of Node.getMaxEntriesInNode() entries placed in every packed node,
+    // less than 1 to leave room for later inserts before the nodes split
+    public BulkLoader(double fillFactor) {
+        if (fillFactor <= 0 || fillFactor > 1)
+            throw new IllegalArgumentException("The fill factor must be in (0, 1]");
+        this.nodeCapacity = (int) (fillFactor * Node.getMaxEntriesInNode());
+        if (nodeCapacity < Node.getMinEntriesInNode() || nodeCapacity < 2)
+            throw new IllegalArgumentException("A fill factor of " + fillFactor + " leaves nodes with fewer than the minimum of " + Node.getMinEntriesInNode() + " entries");
+        this.dimensions = DataHandler.getDataDimensions();
+    }
+
+    // Replaces the contents of the index file with a tree of every record of the data file
+    // and returns the number of levels of the new tree
+    public int load() {
+        Entry[] entries = readLeafEntries();
+        DataHandler.resetIndexFile();
+        int level = pack(entries, DataHandler::writeIndexFileBlocks);
+        DataHandler.setLevelsOfTreeIndex(level);
+        DataHandler.flush();
+        return level;
+    }
+
+    // Packs the given leaf entries into a tree written to the given file instead of the index file and returns the
+    // number of levels of the tree, which then takes up getTotalBlocks() blocks of the file. Block 0 is left unwritten
+    int load(Entry[] entries, PageFile file) {
+        return pack(entries, nodes -> DataHandler.writeIndexFileBlocks(file, nodes));
+    }
+
+    // Blocks of the tree packed last, including the metadata block
+    long getTotalBlocks() {
+        return nextBlockId;
+    }
+
+    // Packs levels until the entries of a level fit in the root, handing every level to the writer as it is packed
+    private int pack(Entry[] entries, Consumer<List<Node>> writer) {
+        nextBlockId = RStarTree.getRootBlockId() + 1;
+        int level = RStarTree.getLeafLevel();
+        while (entries.length > Node.getMaxEntriesInNode()) {
+            List<Node> nodes = packLevel(entries, level);
+            writer.accept(nodes);
+            entries = new Entry[nodes.size()];
+            for (int i = 0; i < nodes.size(); i++)
+                entries[i] = new Entry(nodes.get(i));
+            level++;
+        }
+        Node root = new Node(level, new ArrayList<>(Arrays.asList(entries)));
+        root.setBlockId(RStarTree.getRootBlockId());
+        writer.accept(List.of(root));
+        return level;
+    }
+
+    private Entry[] readLeafEntries() {
+        ArrayList<Entry> leafEntries = new ArrayList<>();
+        for (int i = 1; i < DataHandler.getTotalBlocksInDataFile(); i++) {
+            ArrayList<Record> records = DataHandler.readDataFileBlock(i);
+            if (records == null)
+                throw new IllegalStateException("Error in reading data file");
+            for (int slot = 0; slot < records.size(); slot++)
+                leafEntries.add(new LeafEntry(records.get(slot), i, slot));
+        }
+        return leafEntries.toArray(new Entry[0]);
+    }
+
+    // Sorts and tiles the entries of a level and groups every run of the tiling into a node of the given level
+    private List<Node> packLevel(Entry[] entries, int level) {
+        ArrayList<int[]> runs = new ArrayList<>();
+        tile(entries, 0, entries.length, 0, runs);
+        balanceRuns(runs);
+
+        ArrayList<Node> nodes = new ArrayList<>(runs.size());
+        for (int[] run : runs) {
+            ArrayList<Entry> nodeEntries = new ArrayList<>(run[1] - run[0] + 1);
+            nodeEntries.addAll(Arrays.asList(entries).subList(run[0], run[1]));
+            Node node = new Node(level, nodeEntries);
+            node.setBlockId(nextBlockId++);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    // Sorts entries[from, to) on the given dimension and cuts them into slabs, each one tiled on the next dimension.
+    // On the last dimension the slab is cut into runs of nodeCapacity entries, added to runs as {from, to} pairs
+    private void tile(Entry[] entries, int from, int to, int dimension, ArrayList<int[]> runs) {
+        Arrays.parallelSort(entries, from, to, compareOnCenter(dimension));
+        int count = to - from;
+        if (dimension == dimensions - 1 || count <= nodeCapacity) {
+            for (int start = from; start < to; start += nodeCapacity)
+                runs.add(new int[]{start, Math.min(start + nodeCapacity, to)});
+            return;
+        }
+        // With P nodes left to fill and k dimensions left to tile, there are ceil(P^(1/k)) slabs
+        int nodesToFill = (count + nodeCapacity - 1) / nodeCapacity;
+        int slabs = (int) Math.ceil(Math.pow(nodesToFill, 1.0 / (dimensions - dimension)));
+        int slabSize = nodeCapacity * ((nodesToFill + slabs - 1) / slabs);
+        for (int start = from; start < to; start += slabSize)
+            tile(entries, start, Math.min(start + slabSize, to), dimension + 1, runs);
+    }
+
+    // The last run of a slab can be left with fewer than the minimum entries of a node.
+    // Such a run is merged with its neighbour if both fit in one node, otherwise the two are split evenly
+    private void balanceRuns(ArrayList<int[]> runs) {
+        for (int i = 0; i < runs.size() && runs.size() > 1; i++) {
+            int[] run = runs.get(i);
+            if (run[1] - run[0] >= Node.getMinEntriesInNode())
+                continue;
+            int neighbour = i > 0 ? i - 1 : i + 1;
+            int[] first = runs.get(Math.min(i, neighbour));
+            int[] second = runs.get(Math.max(i, neighbour));
+            if (second[1] - first[0] <= Node.getMaxEntriesInNode()) {
+                first[1] = second[1];
+                runs.remove(Math.max(i, neighbour));
+                i--;
+            } else {
+                int middle = (first[0] + second[1]) / 2;
+                first[1] = middle;
+                second[0] = middle;
+            }
+        }
+    }
+
+    private static Comparator<Entry> compareOnCenter(int dimension) {
+        return Comparator.comparingDouble(entry -> entry.getBoundingBox().getCenter(dimension));
+    }
+}
@@ -0,0 +1,11 @@
+package rstar;
+
+import java.util.Iterator;
+
+// An iterator over the results of a query that reads the index lazily from a snapshot. The snapshot is closed once
+// the last result has been returned, and close releases it when the caller stops before that, so callers that may
+// stop early must use the iterator in a try-with-resources statement
+public interface CloseableIterator<T> extends Iterator<T>, AutoCloseable {
+    @Override
+    void close();
+}
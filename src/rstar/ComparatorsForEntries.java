@@ -0,0 +1,50 @@
+package rstar;
+
+import java.util.Comparator;
+
+//Comparators of entries using different methods
+//The geometry is computed on the packed bounds of the boxes, with the allocation-free kernels of BoundingBox
+public class ComparatorsForEntries {
+
+    //Compare based on their bounds
+    public static class CompareOnBounds implements Comparator<Entry> {
+        private final int boundIndex; //Index of the compared bound in the packed bounds, upper or lower (resolved in CompareBounds constructor)
+
+        public CompareOnBounds(int dimension, boolean basedOnUpperBound) {
+            this.boundIndex = basedOnUpperBound ? 2 * dimension + 1 : 2 * dimension;
+        }
+        @Override
+        public int compare(Entry en1, Entry en2) {
+            return Double.compare(en1.getBoundingBox().getPackedBounds()[boundIndex],en2.getBoundingBox().getPackedBounds()[boundIndex]);
+        }
+    }
+
+    //Compare based on the minimum distance of the entries' boxes from a point, computed on the packed bounds at every comparison
+    public static class CompareOnDistanceFromPoint implements Comparator<Entry> {
+        private final double[] point;
+
+        public CompareOnDistanceFromPoint(double[] point) {
+            this.point = point;
+        }
+
+        public int compare(Entry en1, Entry en2) {
+            return Double.compare(BoundingBox.minDistance(en1.getBoundingBox().getPackedBounds(), point),
+                    BoundingBox.minDistance(en2.getBoundingBox().getPackedBounds(), point));
+        }
+    }
+
+    //Compare based on the distance of the entries' box centers from the center of a box, computed on the packed bounds at every comparison.
+    //RStarTree.reInsert computes the distances once into an array and sorts the positions of the entries instead
+    public static class CompareOnDistanceFromCenter implements Comparator<Entry> {
+        private final double[] box;
+
+        public CompareOnDistanceFromCenter(BoundingBox boundingBox) {
+            this.box = boundingBox.getPackedBounds();
+        }
+
+        public int compare(Entry en1, Entry en2) {
+            return Double.compare(BoundingBox.centerDistance(en1.getBoundingBox().getPackedBounds(), box),
+                    BoundingBox.centerDistance(en2.getBoundingBox().getPackedBounds(), box));
+        }
+    }
+}
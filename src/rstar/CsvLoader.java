@@ -0,0 +1,362 @@
+package rstar;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the records of a csv file ("id,coordinate1,...,coordinateN" per line) into the data file as a pipeline:
+ * <ul>
+ *     <li>a reader thread reads the csv file in chunks of CHUNK_SIZE bytes, each ending at a line boundary,</li>
+ *     <li>a pool of parser threads, one per core, parses every chunk straight from its bytes into flat id and
+ *     coordinate arrays, without creating a String per line or field, and encodes the records into blocks,</li>
+ *     <li>the calling thread takes the encoded chunks in file order and appends their blocks to the data file
+ *     with one write per chunk.</li>
+ * </ul>
+ * The metadata block of the data file is written every CHECKPOINT_BLOCKS blocks and once at the end,
+ * instead of after every block.
+ * <p>
+ * Every chunk is encoded into its own blocks, so the last block of each chunk can hold fewer than the
+ * maximum records of a block.
+ * <p>
+ * A line that is not a record fails the load with an IllegalArgumentException giving its line number in the file,
+ * after the blocks of the chunks before its own have been appended.
+ */
+public class CsvLoader {
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024; // Bytes of the csv file parsed by one task
+    private static final int CHECKPOINT_BLOCKS = 4096; // Blocks appended between two writes of the metadata block
+    private final String csvFile;
+    private final int dimensions;
+    private final int maxRecordsInBlock;
+    private final int blockSize;
+
+    public CsvLoader(String csvFile, int dimensions, int maxRecordsInBlock) {
+        this.csvFile = csvFile;
+        this.dimensions = dimensions;
+        this.maxRecordsInBlock = maxRecordsInBlock;
+        this.blockSize = DataHandler.getBlockSize();
+    }
+
+    // Appends every record of the csv file to the data file
+    public void load() throws IOException {
+        int parsers = Runtime.getRuntime().availableProcessors();
+        ExecutorService parserPool = Executors.newFixedThreadPool(parsers);
+        // Bounded, so the reader cannot run further ahead of the writer than a few chunks per parser
+        BlockingQueue<Future<EncodedChunk>> chunks = new ArrayBlockingQueue<>(2 * parsers);
+        Future<EncodedChunk> endOfFile = parserPool.submit(() -> null);
+        Thread reader = new Thread(() -> readChunks(parserPool, chunks, endOfFile), "csv-reader");
+        reader.start();
+
+        long linesBefore = 0; // Lines of the chunks taken so far, to number the line of a parse failure within the file
+        try {
+            long blocksSinceCheckpoint = 0;
+            while (true) {
+                Future<EncodedChunk> future = chunks.take();
+                if (future == endOfFile)
+                    break;
+                EncodedChunk chunk = future.get();
+                linesBefore += chunk.lines;
+                if (chunk.blockCount == 0)
+                    continue;
+                DataHandler.appendDataFileBlocks(chunk.blocks, chunk.blockCount);
+                blocksSinceCheckpoint += chunk.blockCount;
+                if (blocksSinceCheckpoint >= CHECKPOINT_BLOCKS) {
+                    DataHandler.writeDataFileMetadata();
+                    blocksSinceCheckpoint = 0;
+                }
+            }
+            DataHandler.writeDataFileMetadata();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Loading " + csvFile + " was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MalformedLineException) {
+                MalformedLineException malformed = (MalformedLineException) e.getCause();
+                throw new IllegalArgumentException("Line " + (linesBefore + malformed.line) + " of " + csvFile + " is not an id followed by "
+                        + dimensions + " coordinates: " + malformed.getCause().getMessage(), malformed.getCause());
+            }
+            throw new IllegalStateException("Could not parse " + csvFile, e.getCause());
+        } finally {
+            reader.interrupt();
+            parserPool.shutdownNow();
+        }
+    }
+
+    // Reads the csv file in chunks ending at line boundaries and queues a parsing task for each one, in file order
+    private void readChunks(ExecutorService parserPool, BlockingQueue<Future<EncodedChunk>> chunks, Future<EncodedChunk> endOfFile) {
+        try (RandomAccessFile raf = new RandomAccessFile(csvFile, "r");
+             FileChannel channel = raf.getChannel()) {
+            byte[] carried = new byte[0]; // The incomplete last line of the previous chunk
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            boolean endReached = false;
+            while (!endReached) {
+                buffer.clear();
+                while (buffer.hasRemaining() && !endReached)
+                    endReached = channel.read(buffer) < 0;
+                byte[] chunk = new byte[carried.length + buffer.position()];
+                System.arraycopy(carried, 0, chunk, 0, carried.length);
+                System.arraycopy(buffer.array(), 0, chunk, carried.length, buffer.position());
+
+                int end = chunk.length;
+                if (!endReached) {
+                    while (end > 0 && chunk[end - 1] != '\n')
+                        end--;
+                }
+                carried = new byte[chunk.length - end];
+                System.arraycopy(chunk, end, carried, 0, carried.length);
+                int chunkEnd = end;
+                if (chunkEnd > 0)
+                    chunks.put(parserPool.submit(() -> encode(parse(chunk, chunkEnd))));
+            }
+            chunks.put(endOfFile);
+        } catch (IOException e) {
+            // Handing the failure to the writer, which reports it when it reaches this chunk
+            try {
+                chunks.put(parserPool.submit(() -> { throw e; }));
+                chunks.put(endOfFile);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Parses the lines of chunk[0, end) into a ParsedChunk
+    private ParsedChunk parse(byte[] chunk, int end) {
+        int lines = 0;
+        for (int i = 0; i < end; i++)
+            if (chunk[i] == '\n')
+                lines++;
+        if (end > 0 && chunk[end - 1] != '\n')
+            lines++;
+
+        ParsedChunk parsed = new ParsedChunk(lines, dimensions);
+        CsvFieldParser parser = new CsvFieldParser(chunk, end);
+        int line = 0;
+        while (parser.hasMoreLines()) {
+            line++;
+            if (parser.skipEmptyLine())
+                continue;
+            try {
+                parsed.ids[parsed.count] = parser.nextLong();
+                for (int d = 0; d < dimensions; d++)
+                    parsed.coordinates[parsed.count * dimensions + d] = parser.nextDouble();
+                parser.endLine(dimensions + 1);
+            } catch (IllegalArgumentException e) { // NumberFormatException included
+                throw new MalformedLineException(line, e);
+            }
+            parsed.count++;
+        }
+        return parsed;
+    }
+
+    // Encodes the parsed records into consecutive blocks of up to maxRecordsInBlock records. Slots are written
+    // straight from the flat arrays, only a data file of serialized blocks needs a Record per record
+    private EncodedChunk encode(ParsedChunk parsed) throws IOException {
+        int blockCount = (parsed.count + maxRecordsInBlock - 1) / maxRecordsInBlock;
+        byte[] blocks = new byte[blockCount * blockSize];
+        for (int b = 0; b < blockCount; b++) {
+            int from = b * maxRecordsInBlock;
+            int to = Math.min(from + maxRecordsInBlock, parsed.count);
+            if (DataHandler.isSlottedDataFile()) {
+                DataFileManager.writeBlock(parsed.ids, parsed.coordinates, from, to, blocks, b * blockSize, blockSize, dimensions);
+                continue;
+            }
+            ArrayList<Record> blockRecords = new ArrayList<>(to - from);
+            for (int r = from; r < to; r++) {
+                ArrayList<Double> coordinates = new ArrayList<>(dimensions);
+                for (int d = 0; d < dimensions; d++)
+                    coordinates.add(parsed.coordinates[r * dimensions + d]);
+                blockRecords.add(new Record(parsed.ids[r], coordinates));
+            }
+            DataHandler.encodeDataFileBlock(blockRecords, blocks, b * blockSize);
+        }
+        return new EncodedChunk(blocks, blockCount, parsed.lines);
+    }
+
+    // Records of a chunk, as flat arrays: the coordinates of the i-th record are coordinates[i*dimensions, (i+1)*dimensions)
+    private static class ParsedChunk {
+        private final long[] ids;
+        private final double[] coordinates;
+        private final int lines; // Lines of the chunk, empty ones included
+        private int count;
+
+        ParsedChunk(int lines, int dimensions) {
+            this.ids = new long[lines];
+            this.coordinates = new double[lines * dimensions];
+            this.lines = lines;
+        }
+    }
+
+    private static class EncodedChunk {
+        private final byte[] blocks;
+        private final int blockCount;
+        private final int lines;
+
+        EncodedChunk(byte[] blocks, int blockCount, int lines) {
+            this.blocks = blocks;
+            this.blockCount = blockCount;
+            this.lines = lines;
+        }
+    }
+
+    // A line of a chunk that is not a record, numbered from 1 within the chunk. The writer, which knows the lines
+    // of the chunks before it, reports it with its line number within the file
+    private static class MalformedLineException extends RuntimeException {
+        private final int line;
+
+        MalformedLineException(int line, IllegalArgumentException cause) {
+            super(cause);
+            this.line = line;
+        }
+    }
+
+    /**
+     * Reads the comma separated fields of a chunk of lines straight from its bytes.
+     * Decimal numbers with up to 15 significant digits and a decimal exponent within +-22 are converted exactly
+     * (the product or quotient of two exactly representable doubles is correctly rounded); anything else falls
+     * back to Double.parseDouble on a String of the field.
+     */
+    private static class CsvFieldParser {
+        private static final double[] POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+        private final byte[] bytes;
+        private final int end;
+        private int position;
+        private int fieldsInLine;
+
+        CsvFieldParser(byte[] bytes, int end) {
+            this.bytes = bytes;
+            this.end = end;
+        }
+
+        boolean hasMoreLines() {
+            return position < end;
+        }
+
+        // Skips the current line if it is empty
+        boolean skipEmptyLine() {
+            int i = position;
+            if (i < end && bytes[i] == '\r')
+                i++;
+            if (i < end && bytes[i] != '\n')
+                return false;
+            position = Math.min(i + 1, end);
+            return true;
+        }
+
+        // Moves past the end of the current line, which must have had the given number of fields
+        void endLine(int expectedFields) {
+            if (position < end && bytes[position] == '\r')
+                position++;
+            if (position < end && bytes[position] != '\n' || fieldsInLine != expectedFields)
+                throw new IllegalArgumentException("the line has more than " + expectedFields + " fields");
+            position++;
+            fieldsInLine = 0;
+        }
+
+        private int fieldEnd() {
+            int i = position;
+            while (i < end && bytes[i] != ',' && bytes[i] != '\n' && bytes[i] != '\r')
+                i++;
+            return i;
+        }
+
+        // Moves past the field ending at fieldEnd and its trailing comma
+        private void consumeField(int fieldEnd) {
+            position = fieldEnd;
+            if (position < end && bytes[position] == ',')
+                position++;
+            fieldsInLine++;
+        }
+
+        long nextLong() {
+            int fieldEnd = fieldEnd();
+            int i = position;
+            boolean negative = i < fieldEnd && bytes[i] == '-';
+            if (negative || i < fieldEnd && bytes[i] == '+')
+                i++;
+            long value = 0;
+            int digits = 0;
+            for (; i < fieldEnd && bytes[i] >= '0' && bytes[i] <= '9'; i++, digits++)
+                value = value * 10 + (bytes[i] - '0');
+            if (i != fieldEnd || digits == 0 || digits > 18)
+                value = Long.parseLong(fieldAsString(fieldEnd).trim());
+            else if (negative)
+                value = -value;
+            consumeField(fieldEnd);
+            return value;
+        }
+
+        double nextDouble() {
+            int fieldEnd = fieldEnd();
+            double value = parseDecimal(position, fieldEnd);
+            if (Double.isNaN(value))
+                value = Double.parseDouble(fieldAsString(fieldEnd));
+            consumeField(fieldEnd);
+            return value;
+        }
+
+        // Returns NaN if the field is not a plain decimal number that can be converted exactly
+        private double parseDecimal(int i, int fieldEnd) {
+            boolean negative = i < fieldEnd && bytes[i] == '-';
+            if (negative || i < fieldEnd && bytes[i] == '+')
+                i++;
+            long mantissa = 0;
+            int significantDigits = 0;
+            int exponent = 0;
+            boolean anyDigit = false;
+            boolean fraction = false;
+            for (; i < fieldEnd; i++) {
+                byte b = bytes[i];
+                if (b >= '0' && b <= '9') {
+                    anyDigit = true;
+                    if (mantissa != 0 || b != '0')
+                        significantDigits++;
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (fraction)
+                        exponent--;
+                    if (significantDigits > 15)
+                        return Double.NaN;
+                } else if (b == '.' && !fraction)
+                    fraction = true;
+                else
+                    break;
+            }
+            if (!anyDigit)
+                return Double.NaN;
+            if (i < fieldEnd && (bytes[i] == 'e' || bytes[i] == 'E')) {
+                i++;
+                boolean negativeExponent = i < fieldEnd && bytes[i] == '-';
+                if (negativeExponent || i < fieldEnd && bytes[i] == '+')
+                    i++;
+                int explicitExponent = 0;
+                int exponentDigits = 0;
+                for (; i < fieldEnd && bytes[i] >= '0' && bytes[i] <= '9' && exponentDigits < 4; i++, exponentDigits++)
+                    explicitExponent = explicitExponent * 10 + (bytes[i] - '0');
+                if (exponentDigits == 0)
+                    return Double.NaN;
+                exponent += negativeExponent ? -explicitExponent : explicitExponent;
+            }
+            if (i != fieldEnd || exponent < -22 || exponent > 22)
+                return Double.NaN;
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+
+        private String fieldAsString(int fieldEnd) {
+            return new String(bytes, position, fieldEnd - position, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
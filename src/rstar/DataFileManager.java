@@ -0,0 +1,155 @@
+package rstar;
+
+/*
+  Binary layout of the blocks of datafile.dat.
+
+  Block 0: metadata
+      short formatVersion, int dimension, int blockSize, int totalBlocks, int slotsPerBlock
+
+  Block N: records in fixed-width slots
+      header: short formatVersion, short unused, int recordCount
+      slots:  recordCount slots, each one being long recordId followed by dimension doubles, the point of the record
+
+  Every slot has the same width, so the record in slot s of a block starts at BLOCK_HEADER_SIZE + s * slotSize and
+  can be read on its own, without reading or decoding the rest of its block.
+
+  Data files written before this layout hold in every block the serialized length of a serialized object followed
+  by the object: the list of dimensions, block size and total blocks in block 0 and an ArrayList<Record> in the
+  others. A serialized object starts with the stream magic 0xACED, which no version of this layout starts with.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DataFileManager {
+    static final short FORMAT_VERSION = 1;
+    static final short SERIALIZED_STREAM_MAGIC = (short) 0xACED;
+
+    // Offsets of the data block header fields
+    static final int VERSION_OFFSET = 0;
+    static final int RECORD_COUNT_OFFSET = 4;
+    static final int BLOCK_HEADER_SIZE = 8;
+
+    // Size in bytes of the slot of a record
+    static int slotSize(int dimension) {
+        return Long.BYTES + dimension * Double.BYTES;
+    }
+
+    // Records that fit in a block of the given size
+    static int slotsPerBlock(int blockSize, int dimension) {
+        return (blockSize - BLOCK_HEADER_SIZE) / slotSize(dimension);
+    }
+
+    // Offset within its block of the slot with the given number
+    static int slotOffset(int slot, int dimension) {
+        return BLOCK_HEADER_SIZE + slot * slotSize(dimension);
+    }
+
+    // True if the block 0 read from a data file is in this layout, false if the file was written by serializing its blocks
+    static boolean isSlotted(byte[] block0) {
+        short version = ByteBuffer.wrap(block0).getShort(VERSION_OFFSET);
+        if (version == SERIALIZED_STREAM_MAGIC)
+            return false;
+        if (version != FORMAT_VERSION)
+            throw new IllegalStateException("Unsupported data file format version " + version);
+        return true;
+    }
+
+    /* Write the metadata TO BLOCK 0 */
+    static byte[] writeMetadata(int dimension, int blockSize, int totalBlocks) {
+        byte[] block = new byte[blockSize];
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        buffer.putShort(FORMAT_VERSION);
+        buffer.putInt(dimension);
+        buffer.putInt(blockSize);
+        buffer.putInt(totalBlocks);
+        buffer.putInt(slotsPerBlock(blockSize, dimension));
+        return block;
+    }
+
+    /* Read the metadata from BLOCK 0, as the list of dimension, block size and total blocks */
+    static ArrayList<Integer> readMetadata(byte[] block) {
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        short version = buffer.getShort();
+        if (version != FORMAT_VERSION)
+            throw new IllegalStateException("Unsupported data file format version " + version);
+        ArrayList<Integer> metadata = new ArrayList<>();
+        int dimension = buffer.getInt();
+        int blockSize = buffer.getInt();
+        metadata.add(dimension);
+        metadata.add(blockSize);
+        metadata.add(buffer.getInt());
+        int slotsPerBlock = buffer.getInt();
+        if (slotsPerBlock != slotsPerBlock(blockSize, dimension))
+            throw new IllegalStateException("The data file has " + slotsPerBlock + " slots per block instead of " + slotsPerBlock(blockSize, dimension));
+        return metadata;
+    }
+
+    /* Write the records TO BLOCK N, into the blockSize bytes of the array starting at offset */
+    static void writeBlock(List<Record> records, byte[] blocks, int offset, int blockSize, int dimension) {
+        checkFits(records.size(), blockSize, dimension);
+        ByteBuffer buffer = ByteBuffer.wrap(blocks, offset, blockSize);
+        writeHeader(buffer, records.size());
+        for (Record record : records) {
+            buffer.putLong(record.getId());
+            for (int d = 0; d < dimension; d++)
+                buffer.putDouble(record.getCoordinateInDimension(d));
+        }
+        IndexMetrics.get().serialized(buffer.position() - offset);
+    }
+
+    // Writes the records [from, to) of flat arrays, where the coordinates of the i-th record are
+    // coordinates[i*dimension, (i+1)*dimension), without creating a Record for each of them
+    static void writeBlock(long[] ids, double[] coordinates, int from, int to, byte[] blocks, int offset, int blockSize, int dimension) {
+        checkFits(to - from, blockSize, dimension);
+        ByteBuffer buffer = ByteBuffer.wrap(blocks, offset, blockSize);
+        writeHeader(buffer, to - from);
+        for (int r = from; r < to; r++) {
+            buffer.putLong(ids[r]);
+            for (int d = 0; d < dimension; d++)
+                buffer.putDouble(coordinates[r * dimension + d]);
+        }
+        IndexMetrics.get().serialized(buffer.position() - offset);
+    }
+
+    private static void checkFits(int records, int blockSize, int dimension) {
+        if (records > slotsPerBlock(blockSize, dimension))
+            throw new IllegalStateException(records + " records do not fit in a block of " + blockSize + " bytes");
+    }
+
+    private static void writeHeader(ByteBuffer buffer, int recordCount) {
+        buffer.putShort(FORMAT_VERSION);
+        buffer.putShort((short) 0);
+        buffer.putInt(recordCount);
+    }
+
+    /* Read the records from BLOCK N */
+    static ArrayList<Record> readBlock(byte[] block, long blockId, int dimension) {
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        short version = buffer.getShort(VERSION_OFFSET);
+        if (version != FORMAT_VERSION)
+            throw new IllegalStateException("Unsupported data file format version " + version + " in block " + blockId);
+        int recordCount = buffer.getInt(RECORD_COUNT_OFFSET);
+        ArrayList<Record> records = new ArrayList<>(recordCount);
+        for (int slot = 0; slot < recordCount; slot++)
+            records.add(readSlot(block, slotOffset(slot, dimension), dimension));
+        IndexMetrics.get().deserialized(slotOffset(recordCount, dimension));
+        return records;
+    }
+
+    // Number of records held by the block
+    static int getRecordCount(byte[] block) {
+        return ByteBuffer.wrap(block).getInt(RECORD_COUNT_OFFSET);
+    }
+
+    // Reads the record of the slot starting at offset in the given bytes, which hold at least the slot
+    static Record readSlot(byte[] bytes, int offset, int dimension) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long id = buffer.getLong(offset);
+        double[] point = new double[dimension];
+        for (int d = 0; d < dimension; d++)
+            point[d] = buffer.getDouble(offset + Long.BYTES + d * Double.BYTES);
+        return new Record(id, point);
+    }
+}
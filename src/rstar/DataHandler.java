@@ -0,0 +1,882 @@
+package rstar;
+
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class DataHandler {
+    private static final String csvFile = "data.csv";
+    private static final String dataFilename = "datafile.dat";
+    private static final String indexFilename = "indexfile.dat";
+    private static final String writeAheadLogFilename = "indexfile.wal";
+    private static final String doubleWriteFilename = "indexfile.dwb";
+    private static final String repackFilename = "indexfile.repack"; // The tree built by a repack, until it replaces the index file
+    private static final int BLOCK_SIZE = 32*1024;
+    private static int dataDimensions;
+    private static int blocksInDataFile;
+    private static boolean slottedDataFile = true; // Whether the data file is in the slotted layout of DataFileManager, false for a file of serialized blocks
+    private static int blocksInIndexFile;
+    private static int levelsOfTreeIndex;
+    private static long[] freeIndexBlocks = new long[0]; // Blocks of the index file no node is in, which the next writes reuse
+    private static final int DEFAULT_BUFFER_POOL_CAPACITY = 1024; // Pages cached in memory, 32 MB with the default block size
+    private static boolean memoryMappedIo; // Whether the data and index files are accessed through memory-mapped regions
+    private static PageFile dataFile = new PageFile(dataFilename, BLOCK_SIZE);
+    private static PageFile indexFile = new PageFile(indexFilename, BLOCK_SIZE);
+    private static BufferPool bufferPool = new BufferPool(DEFAULT_BUFFER_POOL_CAPACITY);
+    private static boolean writeAheadLogging = true; // Whether inserts and deletes are logged and the index file only changes at checkpoints
+    private static WriteAheadLog writeAheadLog; // Opened with the index file if writeAheadLogging is set
+    private static final DoubleWriteBuffer doubleWriteBuffer = new DoubleWriteBuffer(doubleWriteFilename, BLOCK_SIZE);
+    private static long restoredCheckpointLsn = -1; // Operations of the log up to this one are in the index file restored at start
+    private static final IndexVersions indexVersions = new IndexVersions(indexFile); // Snapshots of the index for readers running alongside the writer
+    private static PageFile replacedIndexFile; // Index file being replaced by a repack, until the snapshots reading it are closed
+    private static int replacedBlocksInIndexFile;
+    private static int replacedLevelsOfTreeIndex;
+    private static long[] replacedFreeIndexBlocks;
+    private static final int BULK_WRITE_BLOCKS = 32; // Blocks written per call when laying out nodes in bulk, 1 MB with the default block size
+   // private static Metadata metadata;
+
+    static {
+        // Dirty blocks are only written back on eviction or flush, so flush whatever is left when the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(DataHandler::close));
+    }
+
+
+    public String getDataFilename() {
+        return dataFilename;
+    }
+
+    public String getIndexFilename() {
+        return indexFilename;
+    }
+    public static int getDataDimensions() {
+        return dataDimensions;
+    }
+
+    // Replaces the buffer pool with one holding the given number of pages, writing back the dirty pages of the old one
+    public static void setBufferPoolCapacity(int capacityInPages) {
+        flush();
+        bufferPool = newBufferPool(capacityInPages);
+    }
+
+    private static BufferPool newBufferPool(int capacityInPages) {
+        BufferPool pool = new BufferPool(capacityInPages);
+        pool.setNoSteal(indexFile, writeAheadLog != null);
+        return pool;
+    }
+
+    // Switches between accessing the data and index files through read/write calls on their channels
+    // and through memory-mapped regions of them. Dirty blocks are written back before the files are reopened
+    public static void setMemoryMappedIo(boolean memoryMappedIo) {
+        if (DataHandler.memoryMappedIo == memoryMappedIo)
+            return;
+        close();
+        DataHandler.memoryMappedIo = memoryMappedIo;
+        dataFile = openPageFile(dataFilename);
+        indexFile = openPageFile(indexFilename);
+        indexVersions.replaceFile(indexFile);
+        bufferPool = newBufferPool(bufferPool.getCapacity());
+    }
+
+    public static boolean isMemoryMappedIo() {
+        return memoryMappedIo;
+    }
+
+    private static PageFile openPageFile(String filename) {
+        if (memoryMappedIo)
+            return new MappedPageFile(filename, BLOCK_SIZE);
+        return new PageFile(filename, BLOCK_SIZE);
+    }
+
+    public static BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    // Writes every dirty block of the data and index files held in the buffer pool back to disk.
+    // With write-ahead logging the index blocks are written by a checkpoint
+    public static void flush() {
+        try {
+            if (writeAheadLog != null)
+                checkpoint();
+            bufferPool.flushAll();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Writes back every dirty block and closes the data and index files, which are reopened on their next access
+    public static void close() {
+        try {
+            if (writeAheadLog != null)
+                checkpoint();
+            bufferPool.flushAll();
+            dataFile.close();
+            indexFile.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static PageFile getPageFile(String pathToFile) {
+        if (pathToFile.equals(dataFilename))
+            return dataFile;
+        else if (pathToFile.equals(indexFilename))
+            return indexFile;
+        throw new IllegalArgumentException("Unknown file " + pathToFile);
+    }
+
+
+    // Used to serializable a serializable Object to byte array
+    private static byte[] serialize(Object obj) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ObjectOutputStream os = new ObjectOutputStream(out);
+        os.writeObject(obj);
+        IndexMetrics.get().serialized(out.size());
+        return out.toByteArray();
+    }
+
+    // Used to deserializable a byte array to a serializable Object
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        ByteArrayInputStream in = new ByteArrayInputStream(data);
+        ObjectInputStream is = new DataFileInputStream(in);
+        IndexMetrics.get().deserialized(data.length);
+        return is.readObject();
+    }
+
+    // Data files written before the classes were moved to the rstar package hold records of the class Record
+    // of the default package, which are read as records of rstar.Record
+    private static class DataFileInputStream extends ObjectInputStream {
+        DataFileInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass descriptor) throws IOException, ClassNotFoundException {
+            if (descriptor.getName().equals(Record.class.getSimpleName()))
+                return Record.class;
+            return super.resolveClass(descriptor);
+        }
+    }
+
+    public ArrayList<Integer> readBlock0(String filePath) throws IOException {
+        try {
+            byte[] block = bufferPool.readBlock(getPageFile(filePath), 0);
+
+            byte[] goodPutLengthInBytes = serialize(new Random().nextInt()); // Serializing an integer ir order to get the size of goodPutLength in bytes
+            System.arraycopy(block, 0, goodPutLengthInBytes, 0, goodPutLengthInBytes.length);
+
+            byte[] dataInBlock = new byte[(Integer)deserialize(goodPutLengthInBytes)];
+            System.arraycopy(block, goodPutLengthInBytes.length, dataInBlock, 0, dataInBlock.length);
+
+            return (ArrayList<Integer>)deserialize(dataInBlock);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+
+    }
+
+
+    public static void updateBlock0(String pathToFile) throws IOException {
+        // Block 0 of the index file holds the binary IndexMetadata layout of IndexManager
+        if (pathToFile.equals(indexFilename)) {
+            ++blocksInIndexFile;
+            writeIndexMetadata();
+            return;
+        }
+        try {
+            ++blocksInDataFile;
+            bufferPool.writeBlock(dataFile, 0, dataFileMetadataBlock());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Block 0 of the data file: the dimensions, block size and total blocks of the file, in the layout of DataFileManager
+    // or, for a data file of serialized blocks, as a serialized list
+    private static byte[] dataFileMetadataBlock() throws IOException {
+        if (slottedDataFile)
+            return DataFileManager.writeMetadata(dataDimensions, BLOCK_SIZE, blocksInDataFile);
+        ArrayList<Integer> dataFileMetaData = new ArrayList<>();
+        dataFileMetaData.add(dataDimensions);
+        dataFileMetaData.add(BLOCK_SIZE);
+        dataFileMetaData.add(blocksInDataFile);
+        byte[] metaDataInBytes = serialize(dataFileMetaData);
+        byte[] goodPutLengthInBytes = serialize(metaDataInBytes.length);
+        byte[] block = new byte[BLOCK_SIZE];
+        System.arraycopy(goodPutLengthInBytes, 0, block, 0, goodPutLengthInBytes.length);
+        System.arraycopy(metaDataInBytes, 0, block, goodPutLengthInBytes.length, metaDataInBytes.length);
+        return block;
+    }
+
+    // Writes the metadata block of the data file straight to the file, so that every block appended
+    // with appendDataFileBlocks so far becomes part of the file
+    static void writeDataFileMetadata() throws IOException {
+        bufferPool.invalidateBlock(dataFile, 0);
+        dataFile.writeBlock(0, dataFileMetadataBlock());
+    }
+
+    // Appends blockCount blocks, held back to back in the given array, to the data file with a single write,
+    // bypassing the buffer pool. The metadata block is only updated by writeDataFileMetadata
+    static void appendDataFileBlocks(byte[] blocks, int blockCount) throws IOException {
+        dataFile.writeBlocks(blocksInDataFile, blocks, blockCount);
+        blocksInDataFile += blockCount;
+    }
+
+    // Encodes the records of a data file block into the BLOCK_SIZE bytes of the array starting at offset, one record
+    // per slot in the layout of DataFileManager. In a data file of serialized blocks: the serialized length of the
+    // serialized list of records, followed by the list itself
+    static void encodeDataFileBlock(ArrayList<Record> records, byte[] blocks, int offset) throws IOException {
+        if (slottedDataFile) {
+            DataFileManager.writeBlock(records, blocks, offset, BLOCK_SIZE, dataDimensions);
+            return;
+        }
+        byte[] recordInBytes = serialize(records);
+        byte[] goodPutLengthInBytes = serialize(recordInBytes.length);
+        if (goodPutLengthInBytes.length + recordInBytes.length > BLOCK_SIZE)
+            throw new IllegalStateException(records.size() + " records do not fit in a block of " + BLOCK_SIZE + " bytes");
+        System.arraycopy(goodPutLengthInBytes, 0, blocks, offset, goodPutLengthInBytes.length);
+        System.arraycopy(recordInBytes, 0, blocks, offset + goodPutLengthInBytes.length, recordInBytes.length);
+    }
+
+    public static int getBlockSize() {
+        return BLOCK_SIZE;
+    }
+
+    public static long getTotalBlocksInDataFile() {
+        return blocksInDataFile;
+    }
+
+    // Whether the data file is in the slotted layout of DataFileManager. Data files written before it hold serialized
+    // blocks, which are still read and appended to as such
+    public static boolean isSlottedDataFile() {
+        return slottedDataFile;
+    }
+
+    public void initializeDataFile(int dataDimensions) throws IOException {
+        try{
+            // Checks if a datafile already exists, initialise the metaData from the metadata block (block 0 of the file)
+            // If already exists, initialise the variables with the values of the dimensions, block size and total blocks of the data file
+            if (Files.exists(Paths.get(dataFilename)))
+            {
+                byte[] block0 = bufferPool.readBlock(dataFile, 0);
+                slottedDataFile = DataFileManager.isSlotted(block0);
+                ArrayList<Integer> dataFileMetaData = slottedDataFile ? DataFileManager.readMetadata(block0) : readBlock0(dataFilename);
+                if (dataFileMetaData == null)
+                    throw new IllegalStateException("Could not read datafile's Meta Data Block properly");
+                DataHandler.dataDimensions = dataFileMetaData.get(0);
+                if (DataHandler.dataDimensions  <= 0)
+                    throw new IllegalStateException("The number of data dimensions must be a positive integer");
+                if (dataFileMetaData.get(1) != BLOCK_SIZE)
+                    throw new IllegalStateException("Block size read was not of " + BLOCK_SIZE + " bytes");
+                blocksInDataFile = dataFileMetaData.get(2);
+                if (blocksInDataFile  < 0)
+                    throw new IllegalStateException("The total blocks of the datafile cannot be a negative number");
+            }
+            // Else initialize a new datafile
+            else
+            {
+                Files.deleteIfExists(Paths.get(dataFilename)); // Resetting/Deleting dataFile data
+                slottedDataFile = true;
+                DataHandler.dataDimensions = dataDimensions;
+                if (DataHandler.dataDimensions  <= 0)
+                    throw new IllegalStateException("The number of data dimensions must be a positive integer");
+                updateBlock0(dataFilename);
+                bufferPool.flush(dataFile);
+                // Parsing the csv file in parallel and appending its records in blocks, see CsvLoader
+                new CsvLoader(csvFile, DataHandler.dataDimensions, calculateMaxRecordsInBlock()).load();
+            }
+        }catch(Exception e){e.printStackTrace();}
+    }
+
+
+    public int calculateMaxRecordsInBlock() {
+        // Slots have a fixed width, so the capacity is known without encoding anything
+        if (slottedDataFile)
+            return DataFileManager.slotsPerBlock(BLOCK_SIZE, dataDimensions);
+        ArrayList<Record> blockRecords = new ArrayList<>();
+        int i;
+        for (i = 0; i < Integer.MAX_VALUE; i++) {
+            ArrayList<Double> coordinateForEachDimension = new ArrayList<>();
+            for (int d = 0; d < DataHandler.dataDimensions; d++)
+                coordinateForEachDimension.add(0.0);
+            Record record = new Record(0, coordinateForEachDimension);
+            blockRecords.add(record);
+            byte[] recordInBytes = new byte[0];
+            byte[] goodPutLengthInBytes = new byte[0];
+            try {
+                recordInBytes = serialize(blockRecords);
+                goodPutLengthInBytes = serialize(recordInBytes.length);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            if (goodPutLengthInBytes.length + recordInBytes.length > BLOCK_SIZE)
+                break;
+        }
+        return i;
+    }
+
+    public void writeBlock0(List<Record> records) {
+        try {
+            byte[] block = new byte[BLOCK_SIZE];
+            encodeDataFileBlock(new ArrayList<>(records), block, 0);
+
+            // Appending the block after the last block of the file
+            bufferPool.writeBlock(dataFile, blocksInDataFile, block);
+            updateBlock0(dataFilename);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+    public static ArrayList<Record> readDataFileBlock(int blockId) {
+        try {
+            byte[] block = bufferPool.readBlock(dataFile, blockId);
+            if (slottedDataFile)
+                return DataFileManager.readBlock(block, blockId, dataDimensions);
+            byte[] goodPutLengthInBytes = serialize(new Random().nextInt()); // Serializing an integer ir order to get the size of goodPutLength in bytes
+            System.arraycopy(block, 0, goodPutLengthInBytes, 0, goodPutLengthInBytes.length);
+
+            byte[] recordsInBlock = new byte[(Integer)deserialize(goodPutLengthInBytes)];
+            System.arraycopy(block, goodPutLengthInBytes.length, recordsInBlock, 0, recordsInBlock.length);
+
+            return (ArrayList<Record>)deserialize(recordsInBlock);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    // Reads the record in the given slot of a block of the data file. Unless the block is cached, only the header of the
+    // block and the bytes of the slot are read, with two positioned reads bypassing the buffer pool, and the slot is
+    // decoded without reading the rest of the block.
+    // A data file of serialized blocks has no slots, the whole block is read and the record is the slot-th of its list
+    public static Record readRecord(long dataFileBlockId, int slot) {
+        if (!slottedDataFile) {
+            ArrayList<Record> records = readDataFileBlock((int) dataFileBlockId);
+            if (records == null || slot < 0 || slot >= records.size())
+                throw new IllegalArgumentException("There is no record in slot " + slot + " of block " + dataFileBlockId + " of the data file");
+            return records.get(slot);
+        }
+        if (slot < 0 || slot >= DataFileManager.slotsPerBlock(BLOCK_SIZE, dataDimensions))
+            throw new IllegalArgumentException("There is no slot " + slot + " in a block of the data file");
+        try {
+            int offset = DataFileManager.slotOffset(slot, dataDimensions);
+            IndexMetrics.get().deserialized(DataFileManager.slotSize(dataDimensions));
+            byte[] block = bufferPool.readCachedBlock(dataFile, dataFileBlockId);
+            if (block != null) {
+                if (slot >= DataFileManager.getRecordCount(block))
+                    throw new IllegalArgumentException("There is no record in slot " + slot + " of block " + dataFileBlockId + " of the data file");
+                return DataFileManager.readSlot(block, offset, dataDimensions);
+            }
+            // The header is read first, so that a slot past the records of the block is not decoded as a record of zeros
+            byte[] header = new byte[DataFileManager.BLOCK_HEADER_SIZE];
+            dataFile.read(dataFileBlockId, 0, header);
+            if (slot >= DataFileManager.getRecordCount(header))
+                throw new IllegalArgumentException("There is no record in slot " + slot + " of block " + dataFileBlockId + " of the data file");
+            byte[] slotBytes = new byte[DataFileManager.slotSize(dataDimensions)];
+            dataFile.read(dataFileBlockId, offset, slotBytes);
+            return DataFileManager.readSlot(slotBytes, 0, dataDimensions);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Reads the record of a leaf entry. An entry logged or indexed before the data file had slots does not know the slot
+    // of its record, which is then found in its block by id
+    public static Record readRecord(LeafEntry entry) {
+        if (entry.getSlot() != LeafEntry.NO_SLOT)
+            return readRecord(entry.getDataFileBlockId(), entry.getSlot());
+        ArrayList<Record> records = readDataFileBlock((int) entry.getDataFileBlockId());
+        if (records != null)
+            for (Record record : records)
+                if (record.getId() == entry.getRecordId())
+                    return record;
+        throw new IllegalArgumentException("There is no record " + entry.getRecordId() + " in block " + entry.getDataFileBlockId() + " of the data file");
+    }
+
+    //Index file operations
+
+    public static long getTotalBlocksInIndexFile() {
+        return blocksInIndexFile;
+    }
+
+    public static long getTotalLevelsOfTreeIndex() {
+        return levelsOfTreeIndex;
+    }
+
+    // Blocks of the index file that no node of the tree is in, freed by deletes and by the root losing a level
+    static long[] getFreeIndexBlocks() {
+        return freeIndexBlocks;
+    }
+
+    // Sets the free blocks of the index file and writes them to block 0. Block 0 holds at most
+    // IndexManager.maxFreeBlocks of them, the rest are left out and stay unused until the index is repacked
+    static void setFreeIndexBlocks(long[] freeIndexBlocks) {
+        int maxFreeBlocks = IndexManager.maxFreeBlocks(BLOCK_SIZE);
+        DataHandler.freeIndexBlocks = freeIndexBlocks.length <= maxFreeBlocks ? freeIndexBlocks : Arrays.copyOf(freeIndexBlocks, maxFreeBlocks);
+        writeIndexMetadata();
+    }
+
+    // Calculates the maximum number of entries that can fit in a node within a block,
+    // based on the block size and the binary page layout of IndexManager
+    public static int calculateMaxEntriesInNode() {
+        return IndexManager.calculateMaxEntriesInNode(BLOCK_SIZE, dataDimensions);
+    }
+
+    // Updates the metadata in block 0 of the index file when a new level is added to the tree index
+    public static void updateLevelsOfTreeIndexFile() {
+        ++levelsOfTreeIndex;
+        writeIndexMetadata();
+    }
+
+    // Sets the levels of the tree index and writes them to block 0 of the index file
+    public static void setLevelsOfTreeIndex(int levelsOfTreeIndex) {
+        DataHandler.levelsOfTreeIndex = levelsOfTreeIndex;
+        writeIndexMetadata();
+    }
+
+    // Discards every node of the index file, leaving only its metadata block, so that a new tree can be laid out in it.
+    // Bulk loading rewrites the blocks outside the snapshots of IndexVersions, so it must not run alongside queries
+    public static void resetIndexFile() {
+        bufferPool.invalidate(indexFile);
+        blocksInIndexFile = 1;
+        levelsOfTreeIndex = 1;
+        freeIndexBlocks = new long[0];
+        writeIndexMetadata();
+    }
+
+    // Writes the given nodes, whose block ids must be consecutive, straight to the index file in one sequential pass.
+    // The nodes are encoded into a staging buffer and written BULK_WRITE_BLOCKS blocks per call, bypassing the buffer pool.
+    // Used by the bulk loader, which lays out whole levels of the tree at once
+    public static void writeIndexFileBlocks(List<Node> nodes) {
+        if (nodes.isEmpty())
+            return;
+        writeIndexFileBlocks(indexFile, nodes);
+        blocksInIndexFile = (int) Math.max(blocksInIndexFile, nodes.getFirst().getBlockId() + nodes.size());
+        writeIndexMetadata();
+    }
+
+    // Writes the given nodes, whose block ids must be consecutive, straight to the given file with the layout of the index file
+    static void writeIndexFileBlocks(PageFile file, List<Node> nodes) {
+        try {
+            byte[] staging = new byte[BULK_WRITE_BLOCKS * BLOCK_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(staging);
+            long firstBlockId = nodes.getFirst().getBlockId();
+            int blocksStaged = 0;
+            for (int i = 0; i < nodes.size(); i++) {
+                Node node = nodes.get(i);
+                if (node.getBlockId() != firstBlockId + i)
+                    throw new IllegalArgumentException("The block ids of the nodes written in bulk must be consecutive");
+                bufferPool.invalidateBlock(file, node.getBlockId());
+                IndexManager.writeNode(node, buffer, BLOCK_SIZE, dataDimensions);
+                if (++blocksStaged == BULK_WRITE_BLOCKS) {
+                    file.writeBlocks(node.getBlockId() - blocksStaged + 1, staging, blocksStaged);
+                    Arrays.fill(staging, (byte) 0);
+                    buffer.clear();
+                    blocksStaged = 0;
+                }
+            }
+            if (blocksStaged > 0)
+                file.writeBlocks(firstBlockId + nodes.size() - blocksStaged, staging, blocksStaged);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Writes the current metadata of the index file to its block 0
+    private static void writeIndexMetadata() {
+        try {
+            IndexMetadata metadata = new IndexMetadata(dataDimensions, BLOCK_SIZE, blocksInIndexFile, levelsOfTreeIndex,
+                    RStarTree.getRootBlockId(), Node.getMaxEntriesInNode(), Node.getMinEntriesInNode(), freeIndexBlocks);
+            bufferPool.writeBlock(indexFile, 0, IndexManager.writeIndexMetadata(metadata, BLOCK_SIZE));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Initializes the index file and reads/writes metadata from/to block 0
+    public void initializeIndexFile(int dataDimensions) {
+        try {
+            if (Files.exists(Paths.get(indexFilename))) {
+                // Finishing a checkpoint torn by a crash, before anything is read from the index file
+                if (writeAheadLogging) {
+                    restoredCheckpointLsn = doubleWriteBuffer.restore(indexFile);
+                    bufferPool.invalidate(indexFile);
+                }
+                readIndexMetadata();
+            } else {
+                // If index file does not exist, initialize it with default values
+                DataHandler.dataDimensions = dataDimensions;
+                levelsOfTreeIndex = 1;
+                freeIndexBlocks = new long[0];
+                if (DataHandler.dataDimensions <= 0)
+                    throw new IllegalStateException("Data dimensions must be greater than 0");
+                // The log of an index file that no longer exists has nothing to redo
+                Files.deleteIfExists(Paths.get(writeAheadLogFilename));
+                Files.deleteIfExists(Paths.get(doubleWriteFilename));
+                Files.deleteIfExists(Paths.get(doubleWriteFilename + DoubleWriteBuffer.PARTIAL_SUFFIX));
+                updateBlock0(indexFilename);
+            }
+            // A repack interrupted before it replaced the index file leaves its tree behind
+            Files.deleteIfExists(Paths.get(repackFilename));
+            if (writeAheadLogging && writeAheadLog == null) {
+                writeAheadLog = new WriteAheadLog(writeAheadLogFilename, DataHandler.dataDimensions);
+                bufferPool.setNoSteal(indexFile, true);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Opens the existing index file for reading only, without changing any file as initializeIndexFile does.
+    // A checkpoint torn by a crash is read from the double-write buffer instead of being finished in the index file,
+    // the write-ahead log is neither replayed nor truncated and a repack file left behind is kept, so queries see the
+    // index as of its last checkpoint. Writing to the index fails
+    static void openIndexFileReadOnly() {
+        if (!Files.exists(Paths.get(indexFilename)))
+            throw new IllegalStateException("There is no index file " + indexFilename + " in " + Paths.get("").toAbsolutePath());
+        try {
+            indexFile = new ReadOnlyPageFile(indexFilename, BLOCK_SIZE, doubleWriteBuffer.read());
+            indexVersions.replaceFile(indexFile);
+            readIndexMetadata();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Reads the metadata of the index file from its block 0 and checks that this build can read the index
+    private static void readIndexMetadata() throws IOException {
+        IndexMetadata metadata = IndexManager.readIndexMetadata(bufferPool.readBlock(indexFile, 0));
+        DataHandler.dataDimensions = metadata.getDimension();
+        if (DataHandler.dataDimensions <= 0)
+            throw new IllegalStateException("Data dimensions must be greater than 0");
+        if (metadata.getBlockSize() != BLOCK_SIZE)
+            throw new IllegalStateException("Block size was not of " + BLOCK_SIZE + " bytes");
+        blocksInIndexFile = metadata.getTotalBlocks();
+        if (blocksInIndexFile < 0)
+            throw new IllegalStateException("Blocks of index file must be greater than 0");
+        levelsOfTreeIndex = metadata.getTreeHeight();
+        if (levelsOfTreeIndex < 0)
+            throw new IllegalStateException("Levels of tree index must be greater than 0");
+        freeIndexBlocks = metadata.getFreeBlockIds();
+        if (metadata.getMaxEntries() != Node.getMaxEntriesInNode())
+            throw new IllegalStateException("The index file was built for nodes of " + metadata.getMaxEntries() + " entries instead of " + Node.getMaxEntriesInNode());
+    }
+
+    // Turns write-ahead logging of the index on or off, which takes effect when the index file is initialized.
+    // It is on by default
+    public static void setWriteAheadLogging(boolean writeAheadLogging) {
+        DataHandler.writeAheadLogging = writeAheadLogging;
+    }
+
+    public static boolean isWriteAheadLogging() {
+        return writeAheadLogging;
+    }
+
+    // Appends the insert of a leaf entry to the write-ahead log and returns its LSN, 0 if logging is off
+    public static long logInsert(long recordId, long dataFileBlockId, int slot, double[] point) {
+        return writeAheadLog == null ? 0 : writeAheadLog.logInsert(recordId, dataFileBlockId, slot, point);
+    }
+
+    // Appends the delete of a leaf entry to the write-ahead log and returns its LSN, 0 if logging is off
+    public static long logDelete(long recordId, double[] point) {
+        return writeAheadLog == null ? 0 : writeAheadLog.logDelete(recordId, point);
+    }
+
+    // Returns once the logged operation with the given LSN is durable. Called after the write of the operation
+    // has ended, so that the operations of other threads can be forced along with it
+    public static void awaitDurable(long lsn) {
+        if (writeAheadLog != null)
+            writeAheadLog.awaitDurable(lsn);
+    }
+
+    // Redoes the operations logged since the last checkpoint, which the index file does not hold yet,
+    // and then takes a checkpoint so that they are not redone again
+    public static void replayWriteAheadLog(WriteAheadLog.Replayer replayer) {
+        if (writeAheadLog == null)
+            return;
+        try {
+            writeAheadLog.replay(restoredCheckpointLsn, replayer);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        restoredCheckpointLsn = -1;
+        checkpoint();
+    }
+
+    // Writes every dirty block of the index file to it and empties the write-ahead log.
+    // The blocks are first written together to the double-write buffer, so that a crash while they are written
+    // in place cannot leave the index file with only some of them.
+    // A checkpoint taken while the log is replayed, once the redone operations fill half of the buffer pool, covers the
+    // operations up to the one being redone. The log is still being read, so it is kept, and so is the double-write
+    // buffer, whose LSN tells a start after a crash in the middle of the recovery where to resume the replay
+    public static void checkpoint() {
+        if (writeAheadLog == null)
+            throw new IllegalStateException("Checkpoints are only taken with write-ahead logging");
+        long start = System.nanoTime();
+        indexVersions.lockWrites();
+        try {
+            writeAheadLog.flush();
+            long replayingLsn = writeAheadLog.getReplayingLsn();
+            TreeMap<Long, byte[]> dirtyBlocks = bufferPool.getDirtyBlocks(indexFile);
+            if (!dirtyBlocks.isEmpty())
+                doubleWriteBuffer.write(dirtyBlocks, replayingLsn >= 0 ? replayingLsn : writeAheadLog.getLastLsn());
+            bufferPool.flush(indexFile);
+            indexFile.force();
+            if (replayingLsn < 0) {
+                writeAheadLog.truncate();
+                doubleWriteBuffer.clear();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            indexVersions.unlockWrites();
+        }
+        IndexMetrics.get().operationEnded(IndexMetrics.Operation.CHECKPOINT, start);
+    }
+
+    // Writes a Node to the index file as a block, and updates metadata if the tree level has changed
+    public static void updateIndexFileBlock(Node node, int levelsOfTreeIndex) {
+        try {
+            byte[] block = IndexManager.writeNode(node, BLOCK_SIZE, dataDimensions);
+            indexVersions.writeBlock(bufferPool, indexFile, node.getBlockId(), block);
+
+            // If this node is the root and the tree level has changed, update the metadata
+            if (node.getBlockId() == RStarTree.getRootBlockId() && DataHandler.levelsOfTreeIndex != levelsOfTreeIndex)
+                updateLevelsOfTreeIndexFile();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static void writeIndexFileBlock(Node node) {
+        try {
+            byte[] block = IndexManager.writeNode(node, BLOCK_SIZE, dataDimensions);
+
+            // Appending the block after the last block of the file
+            bufferPool.writeBlock(indexFile, blocksInIndexFile, block);
+            updateBlock0(indexFilename);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Returns a read-only view of the node in the specified block of the index file, without decoding its entries.
+    // The block stays pinned in the buffer pool until the view is closed
+    public static NodeView readIndexNodeView(long blockId) {
+        return readIndexNodeView(indexFile, blockId);
+    }
+
+    private static NodeView readIndexNodeView(PageFile file, long blockId) {
+        try {
+            BufferPool pool = bufferPool;
+            byte[] block = pool.pin(file, blockId);
+            try {
+                return new NodeView(block, blockId, dataDimensions, pool, file);
+            } catch (RuntimeException e) {
+                pool.unpin(file, blockId);
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Returns a read-only view of the node the specified block held at the epoch of the snapshot.
+    // If the block has been overwritten since, the view reads its before-image, otherwise the block of the index file
+    // of the snapshot is pinned in the buffer pool until the view is closed
+    static NodeView readIndexNodeView(long blockId, IndexSnapshot snapshot) {
+        byte[] beforeImage = snapshot.beforeImage(blockId);
+        if (beforeImage != null)
+            return new NodeView(beforeImage, blockId, dataDimensions, null, null);
+        NodeView view = readIndexNodeView(snapshot.getFile(), blockId);
+        // The writer may have overwritten the block after the first check and before it was pinned
+        beforeImage = snapshot.beforeImage(blockId);
+        if (beforeImage != null) {
+            view.close();
+            return new NodeView(beforeImage, blockId, dataDimensions, null, null);
+        }
+        return view;
+    }
+
+    // Returns the contents the specified block held at the epoch of the snapshot, without pinning it.
+    // The array stays valid after the block is evicted or overwritten, since the buffer pool never modifies it in place
+    static byte[] readIndexBlock(long blockId, IndexSnapshot snapshot) {
+        byte[] beforeImage = snapshot.beforeImage(blockId);
+        if (beforeImage != null)
+            return beforeImage;
+        byte[] block;
+        try {
+            block = bufferPool.readBlock(snapshot.getFile(), blockId);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        // The writer may have overwritten the block after the first check and before it was read
+        beforeImage = snapshot.beforeImage(blockId);
+        return beforeImage != null ? beforeImage : block;
+    }
+
+    // Keeps writes of the index from starting until unlockIndexWrites, so that its blocks and free blocks stay those
+    // of the snapshots opened meanwhile. Can be called by the thread running a write
+    static void lockIndexWrites() {
+        indexVersions.lockWrites();
+    }
+
+    static void unlockIndexWrites() {
+        indexVersions.unlockWrites();
+    }
+
+    // Opens a snapshot of the index as of the last committed write, for a query to read its nodes from
+    public static IndexSnapshot openIndexSnapshot() {
+        return indexVersions.openSnapshot();
+    }
+
+    // Number of snapshots of the index opened and not closed yet
+    static int countOpenIndexSnapshots() {
+        return indexVersions.countOpenSnapshots();
+    }
+
+    // Creates the file a repack builds its tree in, with the layout of the index file but for its metadata block,
+    // which is only written by replaceIndexFile
+    static PageFile createRepackFile() {
+        try {
+            Files.deleteIfExists(Paths.get(repackFilename));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return openPageFile(repackFilename);
+    }
+
+    // Deletes the file of a repack that failed before it replaced the index file
+    static void deleteRepackFile(PageFile repackFile) {
+        try {
+            bufferPool.invalidate(repackFile);
+            repackFile.close();
+            Files.deleteIfExists(Paths.get(repackFilename));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Starts replacing the index file with the tree a repack built in the repack file, which has the given number
+    // of blocks and levels. Must be called within a write, which from now on changes the repack file, and be followed
+    // in the same write by installIndexFile, or by rollBackIndexFileReplacement if the write fails before it.
+    // With write-ahead logging a checkpoint is taken first, so the log is empty while the files are switched
+    // and a crash leaves either the whole old index file or the whole new one
+    static void replaceIndexFile(PageFile repackFile, long totalBlocks, int levels) {
+        if (writeAheadLog != null)
+            checkpoint();
+        replacedIndexFile = indexFile;
+        replacedBlocksInIndexFile = blocksInIndexFile;
+        replacedLevelsOfTreeIndex = levelsOfTreeIndex;
+        replacedFreeIndexBlocks = freeIndexBlocks;
+        indexFile = repackFile;
+        blocksInIndexFile = (int) totalBlocks;
+        levelsOfTreeIndex = levels;
+        freeIndexBlocks = new long[0];
+        indexVersions.replaceFile(repackFile);
+        writeIndexMetadata();
+    }
+
+    // Writes the repack file to disk and renames it over the index file, which it becomes when the write commits.
+    // Snapshots opened before keep reading the replaced file, which is kept open until releaseReplacedIndexFile.
+    // If writing or renaming the repack file fails, the replacement is rolled back before the failure is thrown.
+    // Once renamed there is nothing left to roll back: only the renamed file is reopened under its new name
+    static void installIndexFile() {
+        PageFile repackFile = indexFile;
+        try {
+            bufferPool.flush(repackFile);
+            repackFile.force();
+            bufferPool.invalidate(repackFile);
+            repackFile.close();
+            Files.move(Paths.get(repackFilename), Paths.get(indexFilename), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            rollBackIndexFileReplacement(repackFile);
+            throw e instanceof IOException ? new RuntimeException(e) : (RuntimeException) e;
+        }
+        indexFile = openPageFile(indexFilename);
+        indexVersions.replaceFile(indexFile);
+        bufferPool.setNoSteal(indexFile, writeAheadLog != null);
+    }
+
+    // Undoes a replacement of the index file by the repack file that failed before the repack file was renamed over
+    // the index file. Goes back to the replaced index file, which the write has not changed, if replaceIndexFile got
+    // to switch from it, and deletes the repack file
+    static void rollBackIndexFileReplacement(PageFile repackFile) {
+        if (indexFile == repackFile) {
+            indexFile = replacedIndexFile;
+            blocksInIndexFile = replacedBlocksInIndexFile;
+            levelsOfTreeIndex = replacedLevelsOfTreeIndex;
+            freeIndexBlocks = replacedFreeIndexBlocks;
+            replacedIndexFile = null;
+            indexVersions.replaceFile(indexFile);
+        }
+        deleteRepackFile(repackFile);
+    }
+
+    // Waits until the snapshots reading the index file replaced by a repack are closed, then drops its blocks
+    // from the buffer pool and closes it, which frees its space on disk since it was renamed over
+    static void releaseReplacedIndexFile() throws InterruptedException {
+        indexVersions.awaitReplacedFileUnread();
+        try {
+            bufferPool.setNoSteal(replacedIndexFile, false);
+            bufferPool.invalidate(replacedIndexFile);
+            replacedIndexFile.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        replacedIndexFile = null;
+    }
+
+    // Starts an insert or delete, waiting for the one in progress to finish.
+    // Every call must be matched by a call to endIndexWrite
+    public static void beginIndexWrite() {
+        indexVersions.beginWrite(blocksInIndexFile);
+    }
+
+    // Commits the insert or delete started by beginIndexWrite, making it visible to the snapshots opened from now on.
+    // With write-ahead logging, a checkpoint is taken once half of the buffer pool holds dirty index blocks,
+    // since those cannot be evicted before
+    public static void endIndexWrite() {
+        try {
+            if (writeAheadLog != null && bufferPool.countDirtyBlocks(indexFile) > bufferPool.getCapacity() / 2)
+                checkpoint();
+        } finally {
+            indexVersions.endWrite();
+        }
+    }
+
+    // Number of index blocks a write can still make dirty before they fill half of the buffer pool, past which
+    // endIndexWrite takes a checkpoint. Without write-ahead logging dirty blocks can be evicted, so there is no limit
+    static int getDirtyIndexBlockAllowance() {
+        if (writeAheadLog == null)
+            return Integer.MAX_VALUE;
+        return bufferPool.getCapacity() / 2 - bufferPool.countDirtyBlocks(indexFile);
+    }
+
+    // Reads a Node from the specified block in the index file
+    public static Node readIndexFileBlock(long blockId) {
+        try {
+            byte[] block = bufferPool.readBlock(indexFile, blockId);
+            return IndexManager.readNode(block, blockId, dataDimensions);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+
+
+}
+
@@ -0,0 +1,99 @@
+package rstar;
+
+import java.util.Arrays;
+
+// Min-heap of block ids ordered by a distance, kept in primitive arrays so that queueing a node does not allocate.
+// Used by the best-first traversals of the tree, which always expand the queued node closest to the query.
+// Leaf entries can be queued along with the nodes, for traversals that return them in distance order
+class DistanceQueue {
+    private static final long NO_BLOCK = -1; // Block id of the queued leaf entries
+
+    private double[] distances = new double[64];
+    private long[] blockIds = new long[64];
+    private LeafEntry[] entries = new LeafEntry[64]; // null for the queued nodes
+    private int size;
+
+    void add(double distance, long blockId) {
+        add(distance, blockId, null);
+    }
+
+    void add(double distance, LeafEntry entry) {
+        add(distance, NO_BLOCK, entry);
+    }
+
+    private void add(double distance, long blockId, LeafEntry entry) {
+        if (size == distances.length) {
+            distances = Arrays.copyOf(distances, size * 2);
+            blockIds = Arrays.copyOf(blockIds, size * 2);
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        // Sifting the new element up from the last position
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (distances[parent] <= distance)
+                break;
+            distances[i] = distances[parent];
+            blockIds[i] = blockIds[parent];
+            entries[i] = entries[parent];
+            i = parent;
+        }
+        distances[i] = distance;
+        blockIds[i] = blockId;
+        entries[i] = entry;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Distance of the closest queued block, which must exist
+    double peekDistance() {
+        return distances[0];
+    }
+
+    // Block id of the closest queued block, which must exist
+    long peekBlockId() {
+        return blockIds[0];
+    }
+
+    // The closest queued leaf entry, or null if the closest queued element is a node
+    LeafEntry peekEntry() {
+        return entries[0];
+    }
+
+    // Removes the closest queued element and returns its block id (NO_BLOCK for a leaf entry)
+    long poll() {
+        long closest = blockIds[0];
+        size--;
+        double distance = distances[size];
+        long blockId = blockIds[size];
+        LeafEntry entry = entries[size];
+        entries[size] = null;
+        if (size == 0)
+            return closest;
+        // Sifting the last element down from the root
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && distances[child + 1] < distances[child])
+                child++;
+            if (distance <= distances[child])
+                break;
+            distances[i] = distances[child];
+            blockIds[i] = blockIds[child];
+            entries[i] = entries[child];
+            i = child;
+        }
+        distances[i] = distance;
+        blockIds[i] = blockId;
+        entries[i] = entry;
+        return closest;
+    }
+}
@@ -0,0 +1,150 @@
+package rstar;
+
+/*
+  Layout of indexfile.dwb.
+
+  Header:    int blockCount, long checkpointLsn
+  Directory: blockCount longs, the block id of each page
+  Pages:     blockCount pages of blockSize bytes, in the order of the directory
+  Trailer:   long crc32 of everything before it
+
+  The file is empty when no checkpoint is in progress, except after the checkpoints taken while the write-ahead log
+  is replayed, which keep their blocks until the checkpoint at the end of the replay.
+ */
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Double-write buffer that makes a checkpoint atomic.
+ * <p>
+ * A checkpoint overwrites many index blocks in place, and a crash in the middle of it would leave the file with
+ * some blocks of the new tree and some of the old one, which the write-ahead log cannot redo its operations on.
+ * So the blocks are first written, together, to this file and forced, and only then written to their places in
+ * the index file. If the copies in the index file are torn by a crash, the complete set kept here is written again
+ * on the next start, bringing the index file to the state of the checkpoint.
+ */
+class DoubleWriteBuffer {
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    static final String PARTIAL_SUFFIX = ".partial"; // Suffix of the file a checkpoint is written to before it replaces this one
+
+    private final String filename;
+    private final int blockSize;
+
+    DoubleWriteBuffer(String filename, int blockSize) {
+        this.filename = filename;
+        this.blockSize = blockSize;
+    }
+
+    // Writes the blocks of a checkpoint covering the operations of the log up to checkpointLsn, and forces them.
+    // They are written to a file of their own that then replaces this one, so that a crash in the middle of the write
+    // leaves the blocks of the previous checkpoint, which a checkpoint taken while the log is replayed keeps
+    void write(TreeMap<Long, byte[]> blocks, long checkpointLsn) throws IOException {
+        String partialFilename = filename + PARTIAL_SUFFIX;
+        try (RandomAccessFile raf = new RandomAccessFile(partialFilename, "rw")) {
+            FileChannel channel = raf.getChannel();
+            channel.truncate(0);
+            CRC32 crc = new CRC32();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + blocks.size() * Long.BYTES);
+            header.putInt(blocks.size()).putLong(checkpointLsn);
+            for (long blockId : blocks.keySet())
+                header.putLong(blockId);
+            long position = write(channel, header.array(), 0, crc);
+            for (byte[] block : blocks.values())
+                position = write(channel, block, position, crc);
+            ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES).putLong(crc.getValue());
+            write(channel, trailer.array(), position, null);
+            channel.force(false);
+        }
+        Files.move(Paths.get(partialFilename), Paths.get(filename), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private long write(FileChannel channel, byte[] bytes, long position, CRC32 crc) throws IOException {
+        if (crc != null)
+            crc.update(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining())
+            channel.write(buffer, position + buffer.position());
+        return position + bytes.length;
+    }
+
+    // If the file holds the complete set of blocks of a checkpoint, writes them to the page file, forces it and
+    // returns the LSN the checkpoint covers. Returns -1 if there is no complete checkpoint to restore
+    long restore(PageFile pageFile) throws IOException {
+        TreeMap<Long, byte[]> blocks = new TreeMap<>();
+        long checkpointLsn = read(blocks);
+        if (checkpointLsn < 0)
+            return -1;
+        for (Map.Entry<Long, byte[]> block : blocks.entrySet())
+            pageFile.writeBlock(block.getKey(), block.getValue());
+        pageFile.force();
+        return checkpointLsn;
+    }
+
+    // Returns the blocks of the complete checkpoint the file holds by block id, without writing them anywhere,
+    // empty if there is no complete checkpoint
+    TreeMap<Long, byte[]> read() throws IOException {
+        TreeMap<Long, byte[]> blocks = new TreeMap<>();
+        if (read(blocks) < 0)
+            blocks.clear();
+        return blocks;
+    }
+
+    // Reads the blocks of the checkpoint into the map and returns the LSN it covers, -1 if the file does not hold
+    // a complete checkpoint. The file is only read
+    private long read(TreeMap<Long, byte[]> blocks) throws IOException {
+        if (!Files.exists(Paths.get(filename)))
+            return -1;
+        try (RandomAccessFile raf = new RandomAccessFile(filename, "r")) {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size < HEADER_SIZE + Long.BYTES)
+                return -1;
+            ByteBuffer header = read(channel, 0, HEADER_SIZE);
+            int blockCount = header.getInt(0);
+            long checkpointLsn = header.getLong(Integer.BYTES);
+            long directorySize = (long) blockCount * Long.BYTES;
+            if (blockCount < 0 || size != HEADER_SIZE + directorySize + (long) blockCount * blockSize + Long.BYTES)
+                return -1;
+
+            CRC32 crc = new CRC32();
+            crc.update(header.array());
+            ByteBuffer directory = read(channel, HEADER_SIZE, (int) directorySize);
+            crc.update(directory.array());
+            long position = HEADER_SIZE + directorySize;
+            for (int i = 0; i < blockCount; i++) {
+                byte[] block = read(channel, position, blockSize).array();
+                crc.update(block);
+                blocks.put(directory.getLong(i * Long.BYTES), block);
+                position += blockSize;
+            }
+            if (read(channel, position, Long.BYTES).getLong(0) != crc.getValue())
+                return -1;
+            return checkpointLsn;
+        }
+    }
+
+    private ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining())
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IllegalStateException("Unexpected end of " + filename);
+        return buffer;
+    }
+
+    // Empties the file once the blocks of the checkpoint are safely in the page file
+    void clear() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(filename, "rw")) {
+            raf.getChannel().truncate(0);
+            raf.getChannel().force(false);
+        }
+    }
+}
@@ -1,9 +1,10 @@
-import java.io.Serializable;
+package rstar;
+
 import java.util.ArrayList;
 
 //Represents a reference to a child node in the R*-Tree along with its bounding box.
 //Used in both internal and leaf nodes to store spatial coverage and linkage.
-public class Entry implements Serializable {
+public class Entry {
     private BoundingBox boundingBox;
     private Long blockIdOfChildNode;
 
@@ -27,11 +28,13 @@ public class Entry implements Serializable {
 
     //Alter BoundingBox so that it fits the new Entry given by extending the minimum bounds
     void setBoundingBoxToFitEntries(Entry entry) {
-        boundingBox = new BoundingBox(Bounds.findMinBounds(boundingBox, entry.getBoundingBox()));
+        double[] fitted = new double[boundingBox.getPackedBounds().length];
+        BoundingBox.union(boundingBox.getPackedBounds(), entry.getBoundingBox().getPackedBounds(), fitted);
+        boundingBox = new BoundingBox(fitted);
     }
 
     //Alter BoundingBox so that it fits the new Entry given by extending the minimum bounds
     void setBoundingBoxToFitEntries (ArrayList<Entry> entries) {
-        boundingBox = new BoundingBox(Bounds.findMinBounds(entries));
+        boundingBox = BoundingBox.fitting(entries);
     }
 }
@@ -0,0 +1,149 @@
+package rstar;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of non-negative long values, such as latencies in nanoseconds or nodes visited by a query,
+ * in the bucket layout of HdrHistogram.
+ * <p>
+ * Values below 2 * SUB_BUCKETS each have a bucket of their own. Every power of two above that is cut into
+ * SUB_BUCKETS buckets of equal width, so a value is reported with a relative error below 1 / SUB_BUCKETS
+ * whatever its magnitude, and a few thousand counters cover everything from nanoseconds to an hour.
+ * Values above MAX_VALUE are counted in the last bucket. Recording is a single atomic increment, so threads
+ * record into the same histogram without locking, and a summary taken while they do is only approximately
+ * consistent.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // Buckets in every power of two
+    private static final long MAX_VALUE = 1L << 42; // Over an hour in nanoseconds
+    private final AtomicLongArray counts = new AtomicLongArray(bucketOf(MAX_VALUE) + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    // Records the value times times, as when a batch of operations is timed together
+    public void record(long value, long times) {
+        if (value < 0)
+            throw new IllegalArgumentException("Negative values cannot be recorded");
+        counts.addAndGet(bucketOf(Math.min(value, MAX_VALUE)), times);
+        count.add(times);
+        sum.add(value * times);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++)
+            counts.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    // Values below 2 * SUB_BUCKETS are their own bucket. Above, the highest set bit selects the power of two
+    // and the SUB_BUCKET_BITS bits below it the bucket within it
+    private static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS)
+            return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // Highest value that falls in the bucket
+    private static long highestValueOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS)
+            return bucket;
+        int shift = (bucket - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (bucket - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    // Value that percentile percent of the recorded values are at or below, as the highest value of its bucket
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank)
+                return Math.min(highestValueOf(i), max.get());
+        }
+        return max.get();
+    }
+
+    public Summary getSummary() {
+        long recorded = count.sum();
+        return new Summary(recorded, recorded == 0 ? 0 : (double) sum.sum() / recorded, getValueAtPercentile(50),
+                getValueAtPercentile(90), getValueAtPercentile(99), getValueAtPercentile(99.9), max.get());
+    }
+
+    /**
+     * Count, mean, percentiles and maximum of a histogram at the time it was taken. Exposed through JMX as
+     * a composite value.
+     */
+    public static class Summary {
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        Summary(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getP999() {
+            return p999;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%.1f p50=%d p90=%d p99=%d p99.9=%d max=%d", count, mean, p50, p90, p99, p999, max);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package rstar;
+
+/*
+  Binary layout of the blocks of indexfile.dat.
+
+  Block 0: IndexMetadata
+      short formatVersion, int dimension, int blockSize, int totalBlocks, int treeHeight,
+      long rootBlockId, int maxEntries, int minEntries, int freeBlockCount, freeBlockCount times long freeBlockId
+
+  Block N: a single Node
+      header:  short formatVersion, byte leafFlag (1 leaf, 0 internal), byte unused, int level, int entryCount
+      entries: entryCount packed entries, each one being
+               dimension pairs of (double lower, double upper), followed by
+               long recordId, int dataFileBlockId, int slot    for the entries of a leaf node
+               long blockIdOfChildNode                         for the entries of an internal node
+
+  Every page starts with its format version, so readers can keep decoding pages written by older versions
+  of the layout. A block that was never written starts with version 0 and is rejected.
+
+  Version 1 pages hold long recordId, long dataFileBlockId in the entries of a leaf node: the slot of the record in
+  its data file block is not known. Version 2 keeps the entries of the same size, so the maximum entries of a node
+  stay the same, and pages of both versions can make up one tree.
+
+  Version 1 metadata has no free blocks. The blocks that deletes freed in such an index file stay unused until
+  it is repacked.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+public class IndexManager {
+    static final short PAGE_FORMAT_VERSION = 2;
+    static final short METADATA_FORMAT_VERSION = 2;
+    private static final int METADATA_HEADER_SIZE = 38; // Bytes of block 0 before the free block ids
+
+    // Offsets of the node page header fields
+    static final int VERSION_OFFSET = 0;
+    static final int LEAF_FLAG_OFFSET = 2;
+    static final int LEVEL_OFFSET = 4;
+    static final int ENTRY_COUNT_OFFSET = 8;
+    static final int PAGE_HEADER_SIZE = 12;
+
+    // Size in bytes of a packed entry of a leaf node and of an internal node
+    static int leafEntrySize(int dimension) {
+        return dimension * 2 * Double.BYTES + 2 * Long.BYTES;
+    }
+    static int internalEntrySize(int dimension) {
+        return dimension * 2 * Double.BYTES + Long.BYTES;
+    }
+
+    // Maximum entries of a node that fit in a block of the given size, less one.
+    // Nodes are only written once their overflow is treated, so a block could hold one entry more. The maximum is
+    // recorded in block 0 and an index file built for another one is rejected, so it stays as index files have it
+    static int calculateMaxEntriesInNode(int blockSize, int dimension) {
+        return (blockSize - PAGE_HEADER_SIZE) / leafEntrySize(dimension) - 1;
+    }
+
+    // Most free block ids that block 0 can hold
+    static int maxFreeBlocks(int blockSize) {
+        return (blockSize - METADATA_HEADER_SIZE) / Long.BYTES;
+    }
+
+    /* Write IndexMetadata TO BLOCK 0 */
+    static byte[] writeIndexMetadata(IndexMetadata meta, int blockSize) {
+        byte[] block = new byte[blockSize];
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        buffer.putShort(METADATA_FORMAT_VERSION);
+        buffer.putInt(meta.getDimension());
+        buffer.putInt(meta.getBlockSize());
+        buffer.putInt(meta.getTotalBlocks());
+        buffer.putInt(meta.getTreeHeight());
+        buffer.putLong(meta.getRootBlockId());
+        buffer.putInt(meta.getMaxEntries());
+        buffer.putInt(meta.getMinEntries());
+        long[] freeBlockIds = meta.getFreeBlockIds();
+        if (freeBlockIds.length > maxFreeBlocks(blockSize))
+            throw new IllegalStateException(freeBlockIds.length + " free block ids do not fit in a block of " + blockSize + " bytes");
+        buffer.putInt(freeBlockIds.length);
+        for (long blockId : freeBlockIds)
+            buffer.putLong(blockId);
+        return block;
+    }
+
+    /* Read IndexMetadata from BLOCK 0 */
+    static IndexMetadata readIndexMetadata(byte[] block) {
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        short version = buffer.getShort();
+        if (version != 1 && version != METADATA_FORMAT_VERSION)
+            throw new IllegalStateException("Unsupported index metadata format version " + version);
+
+        int dimension = buffer.getInt();
+        int blockSize = buffer.getInt();
+        int totalBlocks = buffer.getInt();
+        int treeHeight = buffer.getInt();
+        long rootBlockId = buffer.getLong();
+        int maxEntries = buffer.getInt();
+        int minEntries = buffer.getInt();
+        long[] freeBlockIds = new long[version == 1 ? 0 : buffer.getInt()];
+        for (int i = 0; i < freeBlockIds.length; i++)
+            freeBlockIds[i] = buffer.getLong();
+        return new IndexMetadata(dimension, blockSize, totalBlocks, treeHeight, rootBlockId, maxEntries, minEntries, freeBlockIds);
+    }
+
+    /* Write Node TO BLOCK N */
+    static byte[] writeNode(Node node, int blockSize, int dimension) {
+        byte[] block = new byte[blockSize];
+        writeNode(node, ByteBuffer.wrap(block), blockSize, dimension);
+        return block;
+    }
+
+    // Encodes the node into the next blockSize bytes of the buffer, starting at its current position
+    static void writeNode(Node node, ByteBuffer buffer, int blockSize, int dimension) {
+        int blockStart = buffer.position();
+        boolean isLeaf = node.getLevel() == RStarTree.getLeafLevel();
+        int entrySize = isLeaf ? leafEntrySize(dimension) : internalEntrySize(dimension);
+        if (PAGE_HEADER_SIZE + node.getEntries().size() * entrySize > blockSize)
+            throw new IllegalStateException("Node " + node.getBlockId() + " with " + node.getEntries().size() + " entries does not fit in a block of " + blockSize + " bytes");
+
+        buffer.putShort(PAGE_FORMAT_VERSION);
+        buffer.put((byte) (isLeaf ? 1 : 0));
+        buffer.put((byte) 0);
+        buffer.putInt((int) node.getLevel());
+        buffer.putInt(node.getEntries().size());
+
+        for (Entry entry : node.getEntries()) {
+            BoundingBox box = entry.getBoundingBox();
+            for (double bound : box.getPackedBounds())
+                buffer.putDouble(bound);
+            if (isLeaf) {
+                LeafEntry leafEntry = (LeafEntry) entry;
+                if (leafEntry.getDataFileBlockId() > Integer.MAX_VALUE)
+                    throw new IllegalStateException("Block " + leafEntry.getDataFileBlockId() + " of the data file cannot be addressed by an index page");
+                buffer.putLong(leafEntry.getRecordId());
+                buffer.putInt((int) leafEntry.getDataFileBlockId());
+                buffer.putInt(leafEntry.getSlot());
+            } else
+                buffer.putLong(entry.getBlockIdOfChildNode());
+        }
+        IndexMetrics.get().serialized(buffer.position() - blockStart);
+        buffer.position(blockStart + blockSize);
+    }
+
+    /* Read Node from BLOCK N */
+    static Node readNode(byte[] block, long blockId, int dimension) {
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        short version = buffer.getShort(VERSION_OFFSET);
+        switch (version) {
+            case 1:
+            case 2:
+                return readNode(buffer, blockId, dimension, version);
+            default:
+                throw new IllegalStateException("Unsupported index page format version " + version + " in block " + blockId);
+        }
+    }
+
+    private static Node readNode(ByteBuffer buffer, long blockId, int dimension, short version) {
+        boolean isLeaf = (buffer.get(LEAF_FLAG_OFFSET) == 1); // 1 for leaf, 0 for internal node
+        int level = buffer.getInt(LEVEL_OFFSET);
+        int entryCount = buffer.getInt(ENTRY_COUNT_OFFSET);
+        buffer.position(PAGE_HEADER_SIZE);
+
+        ArrayList<Entry> entries = new ArrayList<>(entryCount + 1);
+        for (int i = 0; i < entryCount; i++) {
+            // The page holds the bounds interleaved, lower and upper of each dimension, as BoundingBox packs them
+            double[] bounds = new double[2 * dimension];
+            for (int b = 0; b < bounds.length; b++)
+                bounds[b] = buffer.getDouble();
+            BoundingBox box = new BoundingBox(bounds);
+            if (isLeaf) {
+                long recordId = buffer.getLong();
+                if (version == 1)
+                    entries.add(new LeafEntry(recordId, buffer.getLong(), box));
+                else {
+                    long dataFileBlockId = buffer.getInt();
+                    entries.add(new LeafEntry(recordId, dataFileBlockId, buffer.getInt(), box));
+                }
+            } else {
+                Entry entry = new Entry(box);
+                entry.setBlockIdOfChildNode(buffer.getLong());
+                entries.add(entry);
+            }
+        }
+        IndexMetrics.get().deserialized(buffer.position());
+        Node node = new Node(level, entries);
+        node.setBlockId(blockId);
+        return node;
+    }
+}
@@ -0,0 +1,49 @@
+package rstar;
+
+// Contents of block 0 of the index file: the shape of the tree and of the blocks that hold its nodes
+public class IndexMetadata {
+    private final int dimension; // Dimensions of the indexed points
+    private final int blockSize; // Size of every block of the index file in bytes
+    private final int totalBlocks; // Blocks in the index file, including block 0
+    private final int treeHeight; // Levels of the tree, the root is at level treeHeight
+    private final long rootBlockId;
+    private final int maxEntries; // Maximum entries of a node, as calculated for the block size and dimension
+    private final int minEntries;
+    private final long[] freeBlockIds; // Blocks no node of the tree is in, for the next writes to reuse
+
+    public IndexMetadata(int dimension, int blockSize, int totalBlocks, int treeHeight, long rootBlockId, int maxEntries, int minEntries, long[] freeBlockIds) {
+        this.dimension = dimension;
+        this.blockSize = blockSize;
+        this.totalBlocks = totalBlocks;
+        this.treeHeight = treeHeight;
+        this.rootBlockId = rootBlockId;
+        this.maxEntries = maxEntries;
+        this.minEntries = minEntries;
+        this.freeBlockIds = freeBlockIds;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+    public int getBlockSize() {
+        return blockSize;
+    }
+    public int getTotalBlocks() {
+        return totalBlocks;
+    }
+    public int getTreeHeight() {
+        return treeHeight;
+    }
+    public long getRootBlockId() {
+        return rootBlockId;
+    }
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+    public int getMinEntries() {
+        return minEntries;
+    }
+    public long[] getFreeBlockIds() {
+        return freeBlockIds;
+    }
+}
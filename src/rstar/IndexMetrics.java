@@ -0,0 +1,332 @@
+package rstar;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of the counters and distributions DataHandler, RStarTree and the queries report into, for finding
+ * out why an operation is slow and for sizing the buffer pool and the block size.
+ * <p>
+ * It keeps the page reads, writes and buffer pool hits of every file (see PageFileMetrics), the bytes of nodes
+ * and records (de)serialized, splits and forced reinserts per level, the calls of ChooseSubtree and the entries
+ * whose overlap enlargement it computed, a latency histogram per operation and a histogram of the nodes
+ * visited by each kind of query. Counters are LongAdders and histograms atomic arrays, so reporting takes no
+ * lock and costs a few increments and a System.nanoTime per operation.
+ * <p>
+ * The registry and the metrics of every file are registered on the platform MBean server when the class is
+ * loaded. Setting the system property rstar.metrics.dumpSeconds also prints the report to System.err at that
+ * interval, the same as calling startPeriodicDump.
+ */
+public class IndexMetrics implements IndexMetricsMXBean {
+    private static final String DOMAIN = "rstar";
+    private static final int MAX_LEVELS = 32; // Levels counted separately, higher ones are counted as the highest
+    private static final IndexMetrics metrics = new IndexMetrics();
+
+    public enum Operation {
+        INSERT,
+        DELETE,
+        RANGE_QUERY,
+        RANGE_COUNT_QUERY,
+        MULTI_RANGE_QUERY,
+        NEAREST_NEIGHBOURS_QUERY,
+        NEAREST_NEIGHBOURS_ITERATION, // Distance browsing, from the creation of the iterator until it is exhausted or closed
+        SKYLINE_QUERY,
+        CHECKPOINT,
+        LOG_FORCE // Write and force of a group commit of the write-ahead log
+    }
+
+    private final ConcurrentHashMap<String, PageFileMetrics> files = new ConcurrentHashMap<>();
+    private final LongAdder bytesSerialized = new LongAdder();
+    private final LongAdder bytesDeserialized = new LongAdder();
+    private final LongAdder[] splits = newCounters(MAX_LEVELS);
+    private final LongAdder[] forcedReinserts = newCounters(MAX_LEVELS);
+    private final LongAdder chooseSubtreeCalls = new LongAdder();
+    private final LongAdder chooseSubtreeCandidates = new LongAdder();
+    private final EnumMap<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final EnumMap<Operation, Histogram> nodesVisited = new EnumMap<>(Operation.class);
+    private ScheduledExecutorService dumpExecutor;
+    private ScheduledFuture<?> periodicDump;
+
+    static {
+        metrics.register(metrics, new String[] {"type", "IndexMetrics"});
+        Long dumpSeconds = Long.getLong("rstar.metrics.dumpSeconds");
+        if (dumpSeconds != null)
+            metrics.startPeriodicDump(dumpSeconds, TimeUnit.SECONDS, System.err);
+    }
+
+    private IndexMetrics() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Histogram());
+            nodesVisited.put(operation, new Histogram());
+        }
+    }
+
+    public static IndexMetrics get() {
+        return metrics;
+    }
+
+    private static LongAdder[] newCounters(int count) {
+        LongAdder[] counters = new LongAdder[count];
+        for (int i = 0; i < count; i++)
+            counters[i] = new LongAdder();
+        return counters;
+    }
+
+    // Registers the MBean under the domain with the given key properties, as name and value pairs.
+    // Metrics are only for observation, so a failure is reported without stopping the index
+    private void register(Object mbean, String[] keyProperties) {
+        try {
+            StringBuilder name = new StringBuilder(DOMAIN).append(':');
+            for (int i = 0; i < keyProperties.length; i += 2)
+                name.append(i == 0 ? "" : ",").append(keyProperties[i]).append('=').append(quoteIfNeeded(keyProperties[i + 1]));
+            ObjectName objectName = new ObjectName(name.toString());
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(objectName))
+                server.registerMBean(mbean, objectName);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // File names may hold characters that are reserved in the value of an ObjectName key property
+    private static String quoteIfNeeded(String value) {
+        for (char reserved : new char[] {',', '=', ':', '"', '*', '?', '\n'})
+            if (value.indexOf(reserved) >= 0)
+                return ObjectName.quote(value);
+        return value;
+    }
+
+    // Returns the metrics of the file with the given name, creating and registering them on first use
+    PageFileMetrics getPageFileMetrics(String filename) {
+        return files.computeIfAbsent(filename, name -> {
+            PageFileMetrics fileMetrics = new PageFileMetrics(name);
+            register(fileMetrics, new String[] {"type", "PageFileMetrics", "name", name});
+            return fileMetrics;
+        });
+    }
+
+    void serialized(long bytes) {
+        bytesSerialized.add(bytes);
+    }
+
+    void deserialized(long bytes) {
+        bytesDeserialized.add(bytes);
+    }
+
+    void split(long level) {
+        splits[levelIndex(level)].increment();
+    }
+
+    void forcedReinsert(long level) {
+        forcedReinserts[levelIndex(level)].increment();
+    }
+
+    private static int levelIndex(long level) {
+        return (int) Math.min(Math.max(level - RStarTree.getLeafLevel(), 0), MAX_LEVELS - 1);
+    }
+
+    // A call of ChooseSubtree that computed the overlap enlargement of the given number of candidate entries
+    void chooseSubtree(int candidates) {
+        chooseSubtreeCalls.increment();
+        chooseSubtreeCandidates.add(candidates);
+    }
+
+    // Records the latency of an operation that started at startNanos, a System.nanoTime value
+    void operationEnded(Operation operation, long startNanos) {
+        latencies.get(operation).record(System.nanoTime() - startNanos);
+    }
+
+    // Records the latency of a batch of operations that started at startNanos, each with an equal share of it
+    void operationsEnded(Operation operation, int count, long startNanos) {
+        if (count > 0)
+            latencies.get(operation).record((System.nanoTime() - startNanos) / count, count);
+    }
+
+    // Starts timing a query and counting the nodes it reads
+    static QueryTrace startQuery(Operation operation) {
+        return new QueryTrace(operation);
+    }
+
+    /**
+     * The time and node reads of one query, recorded once when the query ends. A query whose results are
+     * iterated lazily ends when its last result has been returned or its iterator is closed. The incremental
+     * nearest neighbours iterator has no k, so it is traced apart from the k nearest neighbours queries.
+     */
+    static class QueryTrace {
+        private final Operation operation;
+        private final long startNanos = System.nanoTime();
+        private long nodesVisited;
+        private boolean ended;
+
+        private QueryTrace(Operation operation) {
+            this.operation = operation;
+        }
+
+        void nodeVisited() {
+            nodesVisited++;
+        }
+
+        void end() {
+            if (ended)
+                return;
+            ended = true;
+            metrics.operationEnded(operation, startNanos);
+            metrics.nodesVisited.get(operation).record(nodesVisited);
+        }
+    }
+
+    @Override
+    public long getBytesSerialized() {
+        return bytesSerialized.sum();
+    }
+
+    @Override
+    public long getBytesDeserialized() {
+        return bytesDeserialized.sum();
+    }
+
+    @Override
+    public long[] getSplitsPerLevel() {
+        return sumsUpToLastNonZero(splits);
+    }
+
+    @Override
+    public long[] getForcedReinsertsPerLevel() {
+        return sumsUpToLastNonZero(forcedReinserts);
+    }
+
+    private static long[] sumsUpToLastNonZero(LongAdder[] counters) {
+        long[] sums = new long[counters.length];
+        int length = 0;
+        for (int i = 0; i < counters.length; i++) {
+            sums[i] = counters[i].sum();
+            if (sums[i] != 0)
+                length = i + 1;
+        }
+        return Arrays.copyOf(sums, length);
+    }
+
+    @Override
+    public long getChooseSubtreeCalls() {
+        return chooseSubtreeCalls.sum();
+    }
+
+    @Override
+    public long getChooseSubtreeCandidates() {
+        return chooseSubtreeCandidates.sum();
+    }
+
+    public Histogram.Summary getLatency(Operation operation) {
+        return latencies.get(operation).getSummary();
+    }
+
+    public Histogram.Summary getNodesVisited(Operation operation) {
+        return nodesVisited.get(operation).getSummary();
+    }
+
+    @Override
+    public Map<String, Histogram.Summary> getLatencies() {
+        return summaries(latencies);
+    }
+
+    // Only the queries visit nodes, the other operations are left out
+    @Override
+    public Map<String, Histogram.Summary> getNodesVisitedPerQuery() {
+        Map<String, Histogram.Summary> queries = summaries(nodesVisited);
+        for (Operation operation : Operation.values())
+            if (!operation.name().endsWith("_QUERY"))
+                queries.remove(operation.name());
+        return queries;
+    }
+
+    private static Map<String, Histogram.Summary> summaries(EnumMap<Operation, Histogram> histograms) {
+        LinkedHashMap<String, Histogram.Summary> summaries = new LinkedHashMap<>();
+        for (Map.Entry<Operation, Histogram> histogram : histograms.entrySet())
+            summaries.put(histogram.getKey().name(), histogram.getValue().getSummary());
+        return summaries;
+    }
+
+    public ArrayList<PageFileMetrics> getPageFileMetrics() {
+        return new ArrayList<>(files.values());
+    }
+
+    @Override
+    public void reset() {
+        for (PageFileMetrics fileMetrics : files.values())
+            fileMetrics.reset();
+        bytesSerialized.reset();
+        bytesDeserialized.reset();
+        for (int i = 0; i < MAX_LEVELS; i++) {
+            splits[i].reset();
+            forcedReinserts[i].reset();
+        }
+        chooseSubtreeCalls.reset();
+        chooseSubtreeCandidates.reset();
+        for (Operation operation : Operation.values()) {
+            latencies.get(operation).reset();
+            nodesVisited.get(operation).reset();
+        }
+    }
+
+    // Every counter and the summary of every histogram that recorded anything, one per line
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        for (PageFileMetrics fileMetrics : files.values())
+            report.append(fileMetrics).append('\n');
+        report.append(String.format("bytesSerialized=%d bytesDeserialized=%d%n", getBytesSerialized(), getBytesDeserialized()));
+        report.append("splitsPerLevel=").append(Arrays.toString(getSplitsPerLevel()))
+                .append(" forcedReinsertsPerLevel=").append(Arrays.toString(getForcedReinsertsPerLevel())).append('\n');
+        report.append(String.format("chooseSubtreeCalls=%d chooseSubtreeCandidates=%d%n", getChooseSubtreeCalls(), getChooseSubtreeCandidates()));
+        for (Operation operation : Operation.values()) {
+            Histogram.Summary latency = getLatency(operation);
+            if (latency.getCount() == 0)
+                continue;
+            report.append(operation).append(" ns: ").append(latency).append('\n');
+            Histogram.Summary visited = getNodesVisited(operation);
+            if (visited.getCount() != 0)
+                report.append(operation).append(" nodes visited: ").append(visited).append('\n');
+        }
+        return report.toString();
+    }
+
+    public void dump(PrintStream out) {
+        out.print(getReport());
+        out.flush();
+    }
+
+    // Prints the report to out every period, from a daemon thread, until stopPeriodicDump. Replaces any periodic dump already running
+    public synchronized void startPeriodicDump(long period, TimeUnit unit, PrintStream out) {
+        if (period <= 0)
+            throw new IllegalArgumentException("The period of the dump must be positive");
+        stopPeriodicDump();
+        if (dumpExecutor == null)
+            dumpExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "index-metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+        periodicDump = dumpExecutor.scheduleAtFixedRate(() -> dump(out), period, period, unit);
+    }
+
+    public synchronized void stopPeriodicDump() {
+        if (periodicDump != null) {
+            periodicDump.cancel(false);
+            periodicDump = null;
+        }
+    }
+}
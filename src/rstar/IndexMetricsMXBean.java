@@ -0,0 +1,27 @@
+package rstar;
+
+import java.util.Map;
+
+// Management interface of IndexMetrics, registered as rstar:type=IndexMetrics on the platform MBean server.
+// Latencies are in nanoseconds, levels are counted from the leaves, index 0 being the leaf level
+public interface IndexMetricsMXBean {
+    long getBytesSerialized();
+
+    long getBytesDeserialized();
+
+    long[] getSplitsPerLevel();
+
+    long[] getForcedReinsertsPerLevel();
+
+    long getChooseSubtreeCalls();
+
+    long getChooseSubtreeCandidates();
+
+    Map<String, Histogram.Summary> getLatencies();
+
+    Map<String, Histogram.Summary> getNodesVisitedPerQuery();
+
+    String getReport();
+
+    void reset();
+}
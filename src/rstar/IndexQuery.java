@@ -0,0 +1,9 @@
+package rstar;
+
+import java.util.ArrayList;
+
+// A query answered from the index alone, so that it can read its nodes from any NodeReader and be run in batches
+public interface IndexQuery {
+    // Returns the leaf entries answering the query, reading the nodes of the tree from the given reader
+    ArrayList<LeafEntry> execute(NodeReader nodes);
+}
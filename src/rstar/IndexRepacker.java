@@ -0,0 +1,100 @@
+package rstar;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rebuilds a degraded tree into a new, tightly packed index file in the background, without taking the index
+ * offline as deleting the index file and bulk loading it again through new RStarTree(true) does.
+ * <p>
+ * The repack opens a snapshot of the index and starts capturing the inserts and deletes committed after it. From a
+ * background thread it reads every leaf entry of the snapshot and packs them with the STR bulk loader into a file of
+ * its own, while queries keep reading the old index file and writes keep changing it. Then a single write switches
+ * the index to the new file. It applies the captured writes to the new tree, writes the new file to disk and renames
+ * it over the index file, so the root is replaced atomically for the snapshots opened after that write commits.
+ * <p>
+ * Snapshots opened before keep reading the old file, which stays open after it has been renamed over. Once the last
+ * of them is closed, its blocks are dropped from the buffer pool and the file is closed, which frees its space.
+ * <p>
+ * With write-ahead logging, the switch starts with a checkpoint and holds the write lock until the rename. The log is
+ * therefore empty while the files are switched, and a crash leaves either the whole old index or the whole new one.
+ */
+class IndexRepacker {
+    private static final AtomicBoolean running = new AtomicBoolean(); // Whether a repack is running, only one at a time
+    private final RStarTree tree;
+    private final BulkLoader loader;
+
+    IndexRepacker(RStarTree tree, double fillFactor) {
+        this.tree = tree;
+        this.loader = new BulkLoader(fillFactor);
+    }
+
+    // Takes the snapshot of the repack and runs the rest of it on a new thread. The future completes when the old index
+    // file is closed, or exceptionally if the repack failed, in which case the index is left as it was
+    CompletableFuture<Void> start() {
+        if (!running.compareAndSet(false, true))
+            throw new IllegalStateException("A repack of the index is already running");
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        IndexSnapshot snapshot;
+        try {
+            snapshot = tree.startCapturingWrites();
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                repack(snapshot);
+                done.complete(null);
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+            } finally {
+                running.set(false);
+            }
+        }, "index-repack");
+        thread.setDaemon(true);
+        thread.start();
+        return done;
+    }
+
+    private void repack(IndexSnapshot snapshot) throws InterruptedException {
+        PageFile repackFile = null;
+        int levels;
+        try {
+            Entry[] entries;
+            try (snapshot) {
+                entries = readLeafEntries(snapshot);
+            }
+            repackFile = DataHandler.createRepackFile();
+            levels = loader.load(entries, repackFile);
+        } catch (RuntimeException e) {
+            tree.stopCapturingWrites();
+            if (repackFile != null)
+                DataHandler.deleteRepackFile(repackFile);
+            throw e;
+        }
+        // Rolls itself back if it fails before the repack file is renamed over the index file. A failure after the
+        // rename leaves the repacked tree as the index, with nothing to roll back
+        tree.replaceWithRepackedTree(repackFile, levels, loader.getTotalBlocks());
+        DataHandler.releaseReplacedIndexFile();
+    }
+
+    // Every leaf entry of the tree as of the snapshot, walking it depth first
+    private static Entry[] readLeafEntries(IndexSnapshot snapshot) {
+        ArrayList<Entry> entries = new ArrayList<>();
+        ArrayList<Long> blocks = new ArrayList<>();
+        blocks.add((long) RStarTree.getRootBlockId());
+        while (!blocks.isEmpty()) {
+            try (NodeView node = snapshot.readNodeView(blocks.remove(blocks.size() - 1))) {
+                for (int i = 0; i < node.getEntryCount(); i++) {
+                    if (node.isLeaf())
+                        entries.add(node.toLeafEntry(i));
+                    else
+                        blocks.add(node.child(i));
+                }
+            }
+        }
+        return entries.toArray(new Entry[0]);
+    }
+}
@@ -0,0 +1,57 @@
+package rstar;
+
+/**
+ * A consistent, read-only view of the index as of the last write committed when it was opened.
+ * Inserts and deletes committed or in progress after that are not visible through it, so a query reading its
+ * nodes from a snapshot never sees a half-done split or reinsert and never waits for the writer.
+ * <p>
+ * A snapshot keeps the before-images of the blocks overwritten since it was opened in memory, so it must be
+ * closed as soon as the query is done.
+ */
+public class IndexSnapshot implements NodeReader, AutoCloseable {
+    private final IndexVersions versions;
+    private final long epoch;
+    private final PageFile file; // Index file committed at the epoch, kept open until the snapshot is closed
+    private boolean closed;
+
+    // Opened by IndexVersions.openSnapshot
+    IndexSnapshot(IndexVersions versions, long epoch, PageFile file) {
+        this.versions = versions;
+        this.epoch = epoch;
+        this.file = file;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    // Returns a view of the node the block held at the epoch of the snapshot, which must be closed after use
+    @Override
+    public NodeView readNodeView(long blockId) {
+        if (closed)
+            throw new IllegalStateException("The snapshot is closed");
+        return DataHandler.readIndexNodeView(blockId, this);
+    }
+
+    // Returns the contents the block held at the epoch of the snapshot, without pinning it
+    byte[] readBlock(long blockId) {
+        if (closed)
+            throw new IllegalStateException("The snapshot is closed");
+        return DataHandler.readIndexBlock(blockId, this);
+    }
+
+    PageFile getFile() {
+        return file;
+    }
+
+    byte[] beforeImage(long blockId) {
+        return versions.beforeImage(blockId, epoch, file);
+    }
+
+    @Override
+    public void close() {
+        if (!closed)
+            versions.closeSnapshot(epoch);
+        closed = true;
+    }
+}
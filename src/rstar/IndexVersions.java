@@ -0,0 +1,171 @@
+package rstar;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Multi-version concurrency control for the index file: one writer at a time, any number of readers that never
+ * wait for it.
+ * <p>
+ * Every insert or delete runs as a write with its own epoch number, and a write lock keeps writes one at a time.
+ * A reader opens an IndexSnapshot of the last committed epoch and must see the tree exactly as it was then,
+ * even while the writer splits, condenses or reinserts nodes under it. The first time a write overwrites a block,
+ * the block's previous contents are kept as its before-image for that epoch. A snapshot reading a block that
+ * was overwritten after its epoch gets the oldest before-image newer than its epoch instead of the current block.
+ * <p>
+ * Keeping a before-image costs no copy, because the buffer pool never modifies block arrays in place.
+ * Before-images are dropped once no open snapshot can read them.
+ * <p>
+ * A repack replaces the index file itself within a write. Every snapshot reads the file that was committed when
+ * it was opened, so the snapshots opened before the repack committed keep reading the old file until they close.
+ */
+class IndexVersions {
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private long committedEpoch;
+    private long writeEpoch; // Epoch of the write in progress, 0 if there is none
+    private long firstNewBlockId; // Blocks from this id on were appended by the write in progress, so no snapshot can reach them
+    private final TreeMap<Long, Integer> openSnapshots = new TreeMap<>(); // Number of open snapshots of each epoch
+    private final HashMap<Long, ArrayList<BeforeImage>> beforeImages = new HashMap<>(); // In increasing epoch for each block
+    private long discardedUpToEpoch; // Before-images of this epoch or older have been discarded
+    private PageFile committedFile; // Index file read by the snapshots opened from now on
+    private PageFile replacementFile; // File replacing it when the write in progress commits, null if there is none
+    private long lastEpochOfReplacedFile = -1; // Snapshots of this epoch or older read the file replaced by the last repack
+
+    IndexVersions(PageFile file) {
+        this.committedFile = file;
+    }
+
+    // Waits for any write in progress to commit and starts a new one. blocksInIndexFile is the number of blocks
+    // in the index file, after which the blocks appended by the write begin
+    void beginWrite(long blocksInIndexFile) {
+        writeLock.lock();
+        synchronized (this) {
+            writeEpoch = committedEpoch + 1;
+            firstNewBlockId = blocksInIndexFile;
+        }
+    }
+
+    // Makes the blocks written since beginWrite visible to the snapshots opened from now on
+    void endWrite() {
+        try {
+            synchronized (this) {
+                if (replacementFile != null) {
+                    if (replacementFile != committedFile)
+                        lastEpochOfReplacedFile = committedEpoch;
+                    committedFile = replacementFile;
+                    replacementFile = null;
+                }
+                committedEpoch = writeEpoch;
+                writeEpoch = 0;
+                discardUnreachableImages();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Keeps writes from starting until unlockWrites, without starting one, for work that needs the index
+    // to stay still such as a checkpoint. Can be called by the thread running a write
+    void lockWrites() {
+        writeLock.lock();
+    }
+
+    void unlockWrites() {
+        writeLock.unlock();
+    }
+
+    // Makes the snapshots read the given index file. Within a write, the file only replaces the committed one when
+    // the write commits, and no snapshot can reach its blocks before, so none of them are kept as before-images
+    synchronized void replaceFile(PageFile file) {
+        if (writeEpoch == 0) {
+            committedFile = file;
+            return;
+        }
+        replacementFile = file;
+        firstNewBlockId = 0;
+    }
+
+    // Replaces the block in the pool, keeping its previous contents as a before-image if a write is in progress
+    synchronized void writeBlock(BufferPool pool, PageFile file, long blockId, byte[] block) throws IOException {
+        if (writeEpoch != 0 && blockId < firstNewBlockId) {
+            ArrayList<BeforeImage> images = beforeImages.computeIfAbsent(blockId, id -> new ArrayList<>(1));
+            if (images.isEmpty() || images.get(images.size() - 1).overwrittenInEpoch != writeEpoch)
+                images.add(new BeforeImage(writeEpoch, file, pool.readBlock(file, blockId)));
+        }
+        pool.writeBlock(file, blockId, block);
+    }
+
+    synchronized IndexSnapshot openSnapshot() {
+        openSnapshots.merge(committedEpoch, 1, Integer::sum);
+        return new IndexSnapshot(this, committedEpoch, committedFile);
+    }
+
+    synchronized void closeSnapshot(long epoch) {
+        Integer count = openSnapshots.get(epoch);
+        if (count == null)
+            throw new IllegalStateException("No snapshot of epoch " + epoch + " is open");
+        if (count == 1)
+            openSnapshots.remove(epoch);
+        else
+            openSnapshots.put(epoch, count - 1);
+        discardUnreachableImages();
+        notifyAll();
+    }
+
+    synchronized int countOpenSnapshots() {
+        int count = 0;
+        for (int snapshots : openSnapshots.values())
+            count += snapshots;
+        return count;
+    }
+
+    // Waits until every snapshot reading the index file replaced by the last repack is closed
+    synchronized void awaitReplacedFileUnread() throws InterruptedException {
+        while (!openSnapshots.isEmpty() && openSnapshots.firstKey() <= lastEpochOfReplacedFile)
+            wait();
+    }
+
+    // Returns the contents the block of the file had at the given epoch if it has been overwritten since,
+    // null if the current contents of the block are still those of the epoch
+    synchronized byte[] beforeImage(long blockId, long epoch, PageFile file) {
+        ArrayList<BeforeImage> images = beforeImages.get(blockId);
+        if (images != null)
+            for (BeforeImage image : images)
+                if (image.overwrittenInEpoch > epoch && image.file == file)
+                    return image.block;
+        return null;
+    }
+
+    // A snapshot of epoch e only reads before-images of later epochs, and snapshots opened from now on will be
+    // of the committed epoch, so images overwritten at or before the oldest of those epochs are unreachable
+    private void discardUnreachableImages() {
+        long oldestEpoch = openSnapshots.isEmpty() ? committedEpoch : Math.min(openSnapshots.firstKey(), committedEpoch);
+        if (oldestEpoch <= discardedUpToEpoch)
+            return;
+        discardedUpToEpoch = oldestEpoch;
+        Iterator<Map.Entry<Long, ArrayList<BeforeImage>>> iterator = beforeImages.entrySet().iterator();
+        while (iterator.hasNext()) {
+            ArrayList<BeforeImage> images = iterator.next().getValue();
+            images.removeIf(image -> image.overwrittenInEpoch <= oldestEpoch);
+            if (images.isEmpty())
+                iterator.remove();
+        }
+    }
+
+    private static class BeforeImage {
+        private final long overwrittenInEpoch;
+        private final PageFile file;
+        private final byte[] block;
+
+        BeforeImage(long overwrittenInEpoch, PageFile file, byte[] block) {
+            this.overwrittenInEpoch = overwrittenInEpoch;
+            this.file = file;
+            this.block = block;
+        }
+    }
+}
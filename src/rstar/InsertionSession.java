@@ -0,0 +1,104 @@
+package rstar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+/**
+ * The nodes read and modified by one write of the tree, kept in memory until the write is done.
+ * <p>
+ * An insert adjusts a box on every level of its root-to-leaf path on the way down, and on the way back up
+ * splits or reinsertions change many of those nodes again. Writing each change as it happens cost several
+ * full-page writes per node touched, and a re-read of the node after every recursive call. In a session the
+ * first read of a block decodes its node and every later read returns the same Node object, so changes are
+ * made to it in place and the node is only marked dirty. When the write is committed, every dirty node is
+ * encoded and written exactly once, however many inserts of a batch changed it.
+ * <p>
+ * Nodes added by splits first take the free blocks of the index file, which deletes left when they eliminated
+ * nodes or the root lost a level, and then the ids of new blocks at the end of the index file, which are appended
+ * in order on commit. The blocks the session frees only join the free blocks on commit, for the writes after it.
+ */
+class InsertionSession {
+    private final HashMap<Long, Node> nodes = new HashMap<>(); // Every node read or written in the session, by block id
+    private final TreeMap<Long, Node> dirtyNodes = new TreeMap<>(); // Nodes to write on commit, by block id
+    private final long firstNewBlockId; // Blocks from this id on are added by the session and not in the index file yet
+    private long nextNewBlockId;
+    private final long[] freeBlockIds; // Free blocks of the index file when the session began
+    private int freeBlocksUsed; // Free blocks taken by the nodes the session added, from the first one on
+    private final ArrayList<Long> freedBlockIds = new ArrayList<>(); // Blocks the session took nodes out of
+
+    InsertionSession() {
+        this.firstNewBlockId = DataHandler.getTotalBlocksInIndexFile();
+        this.nextNewBlockId = firstNewBlockId;
+        this.freeBlockIds = DataHandler.getFreeIndexBlocks();
+    }
+
+    // Returns the node of the block, as changed so far in the session
+    Node readNode(long blockId) {
+        Node node = nodes.get(blockId);
+        if (node == null) {
+            node = DataHandler.readIndexFileBlock(blockId);
+            if (node == null)
+                throw new IllegalStateException("The node block read was null");
+            nodes.put(blockId, node);
+        }
+        return node;
+    }
+
+    // Marks the node as changed, to be written to its block on commit
+    void markDirty(Node node) {
+        nodes.put(node.getBlockId(), node);
+        dirtyNodes.put(node.getBlockId(), node);
+    }
+
+    // Number of nodes the session will write on commit
+    int getDirtyNodeCount() {
+        return dirtyNodes.size();
+    }
+
+    // Moves the node to a free block of the index file, or to a new block at the end of it if none is left
+    void addNode(Node node) {
+        moveNode(node, freeBlocksUsed < freeBlockIds.length ? freeBlockIds[freeBlocksUsed++] : nextNewBlockId++);
+    }
+
+    // Moves the node to another block, as when the root is split or replaced by its only child.
+    // The block the node leaves is not written for it
+    void moveNode(Node node, long blockId) {
+        nodes.remove(node.getBlockId(), node);
+        dirtyNodes.remove(node.getBlockId(), node);
+        node.setBlockId(blockId);
+        markDirty(node);
+    }
+
+    // Frees the block, which no node of the tree is in any more, for the writes after this one to reuse.
+    // Whatever node the session read from it is not written
+    void freeBlock(long blockId) {
+        nodes.remove(blockId);
+        dirtyNodes.remove(blockId);
+        freedBlockIds.add(blockId);
+    }
+
+    // Writes every dirty node to its block, and the levels of the tree and its free blocks to the metadata of the index file
+    void commit(int levels) {
+        if (DataHandler.getTotalLevelsOfTreeIndex() != levels)
+            DataHandler.setLevelsOfTreeIndex(levels);
+        for (Node node : dirtyNodes.headMap(firstNewBlockId).values())
+            DataHandler.updateIndexFileBlock(node, levels);
+        for (long blockId = firstNewBlockId; blockId < nextNewBlockId; blockId++) {
+            if (DataHandler.getTotalBlocksInIndexFile() != blockId)
+                throw new IllegalStateException("Block " + blockId + " is not the next block of the index file");
+            // A new node that was moved away again, into the root, leaves its block unused
+            Node node = dirtyNodes.get(blockId);
+            DataHandler.writeIndexFileBlock(node != null ? node : new Node(RStarTree.getLeafLevel()));
+        }
+        if (freeBlocksUsed > 0 || !freedBlockIds.isEmpty()) {
+            long[] freeBlocks = new long[freeBlockIds.length - freeBlocksUsed + freedBlockIds.size()];
+            System.arraycopy(freeBlockIds, freeBlocksUsed, freeBlocks, 0, freeBlockIds.length - freeBlocksUsed);
+            for (int i = 0; i < freedBlockIds.size(); i++)
+                freeBlocks[freeBlockIds.length - freeBlocksUsed + i] = freedBlockIds.get(i);
+            DataHandler.setFreeIndexBlocks(freeBlocks);
+        }
+        nodes.clear();
+        dirtyNodes.clear();
+    }
+}
@@ -0,0 +1,50 @@
+package rstar;
+
+// Implements the entries at the bottom of a tree
+public class LeafEntry extends Entry {
+    public static final int NO_SLOT = -1; // Slot of a record whose position in its block is not known
+    private long recordId;
+    private long dataFileBlockId; //The id of the block in the datafile where the record is saved
+    private int slot; // The slot of the block holding the record, NO_SLOT if it is not known
+    public LeafEntry (long recordId, long dataFileBlockId, int slot, BoundingBox recordBounds) {
+        super (recordBounds);
+        this.recordId = recordId;
+        this.dataFileBlockId = dataFileBlockId;
+        this.slot = slot;
+    }
+    public LeafEntry (long recordId, long dataFileBlockId, BoundingBox recordBounds) {
+        this(recordId, dataFileBlockId, NO_SLOT, recordBounds);
+    }
+    // Since we have to deal with points as records, lower and upper bounds are the record's coordinates
+    public LeafEntry (Record record, long dataFileBlockId, int slot) {
+        this(record.getId(), dataFileBlockId, slot, BoundingBox.ofPoint(record.getCoordinates()));
+    }
+    public LeafEntry (Record record, long dataFileBlockId) {
+        this(record, dataFileBlockId, NO_SLOT);
+    }
+    public LeafEntry (long recordId, long dataFileBlockId, int slot, double[] point) {
+        this(recordId, dataFileBlockId, slot, BoundingBox.ofPoint(point));
+    }
+    public LeafEntry (long recordId, long dataFileBlockId, double[] point) {
+        this(recordId, dataFileBlockId, NO_SLOT, point);
+    }
+
+    public long getRecordId() {
+        return recordId;
+    }
+    public long getDataFileBlockId() {
+        return dataFileBlockId;
+    }
+    public int getSlot() {
+        return slot;
+    }
+    // The coordinates of the record, read from its box whose lower and upper bounds are the point, without reading the data file
+    public double[] getPoint() {
+        BoundingBox box = getBoundingBox();
+        double[] point = new double[box.getDimensions()];
+        for (int d = 0; d < point.length; d++)
+            point[d] = box.getLower(d);
+        return point;
+    }
+
+}
@@ -0,0 +1,155 @@
+package rstar;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// A PageFile accessed through memory-mapped regions of the file instead of read and write calls.
+// Reading a block is a copy out of the mapping, served by the OS page cache without a system call.
+// A single mapping cannot exceed 2 GB, so the file is covered by consecutive regions of up to MAX_REGION_SIZE bytes;
+// the last region is remapped to a larger size as blocks are appended past its end.
+// Reads and writes of blocks within the mapped regions share a read lock and run in parallel: they use the absolute
+// get and put of the regions, which do not touch their position. Only mapping, remapping and closing the file take
+// the write lock, since a region must not be dropped or cut off while another thread copies from it
+public class MappedPageFile extends PageFile {
+    private static final long MAX_REGION_SIZE = 1L << 30; // 1 GB, a multiple of every power of two block size up to it
+    private static final int GROWTH_IN_BLOCKS = 256; // Blocks the last region grows by when a write goes past its end
+    private final ArrayList<MappedByteBuffer> regions = new ArrayList<>(); // Only changed under the write lock
+    private final AtomicLong length = new AtomicLong(-1); // Length of the file's content in bytes, the mapped regions may extend past it. -1 while not mapped
+    private final ReentrantReadWriteLock mappingLock = new ReentrantReadWriteLock();
+
+    public MappedPageFile(String filename, int blockSize) {
+        super(filename, blockSize);
+        if (MAX_REGION_SIZE % blockSize != 0)
+            throw new IllegalArgumentException("The block size must divide the size of a mapped region");
+    }
+
+    @Override
+    public void readBlock(long blockId, byte[] block) throws IOException {
+        long start = System.nanoTime();
+        copyOut(blockId, 0, block, getBlockSize());
+        getMetrics().blocksRead(1, start);
+    }
+
+    @Override
+    public void read(long blockId, int offset, byte[] bytes) throws IOException {
+        long start = System.nanoTime();
+        if (offset < 0 || offset + bytes.length > getBlockSize())
+            throw new IllegalArgumentException("The bytes read must lie within a block of " + getBlockSize() + " bytes");
+        copyOut(blockId, offset, bytes, bytes.length);
+        getMetrics().blocksRead(1, start);
+    }
+
+    // Copies count bytes of the block starting at offset within it into the array
+    private void copyOut(long blockId, int offset, byte[] bytes, int count) throws IOException {
+        long position = blockId * getBlockSize();
+        lockMapped(0);
+        try {
+            if (position + getBlockSize() > length.get())
+                throw new IllegalStateException("Block " + blockId + " is past the end of " + getFilename());
+            regionOf(position).get((int) (position % MAX_REGION_SIZE) + offset, bytes, 0, count);
+        } finally {
+            mappingLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void writeBlock(long blockId, byte[] block) throws IOException {
+        writeBlocks(blockId, block, 1);
+    }
+
+    @Override
+    public void writeBlocks(long firstBlockId, byte[] blocks, int blockCount) throws IOException {
+        long start = System.nanoTime();
+        long end = (firstBlockId + blockCount) * getBlockSize();
+        lockMapped(end);
+        try {
+            for (int i = 0; i < blockCount; i++) {
+                long position = (firstBlockId + i) * getBlockSize();
+                regionOf(position).put((int) (position % MAX_REGION_SIZE), blocks, i * getBlockSize(), getBlockSize());
+            }
+            length.accumulateAndGet(end, Math::max);
+        } finally {
+            mappingLock.readLock().unlock();
+        }
+        if (blockCount > 0)
+            getMetrics().blocksWritten(blockCount, start);
+    }
+
+    @Override
+    public void force() throws IOException {
+        mappingLock.readLock().lock();
+        try {
+            for (MappedByteBuffer region : regions)
+                region.force();
+        } finally {
+            mappingLock.readLock().unlock();
+        }
+    }
+
+    // Forces the mapped regions and cuts off the part of the file that was mapped ahead of its content
+    @Override
+    public void close() throws IOException {
+        mappingLock.writeLock().lock();
+        try {
+            if (length.get() >= 0) {
+                for (MappedByteBuffer region : regions)
+                    region.force();
+                regions.clear();
+                getChannel().truncate(length.get());
+                length.set(-1);
+            }
+            super.close();
+        } finally {
+            mappingLock.writeLock().unlock();
+        }
+    }
+
+    // Returns holding the read lock, with the file mapped up to at least end bytes and at least its length.
+    // The read lock cannot be upgraded, so mapping more is done under the write lock before trying again
+    private void lockMapped(long end) throws IOException {
+        while (true) {
+            mappingLock.readLock().lock();
+            if (length.get() >= 0 && mappedLength() >= end)
+                return;
+            mappingLock.readLock().unlock();
+            mappingLock.writeLock().lock();
+            try {
+                if (length.get() < 0)
+                    length.set(getChannel().size());
+                ensureMapped(Math.max(end, length.get()));
+            } finally {
+                mappingLock.writeLock().unlock();
+            }
+        }
+    }
+
+    private MappedByteBuffer regionOf(long position) {
+        return regions.get((int) (position / MAX_REGION_SIZE));
+    }
+
+    // Maps regions until the first end bytes of the file are covered, growing the file if needed. Called under the write lock
+    private void ensureMapped(long end) throws IOException {
+        FileChannel channel = getChannel();
+        while (mappedLength() < end) {
+            int last = regions.size() - 1;
+            if (last < 0 || regions.get(last).capacity() == MAX_REGION_SIZE) {
+                regions.add(null);
+                last++;
+            }
+            long regionStart = last * MAX_REGION_SIZE;
+            long growth = (long) GROWTH_IN_BLOCKS * getBlockSize();
+            long regionSize = Math.min(MAX_REGION_SIZE, ((end - regionStart + growth - 1) / growth) * growth);
+            regions.set(last, channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize));
+        }
+    }
+
+    private long mappedLength() {
+        if (regions.isEmpty())
+            return 0;
+        return (regions.size() - 1) * MAX_REGION_SIZE + regions.get(regions.size() - 1).capacity();
+    }
+}
@@ -0,0 +1,131 @@
+package rstar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A batch of window queries answered in a single descent of the tree.
+ * <p>
+ * Every node on the way down is reached along with the subset of windows that intersect its box, and each of
+ * its entries passes on the windows of that subset it intersects. So every node is read and scanned once for
+ * the whole batch, however many windows overlap it, instead of once per window as with separate RangeQuery
+ * runs. The packed bounds of the windows are copied into one flat array, so testing an entry against them does not
+ * go through a BoundingBox per window.
+ */
+public class MultiRangeQuery {
+    private final List<BoundingBox> windows;
+    private final int dimensions;
+    private final double[] windowBounds; // lower and upper bound of every window in every dimension, window by window
+
+    // Receives every result of a batch as soon as it is found, along with the position of its window in the batch
+    public interface ResultConsumer {
+        void accept(int windowIndex, long recordId, long dataFileBlockId, int slot);
+    }
+
+    public MultiRangeQuery(List<BoundingBox> windows) {
+        this.windows = windows;
+        this.dimensions = DataHandler.getDataDimensions();
+        this.windowBounds = new double[windows.size() * 2 * dimensions];
+        for (int q = 0; q < windows.size(); q++) {
+            if (windows.get(q).getDimensions() != dimensions)
+                throw new IllegalArgumentException("Window " + q + " must have bounds for each of the " + dimensions + " dimensions");
+            double[] bounds = windows.get(q).getPackedBounds();
+            System.arraycopy(bounds, 0, windowBounds, q * 2 * dimensions, 2 * dimensions);
+        }
+    }
+
+    public List<BoundingBox> getWindows() {
+        return windows;
+    }
+
+    // Passes every leaf entry in any of the windows to the consumer, once for each window it is in
+    public void execute(ResultConsumer consumer) {
+        try (IndexSnapshot snapshot = DataHandler.openIndexSnapshot()) {
+            execute(snapshot, consumer);
+        }
+    }
+
+    // Returns the leaf entries in each window, in the order of the windows
+    public ArrayList<ArrayList<LeafEntry>> execute() {
+        ArrayList<ArrayList<LeafEntry>> results = new ArrayList<>(windows.size());
+        for (int q = 0; q < windows.size(); q++)
+            results.add(new ArrayList<>());
+        try (IndexSnapshot snapshot = DataHandler.openIndexSnapshot()) {
+            traverse(snapshot, (leaf, i, activeWindows, activeCount) -> {
+                LeafEntry entry = leaf.toLeafEntry(i);
+                for (int w = 0; w < activeCount; w++)
+                    results.get(activeWindows[w]).add(entry);
+            });
+        }
+        return results;
+    }
+
+    // Passes every leaf entry in any of the windows to the consumer, reading the nodes from the given reader
+    public void execute(NodeReader nodes, ResultConsumer consumer) {
+        traverse(nodes, (leaf, i, activeWindows, activeCount) -> {
+            long recordId = leaf.recordId(i);
+            long dataFileBlockId = leaf.dataFileBlockId(i);
+            int slot = leaf.slot(i);
+            for (int w = 0; w < activeCount; w++)
+                consumer.accept(activeWindows[w], recordId, dataFileBlockId, slot);
+        });
+    }
+
+    // Depth-first descent carrying, for every node on the stack, the windows that intersect it
+    private void traverse(NodeReader nodes, LeafMatchConsumer consumer) {
+        if (windows.isEmpty())
+            return;
+        IndexMetrics.QueryTrace trace = IndexMetrics.startQuery(IndexMetrics.Operation.MULTI_RANGE_QUERY);
+        RangeQuery.BlockIdStack stack = new RangeQuery.BlockIdStack();
+        ArrayList<int[]> stackWindows = new ArrayList<>(); // The windows intersecting each block on the stack
+        int[] allWindows = new int[windows.size()];
+        for (int q = 0; q < allWindows.length; q++)
+            allWindows[q] = q;
+        stack.push(RStarTree.getRootBlockId());
+        stackWindows.add(allWindows);
+
+        double[] entryBounds = new double[2 * dimensions];
+        int[] matching = new int[windows.size()];
+        while (!stack.isEmpty()) {
+            long blockId = stack.pop();
+            int[] activeWindows = stackWindows.remove(stackWindows.size() - 1);
+            trace.nodeVisited();
+            try (NodeView node = nodes.readNodeView(blockId)) {
+                for (int i = 0; i < node.getEntryCount(); i++) {
+                    for (int d = 0; d < dimensions; d++) {
+                        entryBounds[2 * d] = node.lower(i, d);
+                        entryBounds[2 * d + 1] = node.upper(i, d);
+                    }
+                    int matchCount = 0;
+                    for (int window : activeWindows)
+                        if (intersects(window, entryBounds))
+                            matching[matchCount++] = window;
+                    if (matchCount == 0)
+                        continue;
+                    if (node.isLeaf())
+                        consumer.accept(node, i, matching, matchCount);
+                    else {
+                        stack.push(node.child(i));
+                        stackWindows.add(matchCount == activeWindows.length ? activeWindows : Arrays.copyOf(matching, matchCount));
+                    }
+                }
+            }
+        }
+        trace.end();
+    }
+
+    // Touching boundaries count as intersecting, as in NodeView.intersects
+    private boolean intersects(int window, double[] entryBounds) {
+        int offset = window * dimensions * 2;
+        for (int d = 0; d < dimensions; d++)
+            if (entryBounds[2 * d] > windowBounds[offset + 2 * d + 1] || entryBounds[2 * d + 1] < windowBounds[offset + 2 * d])
+                return false;
+        return true;
+    }
+
+    private interface LeafMatchConsumer {
+        // Called with the windows in matchingWindows[0, matchCount) that hold the i-th entry of the leaf
+        void accept(NodeView leaf, int i, int[] matchingWindows, int matchCount);
+    }
+}
@@ -0,0 +1,86 @@
+package rstar;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Distance browsing: returns the leaf entries of the tree one by one, in increasing distance from a point.
+ * <p>
+ * This is the incremental form of the best-first search of NearestNeighboursQuery, for callers that do not know
+ * in advance how many neighbours they need. Nodes and leaf entries wait in the same min-heap ordered by their
+ * minimum distance from the point. A node at the head of the heap is expanded, and a leaf entry at the head is
+ * the next result, since nothing left in the heap can contain a closer point. Pages are read only while looking
+ * for the result the caller asks for, and no block stays pinned between calls.
+ * <p>
+ * Nodes are read from an IndexSnapshot opened with the iterator, which stays open until every entry has been
+ * returned or the iterator is closed. An iterator that is abandoned early without being closed keeps its snapshot's
+ * before-images in memory and holds back the release of an index file replaced by a repack.
+ */
+public class NearestNeighboursIterator implements CloseableIterator<LeafEntry> {
+    private final double[] point;
+    private final DistanceQueue queue = new DistanceQueue();
+    private final IndexSnapshot snapshot;
+    private final IndexMetrics.QueryTrace trace;
+    private double lastDistance = Double.NaN;
+    private boolean closed;
+
+    public NearestNeighboursIterator(double[] point) {
+        if (point.length != DataHandler.getDataDimensions())
+            throw new IllegalArgumentException("The query point must have a coordinate for each of the " + DataHandler.getDataDimensions() + " dimensions");
+        this.point = point;
+        this.snapshot = DataHandler.openIndexSnapshot();
+        this.trace = IndexMetrics.startQuery(IndexMetrics.Operation.NEAREST_NEIGHBOURS_ITERATION);
+        queue.add(0, RStarTree.getRootBlockId());
+    }
+
+    public double[] getPoint() {
+        return point;
+    }
+
+    // Distance from the point of the entry last returned by next(), NaN before the first call
+    public double getLastDistance() {
+        return lastDistance;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed)
+            return false;
+        // Expanding nodes until a leaf entry is the closest element queued
+        while (!queue.isEmpty() && queue.peekEntry() == null) {
+            trace.nodeVisited();
+            try (NodeView node = snapshot.readNodeView(queue.poll())) {
+                for (int i = 0; i < node.getEntryCount(); i++) {
+                    double distance = node.minDistance(i, point);
+                    if (node.isLeaf())
+                        queue.add(distance, node.toLeafEntry(i));
+                    else
+                        queue.add(distance, node.child(i));
+                }
+            }
+        }
+        if (!queue.isEmpty())
+            return true;
+        close();
+        return false;
+    }
+
+    // Closes the snapshot of the iterator, after which it returns no more entries
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        snapshot.close();
+        trace.end();
+    }
+
+    @Override
+    public LeafEntry next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        LeafEntry entry = queue.peekEntry();
+        lastDistance = queue.peekDistance();
+        queue.poll();
+        return entry;
+    }
+}
@@ -0,0 +1,198 @@
+package rstar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * k-nearest-neighbours query with the best-first search of Hjaltason and Samet.
+ * <p>
+ * Nodes wait in a single priority queue ordered by the minimum distance of their box from the query point
+ * (BoundingBox.findMinDistance, computed here from the page bytes by NodeView.minDistance), and the closest
+ * queued node is always expanded next. The k closest leaf entries seen so far are kept as candidates.
+ * The search stops as soon as the k-th candidate is closer than the next node in the queue, since no node
+ * left can hold a closer point, so every node is read at most once and only nodes that may hold one of the
+ * k nearest points are read at all.
+ * <p>
+ * The candidates are kept in primitive arrays, copied out of the leaf pages as they are accepted, so the search
+ * allocates nothing per entry. Leaf entries are only created for the k results returned by execute().
+ */
+public class NearestNeighboursQuery implements IndexQuery {
+    private final double[] point;
+    private final int k;
+
+    public NearestNeighboursQuery(double[] point, int k) {
+        if (point.length != DataHandler.getDataDimensions())
+            throw new IllegalArgumentException("The query point must have a coordinate for each of the " + DataHandler.getDataDimensions() + " dimensions");
+        if (k <= 0)
+            throw new IllegalArgumentException("The number of neighbours must be positive");
+        this.point = point;
+        this.k = k;
+    }
+
+    public double[] getPoint() {
+        return point;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    // Returns the leaf entries of the k records closest to the point, in increasing distance from it
+    // (fewer than k if the tree holds fewer records)
+    public ArrayList<LeafEntry> execute() {
+        try (IndexSnapshot snapshot = DataHandler.openIndexSnapshot()) {
+            return execute(snapshot);
+        }
+    }
+
+    // Passes the id and point of the k records closest to the point to the consumer, in increasing distance from it.
+    // They are taken from the leaf entries, the data file is not read. The consumer is handed the same array for
+    // every point, overwritten for the next one
+    public void execute(RangeQuery.PointConsumer consumer) {
+        Candidates nearest;
+        try (IndexSnapshot snapshot = DataHandler.openIndexSnapshot()) {
+            nearest = search(snapshot);
+        }
+        double[] point = new double[this.point.length];
+        for (int c = 0; c < nearest.size; c++) {
+            System.arraycopy(nearest.points, c * point.length, point, 0, point.length);
+            consumer.accept(nearest.recordIds[c], point);
+        }
+    }
+
+    // Returns the k nearest leaf entries in increasing distance, reading the nodes from the given reader
+    @Override
+    public ArrayList<LeafEntry> execute(NodeReader nodes) {
+        Candidates nearest = search(nodes);
+        ArrayList<LeafEntry> entries = new ArrayList<>(nearest.size);
+        for (int c = 0; c < nearest.size; c++)
+            entries.add(new LeafEntry(nearest.recordIds[c], nearest.dataFileBlockIds[c], nearest.slots[c],
+                    Arrays.copyOfRange(nearest.points, c * point.length, (c + 1) * point.length)));
+        return entries;
+    }
+
+    // Best-first search for the k nearest leaf entries, returned in increasing distance
+    private Candidates search(NodeReader nodes) {
+        Candidates candidates = new Candidates(k, point.length);
+        DistanceQueue queue = new DistanceQueue();
+        queue.add(0, RStarTree.getRootBlockId());
+        IndexMetrics.QueryTrace trace = IndexMetrics.startQuery(IndexMetrics.Operation.NEAREST_NEIGHBOURS_QUERY);
+
+        while (!queue.isEmpty()) {
+            if (candidates.isFull() && candidates.farthestDistance() <= queue.peekDistance())
+                break;
+            trace.nodeVisited();
+            try (NodeView node = nodes.readNodeView(queue.poll())) {
+                for (int i = 0; i < node.getEntryCount(); i++) {
+                    double distance = node.minDistance(i, point);
+                    if (candidates.isFull() && distance >= candidates.farthestDistance())
+                        continue;
+                    if (!node.isLeaf())
+                        queue.add(distance, node.child(i));
+                    else
+                        candidates.add(distance, node, i);
+                }
+            }
+        }
+
+        candidates.sortByDistance();
+        trace.end();
+        return candidates;
+    }
+
+    // The closest leaf entries found so far, at most k of them, in a heap with the farthest one at the head so that
+    // it is the one replaced by a closer entry. The fields of the c-th candidate are at index c of the arrays and
+    // its point at c * dimensions of points
+    private static final class Candidates {
+        private final int dimensions;
+        private final double[] distances;
+        private final long[] recordIds;
+        private final long[] dataFileBlockIds;
+        private final int[] slots;
+        private final double[] points;
+        private int size;
+
+        Candidates(int k, int dimensions) {
+            this.dimensions = dimensions;
+            this.distances = new double[k];
+            this.recordIds = new long[k];
+            this.dataFileBlockIds = new long[k];
+            this.slots = new int[k];
+            this.points = new double[k * dimensions];
+        }
+
+        boolean isFull() {
+            return size == distances.length;
+        }
+
+        double farthestDistance() {
+            return distances[0];
+        }
+
+        // Adds the i-th entry of the leaf, replacing the farthest candidate if there are k of them already
+        void add(double distance, NodeView leaf, int i) {
+            int c = isFull() ? 0 : size++;
+            distances[c] = distance;
+            recordIds[c] = leaf.recordId(i);
+            dataFileBlockIds[c] = leaf.dataFileBlockId(i);
+            slots[c] = leaf.slot(i);
+            leaf.point(i, points, c * dimensions);
+            if (c == 0)
+                siftDown(0, size);
+            else
+                siftUp(c);
+        }
+
+        // Heapsort: moving the farthest candidate left behind the heap each time leaves them in increasing distance
+        void sortByDistance() {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+        }
+
+        private void siftUp(int c) {
+            while (c > 0 && distances[(c - 1) / 2] < distances[c]) {
+                swap(c, (c - 1) / 2);
+                c = (c - 1) / 2;
+            }
+        }
+
+        // Sifts the candidate at c down the heap made of the first end candidates
+        private void siftDown(int c, int end) {
+            while (true) {
+                int farthest = c;
+                int left = 2 * c + 1;
+                int right = left + 1;
+                if (left < end && distances[left] > distances[farthest])
+                    farthest = left;
+                if (right < end && distances[right] > distances[farthest])
+                    farthest = right;
+                if (farthest == c)
+                    return;
+                swap(c, farthest);
+                c = farthest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double distance = distances[a];
+            distances[a] = distances[b];
+            distances[b] = distance;
+            long recordId = recordIds[a];
+            recordIds[a] = recordIds[b];
+            recordIds[b] = recordId;
+            long dataFileBlockId = dataFileBlockIds[a];
+            dataFileBlockIds[a] = dataFileBlockIds[b];
+            dataFileBlockIds[b] = dataFileBlockId;
+            int slot = slots[a];
+            slots[a] = slots[b];
+            slots[b] = slot;
+            for (int d = 0; d < dimensions; d++) {
+                double coordinate = points[a * dimensions + d];
+                points[a * dimensions + d] = points[b * dimensions + d];
+                points[b * dimensions + d] = coordinate;
+            }
+        }
+    }
+}
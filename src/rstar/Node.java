@@ -0,0 +1,214 @@
+package rstar;
+
+import java.util.ArrayList;
+
+/**
+ * Node class represents a node in the R*-tree.
+ * Each node contains a list of entries (which can be either data objects or child nodes).
+ * The node supports dynamic splitting using R*-tree heuristics (overlap, area, and margin-based criteria).
+ */
+public class Node {
+    private static final int MAX_ENTRIES = DataHandler.calculateMaxEntriesInNode();
+    private static final int MIN_ENTRIES = (int) (0.4 * MAX_ENTRIES);
+    private long level; //Level of Node in the tree: 0 = leaf, higher values = internal nodes
+    private long blockId; //Unique identifier for disk block
+    private ArrayList<Entry> entries; //Entries of this node
+
+    public Node(long level, ArrayList<Entry> entries) {
+        this.level = level;
+        this.entries = entries;
+    }
+
+    public Node (long level) {
+        this.level = level;
+        this.entries = new ArrayList<>();
+        this.blockId = RStarTree.getRootBlockId();
+    }
+    public long getLevel() {
+        return level;
+    }
+    public long getBlockId() {
+        return blockId;
+    }
+    public ArrayList<Entry> getEntries() {
+        return entries;
+    }
+    public void setBlockId(long blockId) {
+        this.blockId = blockId;
+    }
+    public void setEntries(ArrayList<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public void addEntry(Entry entry) {
+        entries.add(entry);
+    }
+    static int getMaxEntriesInNode() {
+        return MAX_ENTRIES;
+    }
+    static int getMinEntriesInNode() {
+        return MIN_ENTRIES;
+    }
+
+    //IMPLEMENT ROOT CONSTRUCTOR
+
+    /**
+     * Performs the full node split process of the R*-tree:
+     * 1. ChooseSplitAxis: for each axis, the entries are sorted by the lower and then by the upper bound of their
+     *    boxes. For each sort, every distribution into a group of the first k entries and a group of the rest,
+     *    both holding at least MIN_ENTRIES, is considered. The axis with the minimum sum of the margins of the
+     *    groups over all its distributions is chosen.
+     * 2. ChooseSplitIndex: along the chosen axis, the distribution with the minimum overlap between the boxes of
+     *    the two groups is chosen, resolving ties by the minimum total area.
+     * <p>
+     * The groups are never built while they are evaluated. Each sort orders an array of entry indices, and one
+     * sweep from each end of it computes the box of every prefix and every suffix of the order, from which the
+     * boxes of both groups of every distribution are read. So after the sorts a split costs O(M*d) instead of
+     * computing the box of each group from its entries for every distribution. The two orders of the axis chosen
+     * are kept from ChooseSplitAxis for ChooseSplitIndex and the distribution, so every axis and bound is sorted once.
+     *
+     * @return Two nodes after splitting this node.
+     */
+    public ArrayList<Node> split() {
+        return split(new SplitBuffers());
+    }
+
+    // Splits the node like split(), working in the arrays of the given buffers, which a tree reuses for all its splits
+    ArrayList<Node> split(SplitBuffers buffers) {
+        int entryCount = entries.size();
+        int boxLength = 2 * DataHandler.getDataDimensions();
+        if (entryCount < 2 * MIN_ENTRIES)
+            throw new IllegalStateException("Cannot split a node with fewer than " + 2 * MIN_ENTRIES + " entries");
+
+        buffers.ensureCapacity(entryCount, boxLength);
+        int[] order = buffers.order;
+        int[] scratch = buffers.scratch;
+        double[] keys = buffers.keys;
+        double[] prefixBoxes = buffers.prefixBoxes;
+        double[] suffixBoxes = buffers.suffixBoxes;
+        int[] axisOrders = buffers.axisOrders; // The orders by lower and by upper bound of the axis evaluated
+        int[] splitAxisOrders = buffers.splitAxisOrders; // Those of the axis with the minimum margin sum so far
+
+        // ChooseSplitAxis
+        int splitAxis = 0;
+        double minMarginSum = Double.MAX_VALUE;
+        for (int axis = 0; axis < boxLength / 2; axis++) {
+            double marginSum = 0;
+            for (int bound = 0; bound < 2; bound++) {
+                sortByBound(order, scratch, keys, entryCount, 2 * axis + bound);
+                System.arraycopy(order, 0, axisOrders, bound * entryCount, entryCount);
+                sweep(order, entryCount, boxLength, prefixBoxes, suffixBoxes);
+                for (int k = MIN_ENTRIES; k <= entryCount - MIN_ENTRIES; k++)
+                    marginSum += BoundingBox.margin(prefixBoxes, (k - 1) * boxLength, boxLength)
+                            + BoundingBox.margin(suffixBoxes, k * boxLength, boxLength);
+            }
+            if (marginSum < minMarginSum) {
+                minMarginSum = marginSum;
+                splitAxis = axis;
+                int[] evaluated = axisOrders;
+                axisOrders = splitAxisOrders;
+                splitAxisOrders = evaluated;
+            }
+        }
+
+        // ChooseSplitIndex
+        double minOverlap = Double.MAX_VALUE;
+        double minArea = Double.MAX_VALUE;
+        int splitBound = 0;
+        int splitIndex = MIN_ENTRIES; // Entries in the first group
+        for (int bound = 0; bound < 2; bound++) {
+            System.arraycopy(splitAxisOrders, bound * entryCount, order, 0, entryCount);
+            sweep(order, entryCount, boxLength, prefixBoxes, suffixBoxes);
+            for (int k = MIN_ENTRIES; k <= entryCount - MIN_ENTRIES; k++) {
+                int prefix = (k - 1) * boxLength;
+                int suffix = k * boxLength;
+                double overlap = BoundingBox.overlap(prefixBoxes, prefix, suffixBoxes, suffix, boxLength);
+                double area = BoundingBox.area(prefixBoxes, prefix, boxLength) + BoundingBox.area(suffixBoxes, suffix, boxLength);
+                if (overlap < minOverlap || (overlap == minOverlap && area < minArea)) {
+                    minOverlap = overlap;
+                    minArea = area;
+                    splitBound = bound;
+                    splitIndex = k;
+                }
+            }
+        }
+
+        // Distributing the entries into the two groups of the chosen distribution
+        int splitOrder = splitBound * entryCount;
+        ArrayList<Entry> groupA = new ArrayList<>(MAX_ENTRIES + 1);
+        ArrayList<Entry> groupB = new ArrayList<>(MAX_ENTRIES + 1);
+        for (int k = 0; k < entryCount; k++)
+            (k < splitIndex ? groupA : groupB).add(entries.get(splitAxisOrders[splitOrder + k]));
+        ArrayList<Node> splitNodes = new ArrayList<>();
+        splitNodes.add(new Node(level, groupA));
+        splitNodes.add(new Node(level, groupB));
+        return splitNodes;
+    }
+
+    // Orders the indices of the entries in the first entryCount elements of order by the bound at boundIndex
+    // of their packed boxes, keeping entries with equal bounds in the order of the node
+    private void sortByBound(int[] order, int[] scratch, double[] keys, int entryCount, int boundIndex) {
+        for (int i = 0; i < entryCount; i++) {
+            order[i] = i;
+            keys[i] = entries.get(i).getBoundingBox().getPackedBounds()[boundIndex];
+        }
+        mergeSort(order, scratch, keys, 0, entryCount);
+    }
+
+    // Stable merge sort of the indices in order[from, to) by their keys, using scratch[from, to) as working space
+    static void mergeSort(int[] order, int[] scratch, double[] keys, int from, int to) {
+        if (to - from < 2)
+            return;
+        int middle = (from + to) >>> 1;
+        mergeSort(order, scratch, keys, from, middle);
+        mergeSort(order, scratch, keys, middle, to);
+        int i = from, j = middle, k = from;
+        while (i < middle && j < to)
+            scratch[k++] = keys[order[j]] < keys[order[i]] ? order[j++] : order[i++];
+        while (i < middle)
+            scratch[k++] = order[i++];
+        while (j < to)
+            scratch[k++] = order[j++];
+        System.arraycopy(scratch, from, order, from, to - from);
+    }
+
+    // Computes the box of every prefix and every suffix of the entries in the given order. The box enclosing the
+    // entries order[0..k] is written at k * boxLength of prefixBoxes, the one enclosing order[k..] at k * boxLength of suffixBoxes
+    private void sweep(int[] order, int entryCount, int boxLength, double[] prefixBoxes, double[] suffixBoxes) {
+        int last = entryCount - 1;
+        System.arraycopy(entries.get(order[0]).getBoundingBox().getPackedBounds(), 0, prefixBoxes, 0, boxLength);
+        for (int k = 1; k <= last; k++)
+            BoundingBox.union(prefixBoxes, (k - 1) * boxLength, entries.get(order[k]).getBoundingBox().getPackedBounds(), 0,
+                    prefixBoxes, k * boxLength, boxLength);
+        System.arraycopy(entries.get(order[last]).getBoundingBox().getPackedBounds(), 0, suffixBoxes, last * boxLength, boxLength);
+        for (int k = last - 1; k >= 0; k--)
+            BoundingBox.union(suffixBoxes, (k + 1) * boxLength, entries.get(order[k]).getBoundingBox().getPackedBounds(), 0,
+                    suffixBoxes, k * boxLength, boxLength);
+    }
+
+    // Working arrays of split, grown to the largest node split so far. The boxes of the prefixes and suffixes of the
+    // sorted entries are packed back to back in flat arrays instead of one array per box
+    static final class SplitBuffers {
+        private int[] order = new int[0];
+        private int[] scratch = new int[0];
+        private double[] keys = new double[0];
+        private double[] prefixBoxes = new double[0];
+        private double[] suffixBoxes = new double[0];
+        private int[] axisOrders = new int[0]; // Two orders of entryCount indices back to back, by lower then by upper bound
+        private int[] splitAxisOrders = new int[0];
+
+        private void ensureCapacity(int entryCount, int boxLength) {
+            if (order.length < entryCount) {
+                order = new int[entryCount];
+                scratch = new int[entryCount];
+                keys = new double[entryCount];
+                axisOrders = new int[2 * entryCount];
+                splitAxisOrders = new int[2 * entryCount];
+            }
+            if (prefixBoxes.length < entryCount * boxLength) {
+                prefixBoxes = new double[entryCount * boxLength];
+                suffixBoxes = new double[entryCount * boxLength];
+            }
+        }
+    }
+}
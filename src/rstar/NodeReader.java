@@ -0,0 +1,7 @@
+package rstar;
+
+// Source of the nodes a query reads, such as an IndexSnapshot or the node cache shared by a batch of queries
+public interface NodeReader {
+    // Returns a view of the node in the given block, which must be closed after use
+    NodeView readNodeView(long blockId);
+}
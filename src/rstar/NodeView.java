@@ -0,0 +1,178 @@
+package rstar;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only view of a node page of the index file, reading the header and the entries straight from the
+ * page bytes in the binary layout of IndexManager. Unlike Node, it does not create an Entry and a BoundingBox
+ * per entry, so traversals that only test each entry's box and follow its pointer allocate nothing
+ * per entry.
+ * <p>
+ * A view obtained from DataHandler.readIndexNodeView keeps its block pinned in the buffer pool and must be
+ * closed when the caller is done with it.
+ */
+public class NodeView implements AutoCloseable {
+    private final ByteBuffer page;
+    private final long blockId;
+    private final int dimension;
+    private final short version;
+    private final boolean isLeaf;
+    private final int level;
+    private final int entryCount;
+    private final int entrySize;
+    private final BufferPool bufferPool; // The pool and file the block is pinned in, null if the view is not pinned
+    private final PageFile pageFile;
+    private boolean closed;
+
+    NodeView(byte[] block, long blockId, int dimension, BufferPool bufferPool, PageFile pageFile) {
+        this.page = ByteBuffer.wrap(block);
+        this.blockId = blockId;
+        this.dimension = dimension;
+        this.bufferPool = bufferPool;
+        this.pageFile = pageFile;
+        this.version = page.getShort(IndexManager.VERSION_OFFSET);
+        if (version != 1 && version != IndexManager.PAGE_FORMAT_VERSION)
+            throw new IllegalStateException("Unsupported index page format version " + version + " in block " + blockId);
+        this.isLeaf = page.get(IndexManager.LEAF_FLAG_OFFSET) == 1;
+        this.level = page.getInt(IndexManager.LEVEL_OFFSET);
+        this.entryCount = page.getInt(IndexManager.ENTRY_COUNT_OFFSET);
+        this.entrySize = isLeaf ? IndexManager.leafEntrySize(dimension) : IndexManager.internalEntrySize(dimension);
+    }
+
+    public long getBlockId() {
+        return blockId;
+    }
+    public boolean isLeaf() {
+        return isLeaf;
+    }
+    public int getLevel() {
+        return level;
+    }
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    private int entryOffset(int i) {
+        return IndexManager.PAGE_HEADER_SIZE + i * entrySize;
+    }
+
+    // Lower bound of the i-th entry's box in dimension d
+    public double lower(int i, int d) {
+        return page.getDouble(entryOffset(i) + 2 * d * Double.BYTES);
+    }
+
+    // Upper bound of the i-th entry's box in dimension d
+    public double upper(int i, int d) {
+        return page.getDouble(entryOffset(i) + (2 * d + 1) * Double.BYTES);
+    }
+
+    // Block id of the child node the i-th entry of an internal node points to
+    public long child(int i) {
+        if (isLeaf)
+            throw new IllegalStateException("The entries of a leaf node point to records, not to child nodes");
+        return page.getLong(entryOffset(i) + 2 * dimension * Double.BYTES);
+    }
+
+    // Id of the record of the i-th entry of a leaf node
+    public long recordId(int i) {
+        if (!isLeaf)
+            throw new IllegalStateException("The entries of an internal node point to child nodes, not to records");
+        return page.getLong(entryOffset(i) + 2 * dimension * Double.BYTES);
+    }
+
+    // Block of the data file holding the record of the i-th entry of a leaf node
+    public long dataFileBlockId(int i) {
+        if (!isLeaf)
+            throw new IllegalStateException("The entries of an internal node point to child nodes, not to records");
+        int offset = entryOffset(i) + 2 * dimension * Double.BYTES + Long.BYTES;
+        return version == 1 ? page.getLong(offset) : page.getInt(offset);
+    }
+
+    // Slot of its data file block holding the record of the i-th entry of a leaf node, LeafEntry.NO_SLOT on a version 1 page
+    public int slot(int i) {
+        if (!isLeaf)
+            throw new IllegalStateException("The entries of an internal node point to child nodes, not to records");
+        if (version == 1)
+            return LeafEntry.NO_SLOT;
+        return page.getInt(entryOffset(i) + 2 * dimension * Double.BYTES + Long.BYTES + Integer.BYTES);
+    }
+
+    // True if the i-th entry's box intersects the given box (touching boundaries count as intersecting)
+    public boolean intersects(int i, BoundingBox box) {
+        int offset = entryOffset(i);
+        for (int d = 0; d < dimension; d++) {
+            double lower = page.getDouble(offset + 2 * d * Double.BYTES);
+            double upper = page.getDouble(offset + (2 * d + 1) * Double.BYTES);
+            if (lower > box.getUpper(d) || upper < box.getLower(d))
+                return false;
+        }
+        return true;
+    }
+
+    // True if the i-th entry's box lies inside the given box (touching its boundaries included)
+    public boolean within(int i, BoundingBox box) {
+        int offset = entryOffset(i);
+        for (int d = 0; d < dimension; d++)
+            if (page.getDouble(offset + 2 * d * Double.BYTES) < box.getLower(d) || page.getDouble(offset + (2 * d + 1) * Double.BYTES) > box.getUpper(d))
+                return false;
+        return true;
+    }
+
+    // Copies the point of the record of the i-th entry of a leaf node, the lower bounds of its box, into the given array
+    public void point(int i, double[] point) {
+        point(i, point, 0);
+    }
+
+    // Copies the point of the record of the i-th entry of a leaf node into the given array, starting at index from
+    public void point(int i, double[] points, int from) {
+        int offset = entryOffset(i);
+        for (int d = 0; d < dimension; d++)
+            points[from + d] = page.getDouble(offset + 2 * d * Double.BYTES);
+    }
+
+    // True if the given point lies in the i-th entry's box (points on its boundary included)
+    public boolean contains(int i, double[] point) {
+        int offset = entryOffset(i);
+        for (int d = 0; d < dimension; d++)
+            if (point[d] < page.getDouble(offset + 2 * d * Double.BYTES) || point[d] > page.getDouble(offset + (2 * d + 1) * Double.BYTES))
+                return false;
+        return true;
+    }
+
+    // Euclidean distance between the given point and the closest point of the i-th entry's box,
+    // the same value as BoundingBox.findMinDistance without materializing the box
+    public double minDistance(int i, double[] point) {
+        int offset = entryOffset(i);
+        double minDistance = 0;
+        for (int d = 0; d < dimension; d++) {
+            double lower = page.getDouble(offset + 2 * d * Double.BYTES);
+            double upper = page.getDouble(offset + (2 * d + 1) * Double.BYTES);
+            double difference;
+            if (point[d] < lower)
+                difference = lower - point[d];
+            else if (point[d] > upper)
+                difference = point[d] - upper;
+            else
+                difference = 0;
+            minDistance += difference * difference;
+        }
+        return Math.sqrt(minDistance);
+    }
+
+    // Decodes the i-th entry into a LeafEntry, for callers that need to hand the entry out of the traversal
+    public LeafEntry toLeafEntry(int i) {
+        double[] bounds = new double[2 * dimension];
+        int offset = entryOffset(i);
+        for (int b = 0; b < bounds.length; b++)
+            bounds[b] = page.getDouble(offset + b * Double.BYTES);
+        return new LeafEntry(recordId(i), dataFileBlockId(i), slot(i), new BoundingBox(bounds));
+    }
+
+    // Unpins the block of the view, after which the view must not be used
+    @Override
+    public void close() {
+        if (bufferPool != null && !closed)
+            bufferPool.unpin(pageFile, blockId);
+        closed = true;
+    }
+}
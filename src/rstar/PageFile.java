@@ -0,0 +1,117 @@
+package rstar;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+// A file made of fixed-size blocks, addressed by block id.
+// The underlying file is opened lazily on first access and kept open, so reading or writing a block is a single
+// positional read/write on the channel instead of opening a new RandomAccessFile per call.
+// Positional reads and writes on a FileChannel are safe from several threads, so only opening, forcing and closing the channel are synchronized
+public class PageFile {
+    private final String filename;
+    private final int blockSize;
+    private final PageFileMetrics metrics; // Shared by every PageFile of the same file name
+    private final boolean readOnly; // Whether the file is opened for reading only, which neither creates nor changes it
+    private RandomAccessFile raf;
+    private FileChannel channel;
+
+    public PageFile(String filename, int blockSize) {
+        this(filename, blockSize, false);
+    }
+
+    protected PageFile(String filename, int blockSize, boolean readOnly) {
+        this.filename = filename;
+        this.blockSize = blockSize;
+        this.metrics = IndexMetrics.get().getPageFileMetrics(filename);
+        this.readOnly = readOnly;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public PageFileMetrics getMetrics() {
+        return metrics;
+    }
+
+    protected synchronized FileChannel getChannel() throws IOException {
+        if (channel == null) {
+            raf = new RandomAccessFile(filename, readOnly ? "r" : "rw");
+            channel = raf.getChannel();
+        }
+        return channel;
+    }
+
+    // Reads the block with the given id into the given array, which must be of the file's block size
+    public void readBlock(long blockId, byte[] block) throws IOException {
+        long start = System.nanoTime();
+        ByteBuffer buffer = ByteBuffer.wrap(block, 0, blockSize);
+        long position = blockId * blockSize;
+        FileChannel fileChannel = getChannel();
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, position + buffer.position()) < 0)
+                throw new IllegalStateException("Block size read was not of " + blockSize + " bytes");
+        }
+        metrics.blocksRead(1, start);
+    }
+
+    // Reads bytes.length bytes of the block with the given id, starting at offset within the block, with a single
+    // positional read. Counted as a read of the block
+    public void read(long blockId, int offset, byte[] bytes) throws IOException {
+        long start = System.nanoTime();
+        if (offset < 0 || offset + bytes.length > blockSize)
+            throw new IllegalArgumentException("The bytes read must lie within a block of " + blockSize + " bytes");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long position = blockId * blockSize + offset;
+        FileChannel fileChannel = getChannel();
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, position + buffer.position()) < 0)
+                throw new IllegalStateException("Block " + blockId + " is past the end of " + filename);
+        }
+        metrics.blocksRead(1, start);
+    }
+
+    // Writes the given array, which must be of the file's block size, to the block with the given id
+    public void writeBlock(long blockId, byte[] block) throws IOException {
+        long start = System.nanoTime();
+        ByteBuffer buffer = ByteBuffer.wrap(block, 0, blockSize);
+        long position = blockId * blockSize;
+        FileChannel fileChannel = getChannel();
+        while (buffer.hasRemaining())
+            fileChannel.write(buffer, position + buffer.position());
+        metrics.blocksWritten(1, start);
+    }
+
+    // Writes blockCount consecutive blocks, held back to back in the given array, starting at the given block id
+    public void writeBlocks(long firstBlockId, byte[] blocks, int blockCount) throws IOException {
+        long start = System.nanoTime();
+        ByteBuffer buffer = ByteBuffer.wrap(blocks, 0, blockCount * blockSize);
+        long position = firstBlockId * blockSize;
+        FileChannel fileChannel = getChannel();
+        while (buffer.hasRemaining())
+            fileChannel.write(buffer, position + buffer.position());
+        if (blockCount > 0)
+            metrics.blocksWritten(blockCount, start);
+    }
+
+    // Forces any written blocks to the storage device
+    public synchronized void force() throws IOException {
+        if (channel != null)
+            channel.force(false);
+    }
+
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            raf.close();
+            channel = null;
+            raf = null;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package rstar;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads and writes of the blocks of one file and the buffer pool hits and misses on them, with the latency
+ * of every read and write that reaches the file. Every PageFile of the same file name reports into the same
+ * PageFileMetrics, so the counts carry over when the file is reopened.
+ */
+public class PageFileMetrics implements PageFileMetricsMXBean {
+    private final String filename;
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final Histogram readLatency = new Histogram();
+    private final Histogram writeLatency = new Histogram();
+
+    PageFileMetrics(String filename) {
+        this.filename = filename;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    // Counts a read of consecutive blocks that started at startNanos, a System.nanoTime value.
+    // Each block is recorded with an equal share of the latency
+    void blocksRead(int blocks, long startNanos) {
+        reads.add(blocks);
+        readLatency.record((System.nanoTime() - startNanos) / blocks, blocks);
+    }
+
+    // Counts a write of consecutive blocks that started at startNanos
+    void blocksWritten(int blocks, long startNanos) {
+        writes.add(blocks);
+        writeLatency.record((System.nanoTime() - startNanos) / blocks, blocks);
+    }
+
+    void cacheHit() {
+        cacheHits.increment();
+    }
+
+    void cacheMiss() {
+        cacheMisses.increment();
+    }
+
+    @Override
+    public long getReads() {
+        return reads.sum();
+    }
+
+    @Override
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        long hits = getCacheHits();
+        long accesses = hits + getCacheMisses();
+        return accesses == 0 ? 0 : (double) hits / accesses;
+    }
+
+    @Override
+    public Histogram.Summary getReadLatency() {
+        return readLatency.getSummary();
+    }
+
+    @Override
+    public Histogram.Summary getWriteLatency() {
+        return writeLatency.getSummary();
+    }
+
+    @Override
+    public void reset() {
+        reads.reset();
+        writes.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        readLatency.reset();
+        writeLatency.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: reads=%d writes=%d cacheHits=%d cacheMisses=%d hitRatio=%.3f%n  read ns: %s%n  write ns: %s",
+                filename, getReads(), getWrites(), getCacheHits(), getCacheMisses(), getCacheHitRatio(), getReadLatency(), getWriteLatency());
+    }
+}
@@ -0,0 +1,21 @@
+package rstar;
+
+// Management interface of the PageFileMetrics of a file, registered as rstar:type=PageFileMetrics,name=<file name>.
+// Reads and writes are those that reach the file, hits and misses those of its blocks in the buffer pool
+public interface PageFileMetricsMXBean {
+    long getReads();
+
+    long getWrites();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getCacheHitRatio();
+
+    Histogram.Summary getReadLatency();
+
+    Histogram.Summary getWriteLatency();
+
+    void reset();
+}
@@ -0,0 +1,721 @@
+package rstar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public class RStarTree {
+    private static int levels; //Total levels of the tree incrementing from root. Root always has the highest level
+    private static boolean[] levelsInserted;
+    private static final int ROOT_BLOCKID = 1; // Root always has 1 as its id as it is used to easily identify which block has the root
+    private static final int LEAF_LEVEL = 1;
+    //Instead of scanning all possible entries in an internal node to find the best one to descend into
+    //the R*-Tree limits the selection to P best candidate entries based on minimum overlap enlargement or
+    //minimum area enlargement. When choosing a subtree to descend into, evaluate only the top P promising entries, not all of them.
+    private static final int CHOOSE_SUBTREE_P_ENTRIES = 32;
+
+    //Overflow treatment. When a node overflows some entries are removed and added elsewhere in the tree to reduce overlap
+    //REINSERT_P_ENTRIES defines how many entries to reinsert.
+    private static final int REINSERT_P_ENTRIES = (int) (0.3*Node.getMaxEntriesInNode());
+    
+    // Fraction of the maximum entries placed in every node by the bulk loader, leaving room for later inserts
+    private static final double DEFAULT_BULK_LOAD_FILL_FACTOR = 0.7;
+
+    private InsertionSession session; // Nodes read and changed by the write in progress, null outside of writes
+
+    // Inserts and deletes committed since the snapshot a repack is building its tree from, to be applied to that tree
+    // before it replaces the index. Null when no repack is running. Only changed by writes, so guarded by the write lock
+    private static ArrayList<Consumer<WriteAheadLog.Replayer>> capturedOperations;
+
+    // Scores of the entries of the node ChooseSubtree is called on, indexed by their position in the node
+    private double[] areas = new double[Node.getMaxEntriesInNode() + 1];
+    private double[] areaEnlargements = new double[Node.getMaxEntriesInNode() + 1];
+    private int[] candidates = new int[Node.getMaxEntriesInNode() + 1]; // Positions of the entries considered for least overlap enlargement
+    private double[] enlargedBox = new double[0]; // Box of a candidate entry enlarged to include the new one
+    private final Node.SplitBuffers splitBuffers = new Node.SplitBuffers(); // Working arrays of the splits of the tree's nodes
+    // Distances of the entries of the node reinserted from the center of its box, indexed by their position in the node,
+    // and the positions sorted by them
+    private final double[] reinsertDistances = new double[Node.getMaxEntriesInNode() + 1];
+    private final int[] reinsertOrder = new int[Node.getMaxEntriesInNode() + 1];
+    private final int[] reinsertScratch = new int[Node.getMaxEntriesInNode() + 1];
+
+    public RStarTree (boolean insertFromDataFile) {
+        this(insertFromDataFile, DEFAULT_BULK_LOAD_FILL_FACTOR);
+    }
+
+    // If insertFromDataFile is true, the index is rebuilt from every record of the data file with STR bulk loading,
+    // filling each node up to bulkLoadFillFactor of its maximum entries
+    public RStarTree (boolean insertFromDataFile, double bulkLoadFillFactor) {
+        if (insertFromDataFile)
+            new BulkLoader(bulkLoadFillFactor).load();
+        else if (DataHandler.getTotalBlocksInIndexFile() == ROOT_BLOCKID) // Only the metadata block exists, so an empty root is added
+            DataHandler.writeIndexFileBlock(new Node(LEAF_LEVEL));
+        this.levels = (int) DataHandler.getTotalLevelsOfTreeIndex();
+        if (!insertFromDataFile)
+            redoLoggedOperations();
+    }
+
+    // Redoes the inserts and deletes of the write-ahead log that did not reach the index file before a crash
+    private void redoLoggedOperations() {
+        DataHandler.replayWriteAheadLog(new WriteAheadLog.Replayer() {
+            @Override
+            public void insert(long recordId, long dataFileBlockId, int slot, double[] point) {
+                DataHandler.beginIndexWrite();
+                try {
+                    inSession(() -> insertLeafEntry(new LeafEntry(recordId, dataFileBlockId, slot, point)));
+                } finally {
+                    DataHandler.endIndexWrite();
+                }
+            }
+
+            @Override
+            public void delete(long recordId, double[] point) {
+                DataHandler.beginIndexWrite();
+                try {
+                    inSession(() -> RStarTree.this.delete(recordId, point));
+                } finally {
+                    DataHandler.endIndexWrite();
+                }
+            }
+        });
+    }
+    public Node getRoot() {
+        return DataHandler.readIndexFileBlock(ROOT_BLOCKID);
+    }
+    public static int getRootBlockId() {
+        return ROOT_BLOCKID;
+    }
+    public static int getLeafLevel() {
+        return LEAF_LEVEL;
+    }
+
+
+    // Streams the record id, data file block and slot of every record inside the window to the consumer
+    public void rangeQuery(BoundingBox window, RangeQuery.ResultConsumer consumer) {
+        new RangeQuery(window).execute(consumer);
+    }
+
+    // Streams the id and point of every record inside the window to the consumer, from the index alone
+    public void rangeQueryPoints(BoundingBox window, RangeQuery.PointConsumer consumer) {
+        new RangeQuery(window).execute(consumer);
+    }
+
+    // Returns the number of records inside the window, from the index alone
+    public long rangeCount(BoundingBox window) {
+        return new RangeQuery(window).count();
+    }
+
+    // Returns the leaf entries of every record inside the window, walking the tree only as they are requested.
+    // The iterator holds a snapshot of the index until it is exhausted, so a caller that may stop early must close it,
+    // with try (CloseableIterator<LeafEntry> entries = tree.rangeQuery(window)) { ... }
+    public CloseableIterator<LeafEntry> rangeQuery(BoundingBox window) {
+        return new RangeQuery(window).iterator();
+    }
+
+    // Returns the leaf entries inside each of the windows, in the order of the windows,
+    // reading every node once for the whole batch
+    public ArrayList<ArrayList<LeafEntry>> rangeQueries(List<BoundingBox> windows) {
+        return new MultiRangeQuery(windows).execute();
+    }
+
+    // Returns the leaf entries of the k records closest to the point, in increasing distance from it
+    public ArrayList<LeafEntry> nearestNeighbours(double[] point, int k) {
+        return new NearestNeighboursQuery(point, k).execute();
+    }
+
+    // Streams the id and point of the k records closest to the point to the consumer, in increasing distance from it,
+    // from the index alone
+    public void nearestNeighbourPoints(double[] point, int k, RangeQuery.PointConsumer consumer) {
+        new NearestNeighboursQuery(point, k).execute(consumer);
+    }
+
+    // Returns the leaf entries of every record in increasing distance from the point,
+    // reading the index only as far as needed for the results requested so far. The iterator is only exhausted after
+    // every record, so it must be closed, with try (CloseableIterator<LeafEntry> nearest = tree.nearestNeighbours(point)) { ... }
+    public CloseableIterator<LeafEntry> nearestNeighbours(double[] point) {
+        return new NearestNeighboursIterator(point);
+    }
+
+    // Streams the record id, data file block and slot of every skyline record to the consumer as soon as it is found
+    public void skylineQuery(RangeQuery.ResultConsumer consumer) {
+        new SkylineQuery().execute(consumer);
+    }
+
+    // Returns the leaf entries of the skyline records, walking the tree only as they are requested.
+    // A caller that may stop before the last one must close the iterator, in a try-with-resources statement
+    public CloseableIterator<LeafEntry> skylineQuery() {
+        return new SkylineQuery().iterator();
+    }
+
+    // Rebuilds the index into a new index file in the background, packed with the default bulk load fill factor
+    public CompletableFuture<Void> repack() {
+        return repack(DEFAULT_BULK_LOAD_FILL_FACTOR);
+    }
+
+    // Rebuilds the index into a new index file in the background, with STR bulk loading, while queries, inserts and deletes
+    // go on, see IndexRepacker. The future completes once the new file has replaced the index file and the old one is closed
+    public CompletableFuture<Void> repack(double fillFactor) {
+        return new IndexRepacker(this, fillFactor).start();
+    }
+
+    // Inserts and deletes run one at a time, as writes of the index. Queries read from snapshots of the index,
+    // so they run alongside them without waiting and without seeing a half-done insert or delete.
+    // Each one is appended to the write-ahead log as part of its write, and returns once the log holds it durably
+    public void addRecord(Record record, long dataFileBlockId) {
+        addRecord(record, dataFileBlockId, LeafEntry.NO_SLOT);
+    }
+
+    // Inserts the record saved in the given slot of the given block of the data file, so that queries can read it with DataHandler.readRecord
+    public void addRecord(Record record, long dataFileBlockId, int slot) {
+        addRecords(Collections.singletonList(record), new long[] {dataFileBlockId}, new int[] {slot});
+    }
+
+    // Inserts the records in as few writes as the buffer pool allows, in which every node is written once however many
+    // of the records it receives. dataFileBlockIds holds the block of the data file each record is saved in
+    public void addRecords(List<Record> records, long[] dataFileBlockIds) {
+        int[] slots = new int[records.size()];
+        Arrays.fill(slots, LeafEntry.NO_SLOT);
+        addRecords(records, dataFileBlockIds, slots);
+    }
+
+    // Inserts the records, slots holding the slot of its data file block each record is saved in.
+    // With write-ahead logging the dirty index blocks cannot be evicted before a checkpoint, which is only taken between
+    // writes, so a batch changing more nodes than half of the buffer pool is split into several writes that each
+    // stay within it. Queries may then see the first part of such a batch before the rest
+    public void addRecords(List<Record> records, long[] dataFileBlockIds, int[] slots) {
+        if (records.size() != dataFileBlockIds.length || records.size() != slots.length)
+            throw new IllegalArgumentException("Every record must have the block and slot of the data file it is saved in");
+
+        long start = System.nanoTime();
+        long[] lsn = {0};
+        int inserted = 0;
+        while (inserted < records.size())
+            inserted = addRecordsInOneWrite(records, dataFileBlockIds, slots, inserted, lsn);
+        // Waiting after the writes have ended lets the inserts of other threads join the same group commit
+        DataHandler.awaitDurable(lsn[0]);
+        IndexMetrics.get().operationsEnded(IndexMetrics.Operation.INSERT, records.size(), start);
+    }
+
+    // Inserts the records from the given one on as a single write, until the nodes it changed reach the number of dirty
+    // index blocks the buffer pool has room for. At least one record is inserted. Returns the index of the first record
+    // left for the next write, and the log sequence number of the last insert logged in lsn
+    private int addRecordsInOneWrite(List<Record> records, long[] dataFileBlockIds, int[] slots, int from, long[] lsn) {
+        int[] next = {from};
+        DataHandler.beginIndexWrite();
+        try {
+            int maxDirtyNodes = DataHandler.getDirtyIndexBlockAllowance();
+            inSession(() -> {
+                do {
+                    int i = next[0]++;
+                    Record record = records.get(i);
+                    double[] point = record.getCoordinates();
+                    lsn[0] = DataHandler.logInsert(record.getId(), dataFileBlockIds[i], slots[i], point);
+                    insertLeafEntry(new LeafEntry(record.getId(), dataFileBlockIds[i], slots[i], point));
+                } while (next[0] < records.size() && session.getDirtyNodeCount() < maxDirtyNodes);
+            });
+            if (capturedOperations != null)
+                for (int i = from; i < next[0]; i++) {
+                    long recordId = records.get(i).getId();
+                    long dataFileBlockId = dataFileBlockIds[i];
+                    int slot = slots[i];
+                    double[] point = records.get(i).getCoordinates();
+                    capturedOperations.add(replayer -> replayer.insert(recordId, dataFileBlockId, slot, point));
+                }
+        } finally {
+            DataHandler.endIndexWrite();
+        }
+        return next[0];
+    }
+
+    private void insertLeafEntry(LeafEntry entry) {
+        levelsInserted = new boolean[levels];
+        insert(null,null, entry, LEAF_LEVEL);
+    }
+
+    // Runs the changes of a write in a new insertion session, writing every node they changed once at the end.
+    // If the changes fail, none of them reach the index
+    private void inSession(Runnable changes) {
+        inSession(() -> {
+            changes.run();
+            return null;
+        });
+    }
+
+    private <T> T inSession(Supplier<T> changes) {
+        session = new InsertionSession();
+        try {
+            T result = changes.get();
+            session.commit(levels);
+            return result;
+        } catch (RuntimeException e) {
+            levels = (int) DataHandler.getTotalLevelsOfTreeIndex();
+            throw e;
+        } finally {
+            session = null;
+        }
+    }
+
+    // Algorithm Delete. Removes the leaf entry of the record with the given id and point from the tree,
+    // returning false if there is no such entry. The record itself stays in the data file
+    public boolean deleteRecord(long recordId, double[] point) {
+        if (point.length != DataHandler.getDataDimensions())
+            throw new IllegalArgumentException("The point must have a coordinate for each of the " + DataHandler.getDataDimensions() + " dimensions");
+
+        long start = System.nanoTime();
+        long lsn;
+        boolean deleted;
+        DataHandler.beginIndexWrite();
+        try {
+            lsn = DataHandler.logDelete(recordId, point);
+            deleted = inSession(() -> delete(recordId, point));
+            if (deleted && capturedOperations != null)
+                capturedOperations.add(replayer -> replayer.delete(recordId, point));
+        } finally {
+            DataHandler.endIndexWrite();
+        }
+        DataHandler.awaitDurable(lsn);
+        IndexMetrics.get().operationEnded(IndexMetrics.Operation.DELETE, start);
+        return deleted;
+    }
+
+    // Starts capturing the inserts and deletes committed from now on and returns a snapshot of the index as of now,
+    // for a repack to build its tree from
+    IndexSnapshot startCapturingWrites() {
+        DataHandler.beginIndexWrite();
+        try {
+            capturedOperations = new ArrayList<>();
+            return DataHandler.openIndexSnapshot();
+        } finally {
+            DataHandler.endIndexWrite();
+        }
+    }
+
+    // Drops the captured writes of a repack that failed before it replaced the index
+    void stopCapturingWrites() {
+        DataHandler.beginIndexWrite();
+        capturedOperations = null;
+        DataHandler.endIndexWrite();
+    }
+
+    // Replaces the index with the tree a repack built in the repack file and applies to it the writes captured since its
+    // snapshot, all in one write, so that the snapshots opened from now on see the repacked tree with every committed write.
+    // Writers wait for the captured writes to be applied, queries never wait
+    void replaceWithRepackedTree(PageFile repackFile, int repackedLevels, long totalBlocks) {
+        DataHandler.beginIndexWrite();
+        try {
+            ArrayList<Consumer<WriteAheadLog.Replayer>> operations = capturedOperations;
+            capturedOperations = null;
+            try {
+                DataHandler.replaceIndexFile(repackFile, totalBlocks, repackedLevels);
+                levels = repackedLevels;
+                WriteAheadLog.Replayer replayer = new WriteAheadLog.Replayer() {
+                    @Override
+                    public void insert(long recordId, long dataFileBlockId, int slot, double[] point) {
+                        insertLeafEntry(new LeafEntry(recordId, dataFileBlockId, slot, point));
+                    }
+
+                    @Override
+                    public void delete(long recordId, double[] point) {
+                        RStarTree.this.delete(recordId, point);
+                    }
+                };
+                // A session for every operation, since FindLeaf reads the nodes written by the sessions before
+                for (Consumer<WriteAheadLog.Replayer> operation : operations)
+                    inSession(() -> operation.accept(replayer));
+            } catch (RuntimeException e) {
+                DataHandler.rollBackIndexFileReplacement(repackFile);
+                levels = (int) DataHandler.getTotalLevelsOfTreeIndex();
+                throw e;
+            }
+            try {
+                DataHandler.installIndexFile();
+            } catch (RuntimeException e) {
+                // The install rolled back to the replaced index file
+                levels = (int) DataHandler.getTotalLevelsOfTreeIndex();
+                throw e;
+            }
+        } finally {
+            DataHandler.endIndexWrite();
+        }
+    }
+
+    private boolean delete(long recordId, double[] point) {
+        // D1: Find the leaf node containing the record, keeping the block ids of the nodes on the path to it
+        ArrayList<Long> path = new ArrayList<>();
+        if (!findLeaf(ROOT_BLOCKID, recordId, point, path))
+            return false;
+
+        // D2: Remove the entry from the leaf
+        Node leafNode = session.readNode(path.get(path.size()-1));
+        ArrayList<Entry> leafEntries = leafNode.getEntries();
+        for (int i = 0; i < leafEntries.size(); i++) {
+            if (((LeafEntry) leafEntries.get(i)).getRecordId() == recordId && isAtPoint(leafEntries.get(i), point)) {
+                leafEntries.remove(i);
+                break;
+            }
+        }
+
+        // D3: Propagate changes upwards by invoking CondenseTree
+        ArrayList<Node> eliminatedNodes = condenseTree(path, leafNode);
+
+        // Reinsert all entries of the eliminated nodes, each at the level of the node it was removed from,
+        // so that the entries of internal nodes are placed higher in the tree and their subtrees stay intact
+        for (Node eliminatedNode : eliminatedNodes) {
+            for (Entry entry : eliminatedNode.getEntries()) {
+                levelsInserted = new boolean[levels];
+                insert(null,null,entry,(int) eliminatedNode.getLevel());
+            }
+        }
+
+        // D4: If the root node has only one child after the tree has been adjusted, make the child the new root
+        shrinkRoot();
+        return true;
+    }
+
+    // Algorithm FindLeaf. Descends into every entry whose box contains the point, until a leaf with the record is found.
+    // On success, path holds the block ids of the nodes from the root down to that leaf
+    private boolean findLeaf(long blockId, long recordId, double[] point, ArrayList<Long> path) {
+        path.add(blockId);
+        try (NodeView node = DataHandler.readIndexNodeView(blockId)) {
+            for (int i = 0; i < node.getEntryCount(); i++) {
+                if (!node.contains(i, point))
+                    continue;
+                if (node.isLeaf()) {
+                    if (node.recordId(i) == recordId)
+                        return true;
+                } else if (findLeaf(node.child(i), recordId, point, path))
+                    return true;
+            }
+        }
+        path.remove(path.size()-1);
+        return false;
+    }
+
+    private static boolean isAtPoint(Entry entry, double[] point) {
+        BoundingBox box = entry.getBoundingBox();
+        for (int d = 0; d < point.length; d++)
+            if (box.getLower(d) != point[d] || box.getUpper(d) != point[d])
+                return false;
+        return true;
+    }
+
+    // Algorithm CondenseTree. Walks the path from the leaf the entry was removed from up to the root.
+    // Every node left with fewer than the minimum entries is removed from its parent and its block freed, the boxes of the
+    // parent entries of the rest are tightened to fit them. Returns the eliminated nodes, whose entries must be reinserted
+    private ArrayList<Node> condenseTree(ArrayList<Long> path, Node leafNode) {
+        ArrayList<Node> eliminatedNodes = new ArrayList<>();
+        Node node = leafNode;
+        for (int i = path.size()-1; i > 0; i--) {
+            Node parentNode = session.readNode(path.get(i-1));
+            Entry parentEntry = null;
+            for (Entry entry : parentNode.getEntries())
+                if (entry.getBlockIdOfChildNode() == node.getBlockId())
+                    parentEntry = entry;
+            if (parentEntry == null)
+                throw new IllegalStateException("Block " + node.getBlockId() + " is not a child of block " + parentNode.getBlockId());
+
+            // CT3: If the node has fewer than m entries, delete its entry from the parent and add it to the eliminated nodes
+            if (node.getEntries().size() < Node.getMinEntriesInNode()) {
+                parentNode.getEntries().remove(parentEntry);
+                eliminatedNodes.add(node);
+                session.freeBlock(node.getBlockId());
+            }
+            // CT4: Otherwise adjust the bounding box of its parent entry to tightly contain all entries of the node
+            else {
+                session.markDirty(node);
+                parentEntry.setBoundingBoxToFitEntries(node.getEntries());
+            }
+            node = parentNode;
+        }
+        session.markDirty(node);
+        return eliminatedNodes;
+    }
+
+    // While the root is an internal node with a single child, the child is copied into the root block
+    // and the tree loses a level. The block the child leaves is freed
+    private void shrinkRoot() {
+        while (levels > LEAF_LEVEL) {
+            Node root = session.readNode(ROOT_BLOCKID);
+            if (root.getEntries().size() != 1)
+                return;
+            long childBlockId = root.getEntries().get(0).getBlockIdOfChildNode();
+            session.moveNode(session.readNode(childBlockId), ROOT_BLOCKID);
+            session.freeBlock(childBlockId);
+            --levels;
+        }
+    }
+
+    // Inserts nodes recursively. As an optimization, the algorithm steps are
+    // in a different order. If this returns a non null Entry, then
+    // that Entry should be added to the caller's Node of the R-tree
+    private Entry insert(Node parentNode,Entry parentEntry,Entry dataEntry,int levelToAdd) {
+        Node childNode;
+        long idToRead;
+
+        if (parentEntry == null)
+            idToRead = ROOT_BLOCKID;
+        else {
+            // Updating-Adjusting the bounding box of the Entry that points to the Updated Node
+            parentEntry.setBoundingBoxToFitEntries(dataEntry);
+            session.markDirty(parentNode);
+            idToRead = parentEntry.getBlockIdOfChildNode();
+        }
+        childNode = session.readNode(idToRead);
+
+        // CS2: If we're at a leaf (or the level we wanted to insert the dataEntry), then use that level
+        // I2: If N has less than M items, accommodate E in N
+        if (childNode.getLevel() == levelToAdd) {
+            childNode.addEntry(dataEntry);
+            session.markDirty(childNode);
+        }
+        else {
+            // I1: Invoke ChooseSubtree. with the level as a parameter,
+            // to find an appropriate node N, m which to place the new leaf E
+
+            // Recurse to get the node that the new data entry will fit better
+            Entry bestEntry = chooseSubTree(childNode,dataEntry.getBoundingBox(),levelToAdd);
+            // Receiving a new Entry if the recursion caused the next level's Node to split
+            // The session returns the same Node object for a block, so childNode already holds the changes made below it
+            Entry newEntry = insert(childNode,bestEntry,dataEntry,levelToAdd);
+
+            //If split was called on children, the new entry that the split caused gets joined to the list of items at this level
+            if (newEntry != null) {
+                childNode.addEntry(newEntry);
+                session.markDirty(childNode);
+            } else {
+                //no split was called on children, returning null upwards
+                return null;
+            }
+        }
+        // If N has M+1 items, call overflowHandler with the level of N as a parameter [for reinsertion or split]
+        if (childNode.getEntries().size() > Node.getMaxEntriesInNode()) {
+            // I3: If overfowHandler was called and a split was performed, propagate overflowHandler upwards if necessary
+            return overflowHandler(parentNode,parentEntry,childNode);
+        }
+        return null;
+    }
+
+    // Returns the best Entry of the sub tree to place the new index entry
+    // The loop portion of this algorithm is taken out, so it only picks a subtree at that particular level.
+    // The entries are scored into the primitive arrays of the tree, reused by every call, so nothing is allocated per entry.
+    // Package-private for the ChooseSubtree benchmark
+    Entry chooseSubTree(Node node, BoundingBox boundingBoxToAdd, int levelToAdd) {
+        ArrayList<Entry> entries = node.getEntries();
+        double[] boxToAdd = boundingBoxToAdd.getPackedBounds();
+        if (areas.length < entries.size()) {
+            areas = new double[entries.size()];
+            areaEnlargements = new double[entries.size()];
+            candidates = new int[entries.size()];
+        }
+        if (enlargedBox.length != boxToAdd.length)
+            enlargedBox = new double[boxToAdd.length];
+        for (int i = 0; i < entries.size(); i++) {
+            double[] box = entries.get(i).getBoundingBox().getPackedBounds();
+            areas[i] = BoundingBox.area(box);
+            areaEnlargements[i] = BoundingBox.unionArea(box, boxToAdd) - areas[i];
+        }
+
+        // If the child pointers in N do not point to leaves: determine the minimum area cost],
+        // choose the leaf in N whose rectangle needs least area enlargement to include the new data
+        // rectangle. Resolve ties by choosing the leaf with the rectangle of smallest area
+        if (node.getLevel() != levelToAdd+1) {
+            int best = 0;
+            for (int i = 1; i < entries.size(); i++)
+                if (compareAreaEnlargement(i, best) < 0)
+                    best = i;
+            IndexMetrics.get().chooseSubtree(0);
+            return entries.get(best);
+        }
+
+        // If the child pointers in N point to leaves: choose the entry in the node whose rectangle needs least overlap
+        // enlargement to include the new data rectangle. Resolve ties by choosing the entry whose rectangle needs
+        // least area enlargement, then the entry with the rectangle of smallest area
+        int candidateCount = entries.size();
+        for (int i = 0; i < candidateCount; i++)
+            candidates[i] = i;
+        // Alternative for large node sizes, determine the nearly minimum overlap cost: only the first p entries
+        // in increasing order of area enlargement are candidates, picked by partial selection instead of a full sort
+        if (Node.getMaxEntriesInNode() > (CHOOSE_SUBTREE_P_ENTRIES *2)/3 && candidateCount > CHOOSE_SUBTREE_P_ENTRIES) {
+            selectLeastAreaEnlargement(candidateCount, CHOOSE_SUBTREE_P_ENTRIES);
+            candidateCount = CHOOSE_SUBTREE_P_ENTRIES;
+        }
+
+        int best = -1;
+        double bestOverlapIncrease = Double.MAX_VALUE;
+        for (int c = 0; c < candidateCount; c++) {
+            int i = candidates[c];
+            double[] box = entries.get(i).getBoundingBox().getPackedBounds();
+            // A rectangle that already contains the new one keeps its overlap
+            double overlapIncrease = BoundingBox.contains(box, boxToAdd) ? 0 : overlapIncrease(entries, i, boxToAdd, bestOverlapIncrease);
+            if (best == -1 || overlapIncrease < bestOverlapIncrease || (overlapIncrease == bestOverlapIncrease && compareAreaEnlargement(i, best) < 0)) {
+                best = i;
+                bestOverlapIncrease = overlapIncrease;
+            }
+        }
+        IndexMetrics.get().chooseSubtree(candidateCount);
+        return entries.get(best);
+    }
+
+    // Increase of the overlap of the i-th entry with every other entry of the node, when its rectangle is enlarged
+    // to include boxToAdd. No term is negative, so the sum stops as soon as it exceeds limit, the increase of
+    // the best entry so far, since the entry can no longer be chosen
+    private double overlapIncrease(ArrayList<Entry> entries, int i, double[] boxToAdd, double limit) {
+        double[] box = entries.get(i).getBoundingBox().getPackedBounds();
+        BoundingBox.union(box, boxToAdd, enlargedBox);
+        double overlapIncrease = 0;
+        for (int j = 0; j < entries.size(); j++) {
+            if (j == i)
+                continue;
+            double[] otherBox = entries.get(j).getBoundingBox().getPackedBounds();
+            double enlargedOverlap = BoundingBox.overlap(enlargedBox, otherBox);
+            if (enlargedOverlap == 0) // Then the rectangle did not overlap the other one before being enlarged either
+                continue;
+            overlapIncrease += enlargedOverlap - BoundingBox.overlap(box, otherBox);
+            if (overlapIncrease > limit)
+                break;
+        }
+        return overlapIncrease;
+    }
+
+    // Orders entries i and j by the area enlargement they need, then by their area, then by their position in the node
+    private int compareAreaEnlargement(int i, int j) {
+        if (areaEnlargements[i] != areaEnlargements[j])
+            return Double.compare(areaEnlargements[i], areaEnlargements[j]);
+        if (areas[i] != areas[j])
+            return Double.compare(areas[i], areas[j]);
+        return Integer.compare(i, j);
+    }
+
+    // Partial selection (quickselect): reorders candidates[0, count) so that its first k entries
+    // are the k that need least area enlargement, in no particular order
+    private void selectLeastAreaEnlargement(int count, int k) {
+        int from = 0;
+        int to = count - 1;
+        while (from < to) {
+            int pivot = candidates[(from + to) >>> 1];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (compareAreaEnlargement(candidates[i], pivot) < 0)
+                    i++;
+                while (compareAreaEnlargement(candidates[j], pivot) > 0)
+                    j--;
+                if (i <= j) {
+                    int swapped = candidates[i];
+                    candidates[i++] = candidates[j];
+                    candidates[j--] = swapped;
+                }
+            }
+            // candidates[from, j] come before candidates[i, to], and any between them are the pivot
+            if (k - 1 <= j)
+                to = j;
+            else if (k - 1 >= i)
+                from = i;
+            else
+                return;
+        }
+    }
+
+    // Algorithm OverflowTreatment
+    private Entry overflowHandler(Node parentNode, Entry parentEntry, Node childNode) {
+
+        // If the level is not the root level and this is the first call of OverflowTreatment
+        // in the given level during the insertion of one data rectangle, then reinsert
+        if (childNode.getBlockId() != ROOT_BLOCKID && !levelsInserted[(int) (childNode.getLevel()-1)])
+        {
+            levelsInserted[(int) (childNode.getLevel()-1)] = true; // Mark level as already inserted
+            IndexMetrics.get().forcedReinsert(childNode.getLevel());
+            reInsert(parentNode,parentEntry,childNode);
+            return null;
+        }
+
+        // Else invoke Split
+        IndexMetrics.get().split(childNode.getLevel());
+        ArrayList<Node> splitNodes = childNode.split(splitBuffers); // The two nodes occurring after the split
+        if (splitNodes.size() != 2)
+            throw new IllegalStateException("The resulting Nodes after a split cannot be more or less than two");
+        childNode.setEntries(splitNodes.get(0).getEntries()); // Adjusting the previous Node with the new entries
+        Node splitNode = splitNodes.get(1); // The new Node that occurred from the split
+
+        // Marking the split nodes as changed, the new one gets a new block
+        if (childNode.getBlockId() != ROOT_BLOCKID)
+        {
+            session.markDirty(childNode);
+            session.addNode(splitNode);
+
+            // Propagate the overflow treatment upwards, to fit the entry on the caller's level Node
+            parentEntry.setBoundingBoxToFitEntries(childNode.getEntries()); // Adjusting the bounding box of the Entry that points to the updated Node
+            session.markDirty(parentNode);
+            return new Entry(splitNode);
+        }
+
+        // Else if OverflowTreatment caused a split of the root, create a new root
+
+        // Moving the two Nodes of the split to new blocks
+        session.addNode(childNode);
+        session.addNode(splitNode);
+
+        // Updating the root Node-block with the new root Node
+        ArrayList<Entry> newRootEntries = new ArrayList<>();
+        newRootEntries.add(new Entry(childNode));
+        newRootEntries.add(new Entry(splitNode));
+        Node newRoot = new Node(++levels,newRootEntries);
+        newRoot.setBlockId(ROOT_BLOCKID);
+        session.markDirty(newRoot);
+        return null;
+    }
+
+    // Algorithm reinsert
+    private void reInsert(Node parentNode, Entry parentEntry, Node childNode) {
+
+        if(childNode.getEntries().size() != Node.getMaxEntriesInNode() + 1)
+            throw new IllegalStateException("Cannot throw reinsert for node with total entries fewer than M+1");
+
+        // RI1 For all M+l items of a node N, compute the distance between the centers of their rectangles
+        // and the center of the bounding rectangle of N
+
+        // RI2: Sort the items in INCREASING order (since then we use close reinsert)
+        // of their distances computed in RI1
+        sortByDistanceFromCenter(childNode.getEntries(), parentEntry.getBoundingBox().getPackedBounds());
+        ArrayList<Entry> removedEntries = new ArrayList<>(childNode.getEntries().subList(childNode.getEntries().size()-REINSERT_P_ENTRIES,childNode.getEntries().size()));
+
+        // RI3: Remove the last p items from N (since then we use close reinsert) and adjust the bounding rectangle of N
+        for(int i = 0; i < REINSERT_P_ENTRIES; i++)
+            childNode.getEntries().remove(childNode.getEntries().size()-1);
+
+        // Updating bounding box of node and to the parent entry
+        parentEntry.setBoundingBoxToFitEntries(childNode.getEntries());
+        session.markDirty(parentNode);
+        session.markDirty(childNode);
+
+        // RI4: In the sort, defined in RI2, starting with the minimum distance (= close reinsert),
+        // invoke Insert to reinsert the items
+        if(removedEntries.size() != REINSERT_P_ENTRIES)
+            throw new IllegalStateException("Entries queued for reinsert have different size than the ones that were removed");
+
+        for (Entry entry : removedEntries)
+            insert(null,null,entry,(int) childNode.getLevel());
+    }
+
+    // Sorts the entries by the distance of the center of their box from the center of the given box, keeping entries
+    // at equal distances in their order. The distances are computed once into an array and their positions sorted
+    private void sortByDistanceFromCenter(ArrayList<Entry> entries, double[] box) {
+        int count = entries.size();
+        for (int i = 0; i < count; i++) {
+            reinsertOrder[i] = i;
+            reinsertDistances[i] = BoundingBox.centerDistance(entries.get(i).getBoundingBox().getPackedBounds(), box);
+        }
+        Node.mergeSort(reinsertOrder, reinsertScratch, reinsertDistances, 0, count);
+        Entry[] sorted = new Entry[count];
+        for (int i = 0; i < count; i++)
+            sorted[i] = entries.get(reinsertOrder[i]);
+        for (int i = 0; i < count; i++)
+            entries.set(i, sorted[i]);
+    }
+
+
+}
@@ -0,0 +1,214 @@
+package rstar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Window query: finds every record whose point lies in a given BoundingBox.
+ * <p>
+ * The tree is walked depth-first with an explicit stack of block ids, descending only into entries whose
+ * box intersects the window. Nodes are read as NodeViews, so the traversal tests the boxes straight from
+ * the page bytes, and results are streamed to the caller as they are found instead of being collected.
+ * Nodes are read from an IndexSnapshot, so the query sees the tree as it was when it started.
+ * <p>
+ * Every result comes from the leaf entries alone, which hold the id of each record and its point as the bounds of
+ * its box, so no form of the query reads the data file. Callers that need the whole record read it with
+ * DataHandler.readRecord. Counting goes one step further: the entries of a node whose box lies inside the window
+ * are counted without testing them against it.
+ */
+public class RangeQuery implements IndexQuery {
+    private final BoundingBox window;
+
+    // Receives every result of a query as soon as it is found
+    public interface ResultConsumer {
+        void accept(long recordId, long dataFileBlockId, int slot);
+    }
+
+    // Receives the id and the point of every result of a query as soon as it is found. The array of the point is
+    // reused for the next result, so it must be copied to be kept
+    public interface PointConsumer {
+        void accept(long recordId, double[] point);
+    }
+
+    public RangeQuery(BoundingBox window) {
+        if (window.getDimensions() != DataHandler.getDataDimensions())
+            throw new IllegalArgumentException("The window must have bounds for each of the " + DataHandler.getDataDimensions() + " dimensions");
+        this.window = window;
+    }
+
+    public BoundingBox getWindow() {
+        return window;
+    }
+
+    // Passes the record id, data file block and slot of every leaf entry in the window to the consumer
+    public void execute(ResultConsumer consumer) {
+        try (IndexSnapshot snapshot = DataHandler.openIndexSnapshot()) {
+            traverse(snapshot, (leaf, i) -> consumer.accept(leaf.recordId(i), leaf.dataFileBlockId(i), leaf.slot(i)));
+        }
+    }
+
+    // Passes the id and point of every leaf entry in the window to the consumer, copying nothing but the point out of the pages
+    public void execute(PointConsumer consumer) {
+        double[] point = new double[DataHandler.getDataDimensions()];
+        try (IndexSnapshot snapshot = DataHandler.openIndexSnapshot()) {
+            traverse(snapshot, (leaf, i) -> {
+                leaf.point(i, point);
+                consumer.accept(leaf.recordId(i), point);
+            });
+        }
+    }
+
+    // Returns the number of records in the window
+    public long count() {
+        try (IndexSnapshot snapshot = DataHandler.openIndexSnapshot()) {
+            return count(snapshot);
+        }
+    }
+
+    // Counts the leaf entries in the window, reading the nodes from the given reader. The nodes whose box lies inside the
+    // window are kept on a stack of their own, all of their entries are in it
+    public long count(NodeReader nodes) {
+        IndexMetrics.QueryTrace trace = IndexMetrics.startQuery(IndexMetrics.Operation.RANGE_COUNT_QUERY);
+        BlockIdStack stack = new BlockIdStack();
+        BlockIdStack containedStack = new BlockIdStack();
+        stack.push(RStarTree.getRootBlockId());
+        long count = 0;
+        while (!stack.isEmpty() || !containedStack.isEmpty()) {
+            boolean contained = stack.isEmpty();
+            trace.nodeVisited();
+            try (NodeView node = nodes.readNodeView(contained ? containedStack.pop() : stack.pop())) {
+                if (contained && node.isLeaf())
+                    count += node.getEntryCount();
+                else
+                    for (int i = 0; i < node.getEntryCount(); i++) {
+                        if (contained)
+                            containedStack.push(node.child(i));
+                        else if (!node.intersects(i, window))
+                            continue;
+                        else if (node.isLeaf())
+                            count++;
+                        else if (node.within(i, window))
+                            containedStack.push(node.child(i));
+                        else
+                            stack.push(node.child(i));
+                    }
+            }
+        }
+        trace.end();
+        return count;
+    }
+
+    // Returns the leaf entries in the window, reading the nodes from the given reader
+    @Override
+    public ArrayList<LeafEntry> execute(NodeReader nodes) {
+        ArrayList<LeafEntry> matches = new ArrayList<>();
+        traverse(nodes, (leaf, i) -> matches.add(leaf.toLeafEntry(i)));
+        return matches;
+    }
+
+    // Walks the nodes intersecting the window, passing every leaf entry in it to the consumer while its leaf is read
+    private void traverse(NodeReader nodes, LeafMatchConsumer consumer) {
+        IndexMetrics.QueryTrace trace = IndexMetrics.startQuery(IndexMetrics.Operation.RANGE_QUERY);
+        BlockIdStack stack = new BlockIdStack();
+        stack.push(RStarTree.getRootBlockId());
+        while (!stack.isEmpty()) {
+            trace.nodeVisited();
+            try (NodeView node = nodes.readNodeView(stack.pop())) {
+                for (int i = 0; i < node.getEntryCount(); i++) {
+                    if (!node.intersects(i, window))
+                        continue;
+                    if (node.isLeaf())
+                        consumer.accept(node, i);
+                    else
+                        stack.push(node.child(i));
+                }
+            }
+        }
+        trace.end();
+    }
+
+    private interface LeafMatchConsumer {
+        void accept(NodeView leaf, int entryIndex);
+    }
+
+    // Returns the leaf entries in the window lazily: the tree is walked only as far as needed for the next result.
+    // The matches of a leaf are copied out of its page when the leaf is reached, so no block stays pinned between calls.
+    // The iterator reads from a snapshot of the index that stays open until the last result has been returned or the
+    // iterator is closed
+    public CloseableIterator<LeafEntry> iterator() {
+        return new CloseableIterator<>() {
+            private final IndexSnapshot snapshot = DataHandler.openIndexSnapshot();
+            private final IndexMetrics.QueryTrace trace = IndexMetrics.startQuery(IndexMetrics.Operation.RANGE_QUERY);
+            private final BlockIdStack stack = new BlockIdStack();
+            private final ArrayList<LeafEntry> leafMatches = new ArrayList<>();
+            private int nextMatch;
+            private boolean closed;
+
+            {
+                stack.push(RStarTree.getRootBlockId());
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (!closed && nextMatch == leafMatches.size() && !stack.isEmpty()) {
+                    leafMatches.clear();
+                    nextMatch = 0;
+                    trace.nodeVisited();
+                    try (NodeView node = snapshot.readNodeView(stack.pop())) {
+                        for (int i = 0; i < node.getEntryCount(); i++) {
+                            if (!node.intersects(i, window))
+                                continue;
+                            if (node.isLeaf())
+                                leafMatches.add(node.toLeafEntry(i));
+                            else
+                                stack.push(node.child(i));
+                        }
+                    }
+                }
+                if (nextMatch < leafMatches.size())
+                    return true;
+                close();
+                return false;
+            }
+
+            @Override
+            public void close() {
+                if (closed)
+                    return;
+                closed = true;
+                leafMatches.clear();
+                nextMatch = 0;
+                snapshot.close();
+                trace.end();
+            }
+
+            @Override
+            public LeafEntry next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return leafMatches.get(nextMatch++);
+            }
+        };
+    }
+
+    // Stack of block ids kept in a primitive array, so pushing a child does not box it
+    static class BlockIdStack {
+        private long[] blockIds = new long[64];
+        private int size;
+
+        void push(long blockId) {
+            if (size == blockIds.length)
+                blockIds = Arrays.copyOf(blockIds, size * 2);
+            blockIds[size++] = blockId;
+        }
+
+        long pop() {
+            return blockIds[--size];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
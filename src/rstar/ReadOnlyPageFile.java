@@ -0,0 +1,44 @@
+package rstar;
+
+import java.io.IOException;
+import java.util.Map;
+
+// A PageFile opened for reading only, as it is after a checkpoint torn by a crash is finished: the blocks kept by
+// the double-write buffer are read from their copies there instead of from the file, which is left as it is.
+// Writing a block fails
+class ReadOnlyPageFile extends PageFile {
+    private final Map<Long, byte[]> restoredBlocks; // Blocks of the torn checkpoint by block id, read instead of the file's
+
+    ReadOnlyPageFile(String filename, int blockSize, Map<Long, byte[]> restoredBlocks) {
+        super(filename, blockSize, true);
+        this.restoredBlocks = restoredBlocks;
+    }
+
+    @Override
+    public void readBlock(long blockId, byte[] block) throws IOException {
+        byte[] restored = restoredBlocks.get(blockId);
+        if (restored == null)
+            super.readBlock(blockId, block);
+        else
+            System.arraycopy(restored, 0, block, 0, getBlockSize());
+    }
+
+    @Override
+    public void read(long blockId, int offset, byte[] bytes) throws IOException {
+        byte[] restored = restoredBlocks.get(blockId);
+        if (restored == null)
+            super.read(blockId, offset, bytes);
+        else
+            System.arraycopy(restored, offset, bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void writeBlock(long blockId, byte[] block) {
+        throw new IllegalStateException(getFilename() + " is open for reading only");
+    }
+
+    @Override
+    public void writeBlocks(long firstBlockId, byte[] blocks, int blockCount) {
+        throw new IllegalStateException(getFilename() + " is open for reading only");
+    }
+}
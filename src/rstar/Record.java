@@ -1,7 +1,12 @@
+package rstar;
 
+
+import java.io.Serializable;
 import java.util.ArrayList;
 
-public class Record {
+public class Record implements Serializable {
+    // Fixed to the value computed for the class before getCoordinates was added, so that existing data files stay readable
+    private static final long serialVersionUID = -588035161984651734L;
     private long id;
     private ArrayList<Double> coordinates;
 
@@ -10,6 +15,13 @@ public class Record {
         this.coordinates = coordinates;
     }
 
+    public Record(long id, double[] coordinates) {
+        this.id = id;
+        this.coordinates = new ArrayList<>(coordinates.length);
+        for (double coordinate : coordinates)
+            this.coordinates.add(coordinate);
+    }
+
     Record(String recordInString)
     {
         String[] stringArray;
@@ -31,6 +43,13 @@ public class Record {
     public double getCoordinateInDimension(int dimension) {
         return coordinates.get(dimension);
     }
+    // The coordinates of every dimension, copied into a new array
+    public double[] getCoordinates() {
+        double[] point = new double[coordinates.size()];
+        for (int i = 0; i < point.length; i++)
+            point[i] = coordinates.get(i);
+        return point;
+    }
     @Override
     public String toString() {
         StringBuilder recordToString = new StringBuilder(id + "," + coordinates.get(0));
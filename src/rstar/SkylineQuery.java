@@ -0,0 +1,144 @@
+package rstar;
+
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Skyline query with the branch-and-bound skyline (BBS) algorithm of Papadias et al.
+ * <p>
+ * A record is in the skyline if no other record dominates it, i.e. is smaller or equal in every dimension and
+ * strictly smaller in at least one. Entries are visited in increasing mindist from the origin, the sum of the
+ * lower bounds of their box, so a record can only be dominated by records visited before it: every record
+ * taken from the queue and not dominated by the skyline found so far is a skyline record and is returned at once.
+ * An entry whose lower corner is dominated by a skyline record is discarded, both when it is queued and when
+ * it is taken out, so only the nodes that may hold skyline records are read.
+ */
+public class SkylineQuery {
+    private final int dimensions;
+
+    public SkylineQuery() {
+        this.dimensions = DataHandler.getDataDimensions();
+    }
+
+    // Passes the record id, data file block and slot of every skyline record to the consumer, as soon as each one is found
+    public void execute(RangeQuery.ResultConsumer consumer) {
+        try (CloseableIterator<LeafEntry> skyline = iterator()) {
+            while (skyline.hasNext()) {
+                LeafEntry entry = skyline.next();
+                consumer.accept(entry.getRecordId(), entry.getDataFileBlockId(), entry.getSlot());
+            }
+        }
+    }
+
+    // Returns the leaf entries of the skyline records in increasing mindist from the origin, reading the index
+    // only as far as needed for the next one. No block stays pinned between calls, and the nodes are read from
+    // a snapshot of the index that stays open until the last record has been returned or the iterator is closed
+    public CloseableIterator<LeafEntry> iterator() {
+        return new CloseableIterator<>() {
+            private final PriorityQueue<QueuedEntry> queue = new PriorityQueue<>((entryA, entryB) -> Double.compare(entryA.mindist, entryB.mindist));
+            private final ArrayList<double[]> skyline = new ArrayList<>();
+            private final IndexSnapshot snapshot = DataHandler.openIndexSnapshot();
+            private final IndexMetrics.QueryTrace trace = IndexMetrics.startQuery(IndexMetrics.Operation.SKYLINE_QUERY);
+            private LeafEntry next;
+            private boolean closed;
+
+            {
+                queue.add(new QueuedEntry(0, null, RStarTree.getRootBlockId(), null));
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (!closed && next == null && !queue.isEmpty()) {
+                    QueuedEntry queued = queue.poll();
+                    if (queued.lowerCorner != null && isDominated(skyline, queued.lowerCorner))
+                        continue;
+                    if (queued.entry != null) {
+                        skyline.add(queued.lowerCorner);
+                        next = queued.entry;
+                    } else
+                        expand(queued.childBlockId);
+                }
+                if (next != null)
+                    return true;
+                close();
+                return false;
+            }
+
+            @Override
+            public void close() {
+                if (closed)
+                    return;
+                closed = true;
+                next = null;
+                snapshot.close();
+                trace.end();
+            }
+
+            @Override
+            public LeafEntry next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                LeafEntry entry = next;
+                next = null;
+                return entry;
+            }
+
+            // Queues the entries of the node that are not dominated by the skyline found so far
+            private void expand(long blockId) {
+                trace.nodeVisited();
+                try (NodeView node = snapshot.readNodeView(blockId)) {
+                    double[] lowerCorner = new double[dimensions];
+                    for (int i = 0; i < node.getEntryCount(); i++) {
+                        double mindist = 0;
+                        for (int d = 0; d < dimensions; d++) {
+                            lowerCorner[d] = node.lower(i, d);
+                            mindist += lowerCorner[d];
+                        }
+                        if (isDominated(skyline, lowerCorner))
+                            continue;
+                        if (node.isLeaf())
+                            queue.add(new QueuedEntry(mindist, lowerCorner, 0, node.toLeafEntry(i)));
+                        else
+                            queue.add(new QueuedEntry(mindist, lowerCorner, node.child(i), null));
+                        lowerCorner = new double[dimensions];
+                    }
+                }
+            }
+        };
+    }
+
+    private boolean isDominated(ArrayList<double[]> skyline, double[] point) {
+        for (double[] skylinePoint : skyline)
+            if (dominates(skylinePoint, point))
+                return true;
+        return false;
+    }
+
+    // Whether a is smaller or equal to b in every dimension and strictly smaller in at least one
+    private boolean dominates(double[] a, double[] b) {
+        boolean strictlySmaller = false;
+        for (int d = 0; d < dimensions; d++) {
+            if (a[d] > b[d])
+                return false;
+            if (a[d] < b[d])
+                strictlySmaller = true;
+        }
+        return strictlySmaller;
+    }
+
+    // A node (entry is null) or a record waiting in the queue, with the lower corner of its box
+    private static class QueuedEntry {
+        private final double mindist;
+        private final double[] lowerCorner; // null for the root, which is never dominated
+        private final long childBlockId;
+        private final LeafEntry entry;
+
+        QueuedEntry(double mindist, double[] lowerCorner, long childBlockId, LeafEntry entry) {
+            this.mindist = mindist;
+            this.lowerCorner = lowerCorner;
+            this.childBlockId = childBlockId;
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package rstar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the quality of the tree in the index file level by level, to tell when the structure left by
+ * months of inserts has degraded enough that bulk loading it again pays off.
+ * <p>
+ * For every level it reports the number of nodes, their average and minimum fill relative to
+ * Node.getMaxEntriesInNode(), the total area (volume) and margin of their bounding boxes, the overlap between
+ * the boxes of the level, summed over every intersecting pair, and the dead space: the part of the boxes not
+ * covered by the boxes of their entries. The dead space is estimated by sampling DEAD_SPACE_SAMPLES points in
+ * every node, so it is exact to about 1/sqrt(DEAD_SPACE_SAMPLES * nodes) of the area of the level. A leaf of
+ * points has no area covered by its entries, its dead space is the whole of its box.
+ * <p>
+ * From the boxes it also estimates the page accesses of range queries, either for windows of given extents
+ * with centres uniform over the data space (the cost model of Kamel and Faloutsos: a node is read when the
+ * centre falls in its box grown by half the window on every side), or for a sample of actual query windows.
+ * <p>
+ * It also counts the blocks of the index file: those holding the nodes of the tree, the free ones that the next
+ * inserts reuse, and the leaked ones, which are in neither and stay unused until the index is repacked. Blocks leak
+ * when more are freed than block 0 has room for, or were freed by deletes in an index file written before the free
+ * blocks were kept.
+ * <p>
+ * The tree is read from a snapshot, so the analyzer runs online alongside inserts, which it does not see.
+ * Run on its own (main) it analyzes the index file of the working directory as of its last checkpoint, without
+ * changing any of the files of the index.
+ */
+public class TreeAnalyzer {
+    private static final int DEAD_SPACE_SAMPLES = 64; // Points sampled in every node to estimate its dead space
+    private final ArrayList<LevelReport> levels = new ArrayList<>(); // From the leaves up to the root
+    private final double[] dataSpace; // Packed bounds of the root's box
+    private final Random random = new Random(1);
+    private final long totalBlocks; // Blocks of the index file as of the snapshot, including block 0
+    private final int freeBlocks; // Free blocks of the index file as of the snapshot
+
+    // Walks the whole tree, from a snapshot of the index
+    public TreeAnalyzer() {
+        int dimensions = DataHandler.getDataDimensions();
+        ArrayList<ArrayList<double[]>> boxesPerLevel = new ArrayList<>();
+        IndexSnapshot snapshot;
+        // With no write in progress the blocks of the index file are those of the snapshot
+        DataHandler.lockIndexWrites();
+        try {
+            snapshot = DataHandler.openIndexSnapshot();
+            totalBlocks = DataHandler.getTotalBlocksInIndexFile();
+            freeBlocks = DataHandler.getFreeIndexBlocks().length;
+        } finally {
+            DataHandler.unlockIndexWrites();
+        }
+        try (snapshot) {
+            // Breadth first, the box of each node is the box of its entry in the parent
+            ArrayList<long[]> nodes = new ArrayList<>(); // Block id of each node of the level
+            ArrayList<double[]> boxes = new ArrayList<>(); // Box of each node of the level, null for the root
+            nodes.add(new long[] {RStarTree.getRootBlockId()});
+            boxes.add(null);
+            double[] rootBox = null;
+            while (!nodes.isEmpty()) {
+                ArrayList<long[]> children = new ArrayList<>();
+                ArrayList<double[]> childBoxes = new ArrayList<>();
+                LevelReport report = null;
+                for (int n = 0; n < nodes.size(); n++) {
+                    try (NodeView node = snapshot.readNodeView(nodes.get(n)[0])) {
+                        double[] box = boxes.get(n) != null ? boxes.get(n) : boxOfEntries(node, dimensions);
+                        if (rootBox == null)
+                            rootBox = box;
+                        if (report == null)
+                            report = new LevelReport(node.getLevel());
+                        report.addNode(node, box, deadSpaceFraction(node, box, dimensions));
+                        if (!node.isLeaf())
+                            for (int i = 0; i < node.getEntryCount(); i++) {
+                                children.add(new long[] {node.child(i)});
+                                childBoxes.add(entryBox(node, i, dimensions));
+                            }
+                        boxes.set(n, box);
+                    }
+                }
+                report.computeOverlap(boxes);
+                levels.add(0, report);
+                boxesPerLevel.add(0, boxes);
+                nodes = children;
+                boxes = childBoxes;
+            }
+            this.dataSpace = rootBox;
+        }
+        for (int l = 0; l < levels.size(); l++)
+            levels.get(l).boxes = boxesPerLevel.get(l);
+    }
+
+    private static double[] entryBox(NodeView node, int i, int dimensions) {
+        double[] box = new double[2 * dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            box[2 * d] = node.lower(i, d);
+            box[2 * d + 1] = node.upper(i, d);
+        }
+        return box;
+    }
+
+    // Box of every entry of the node, an empty box at the origin if there are none
+    private static double[] boxOfEntries(NodeView node, int dimensions) {
+        if (node.getEntryCount() == 0)
+            return new double[2 * dimensions];
+        double[] box = entryBox(node, 0, dimensions);
+        for (int i = 1; i < node.getEntryCount(); i++)
+            BoundingBox.union(box, entryBox(node, i, dimensions), box);
+        return box;
+    }
+
+    // Fraction of the sampled points of the box that are in none of the boxes of the node's entries
+    private double deadSpaceFraction(NodeView node, double[] box, int dimensions) {
+        if (BoundingBox.area(box) == 0)
+            return 0;
+        double[] point = new double[dimensions];
+        int uncovered = 0;
+        for (int s = 0; s < DEAD_SPACE_SAMPLES; s++) {
+            for (int d = 0; d < dimensions; d++)
+                point[d] = box[2 * d] + random.nextDouble() * (box[2 * d + 1] - box[2 * d]);
+            boolean covered = false;
+            for (int i = 0; i < node.getEntryCount() && !covered; i++)
+                covered = node.contains(i, point);
+            if (!covered)
+                uncovered++;
+        }
+        return (double) uncovered / DEAD_SPACE_SAMPLES;
+    }
+
+    // Reports of the levels, from the leaves up to the root
+    public List<LevelReport> getLevels() {
+        return levels;
+    }
+
+    // Blocks of the index file, including block 0 of its metadata
+    public long getTotalBlocks() {
+        return totalBlocks;
+    }
+
+    // Free blocks of the index file, which the next inserts reuse
+    public int getFreeBlocks() {
+        return freeBlocks;
+    }
+
+    // Blocks of the index file that hold no node of the tree and are not free either
+    public long getLeakedBlocks() {
+        long nodes = 0;
+        for (LevelReport level : levels)
+            nodes += level.getNodes();
+        return totalBlocks - 1 - nodes - freeBlocks;
+    }
+
+    // Expected nodes read by a range query whose window has the given extent in every dimension and whose
+    // centre is uniform over the box of the root. Windows are clipped to that box, so the root is always read
+    public double expectedPageAccesses(double[] windowExtents) {
+        if (windowExtents.length != dataSpace.length / 2)
+            throw new IllegalArgumentException("The window must have an extent for each of the " + dataSpace.length / 2 + " dimensions");
+        double expected = 0;
+        for (LevelReport level : levels)
+            for (double[] box : level.boxes) {
+                double probability = 1;
+                for (int d = 0; d < windowExtents.length && probability > 0; d++) {
+                    double spaceExtent = dataSpace[2 * d + 1] - dataSpace[2 * d];
+                    if (spaceExtent == 0)
+                        continue;
+                    // Centres in the box grown by half the window, within the data space
+                    double lower = Math.max(box[2 * d] - windowExtents[d] / 2, dataSpace[2 * d]);
+                    double upper = Math.min(box[2 * d + 1] + windowExtents[d] / 2, dataSpace[2 * d + 1]);
+                    probability *= Math.max(0, upper - lower) / spaceExtent;
+                }
+                expected += probability;
+            }
+        return expected;
+    }
+
+    // Average nodes read by a range query over the given windows: the root and every node whose box intersects
+    // the window, since the box of its entry in the parent is the same box and intersects it too
+    public double expectedPageAccesses(List<BoundingBox> windows) {
+        if (windows.isEmpty())
+            throw new IllegalArgumentException("At least one window is needed");
+        long accesses = 0;
+        for (BoundingBox window : windows) {
+            accesses++;
+            for (int l = 0; l < levels.size() - 1; l++)
+                for (double[] box : levels.get(l).boxes)
+                    if (BoundingBox.intersects(box, window.getPackedBounds()))
+                        accesses++;
+        }
+        return (double) accesses / windows.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        for (int l = levels.size() - 1; l >= 0; l--)
+            report.append(levels.get(l)).append('\n');
+        report.append(String.format("blocks: total=%d free=%d leaked=%d%n", totalBlocks, freeBlocks, getLeakedBlocks()));
+        return report.toString();
+    }
+
+    /**
+     * Statistics of the nodes of one level of the tree.
+     */
+    public static class LevelReport {
+        private final int level;
+        private int nodes;
+        private long entries;
+        private int minEntries = Integer.MAX_VALUE;
+        private double area;
+        private double margin;
+        private double deadSpace;
+        private double overlap;
+        private long overlappingPairs;
+        private ArrayList<double[]> boxes; // Box of every node of the level
+
+        LevelReport(int level) {
+            this.level = level;
+        }
+
+        private void addNode(NodeView node, double[] box, double deadSpaceFraction) {
+            nodes++;
+            entries += node.getEntryCount();
+            minEntries = Math.min(minEntries, node.getEntryCount());
+            double nodeArea = BoundingBox.area(box);
+            area += nodeArea;
+            margin += BoundingBox.margin(box);
+            deadSpace += nodeArea * deadSpaceFraction;
+        }
+
+        // Sums the overlap of every pair of boxes of the level, sweeping them in order of their lower bound on the
+        // first dimension so that only pairs that meet on it are compared
+        private void computeOverlap(ArrayList<double[]> levelBoxes) {
+            double[][] sorted = levelBoxes.toArray(new double[0][]);
+            Arrays.sort(sorted, Comparator.comparingDouble(box -> box[0]));
+            for (int i = 0; i < sorted.length; i++)
+                for (int j = i + 1; j < sorted.length && sorted[j][0] <= sorted[i][1]; j++) {
+                    double pairOverlap = BoundingBox.overlap(sorted[i], sorted[j]);
+                    if (pairOverlap > 0) {
+                        overlap += pairOverlap;
+                        overlappingPairs++;
+                    }
+                }
+        }
+
+        // Level of the nodes, 1 for the leaves
+        public int getLevel() {
+            return level;
+        }
+
+        public int getNodes() {
+            return nodes;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        // Average entries per node as a fraction of the maximum
+        public double getAverageFill() {
+            return nodes == 0 ? 0 : (double) entries / nodes / Node.getMaxEntriesInNode();
+        }
+
+        public double getMinFill() {
+            return nodes == 0 ? 0 : (double) minEntries / Node.getMaxEntriesInNode();
+        }
+
+        // Sum of the areas of the boxes of the nodes
+        public double getArea() {
+            return area;
+        }
+
+        public double getMargin() {
+            return margin;
+        }
+
+        // Sum of the areas of the intersections of every pair of boxes of the level
+        public double getOverlap() {
+            return overlap;
+        }
+
+        public long getOverlappingPairs() {
+            return overlappingPairs;
+        }
+
+        public double getDeadSpace() {
+            return deadSpace;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("level %d: nodes=%d entries=%d fill avg=%.3f min=%.3f area=%.6g margin=%.6g overlap=%.6g (%.3f of area, %d pairs) deadSpace=%.6g (%.3f of area)",
+                    level, nodes, entries, getAverageFill(), getMinFill(), area, margin, overlap, area == 0 ? 0 : overlap / area,
+                    overlappingPairs, deadSpace, area == 0 ? 0 : deadSpace / area);
+        }
+    }
+
+    // Analyzes the index file of the working directory and prints the report, with the expected page accesses of
+    // windows centred uniformly whose extent is each of the given fractions of the data space in every dimension
+    public static void main(String[] args) {
+        DataHandler.openIndexFileReadOnly();
+        TreeAnalyzer analyzer = new TreeAnalyzer();
+        System.out.print(analyzer);
+        double[] fractions = args.length == 0 ? new double[] {0.001, 0.01, 0.1} : Arrays.stream(args).mapToDouble(Double::parseDouble).toArray();
+        for (double fraction : fractions) {
+            double[] extents = new double[analyzer.dataSpace.length / 2];
+            for (int d = 0; d < extents.length; d++)
+                extents[d] = fraction * (analyzer.dataSpace[2 * d + 1] - analyzer.dataSpace[2 * d]);
+            System.out.printf("windows of %s of the data space: %.2f expected page accesses%n", fraction, analyzer.expectedPageAccesses(extents));
+        }
+    }
+}
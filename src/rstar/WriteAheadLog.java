@@ -0,0 +1,273 @@
+package rstar;
+
+/*
+  Layout of indexfile.wal.
+
+  Header: short formatVersion, long firstLsn (the LSN of the first record of the file)
+  Record: int bodyLength, body, int crc32 of the body
+      body: long lsn, byte operation (1 insert, 2 delete), long recordId, int dataFileBlockId, int slot (both 0 for a delete),
+            dimension doubles, the point of the record
+
+  Version 1 records hold long dataFileBlockId in place of dataFileBlockId and slot, and are replayed without a slot.
+  A log of version 1 keeps being appended to in its own layout until a checkpoint empties it.
+
+  Records are appended in LSN order with consecutive LSNs. A crash can leave a partly written record at the end
+  of the file, which fails its length or checksum check and is cut off when the log is opened.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of the logical inserts and deletes applied to the index, for redoing them after a crash.
+ * <p>
+ * Operations are appended to an in-memory buffer, each one numbered with a log sequence number (LSN), and reach
+ * the file with group commit: a thread waiting for its operation to become durable either finds it already
+ * forced by another thread, or becomes the leader that writes the whole buffer and forces the file once for
+ * every operation appended so far, while the threads that append in the meantime wait for the next round.
+ * <p>
+ * The log only has to cover the operations since the last checkpoint, which writes every dirty index block
+ * to the index file and then truncates the log.
+ */
+class WriteAheadLog implements AutoCloseable {
+    static final byte INSERT = 1;
+    static final byte DELETE = 2;
+    private static final short FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = Short.BYTES + Long.BYTES;
+
+    private final String filename;
+    private final int dimensions;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private short version = FORMAT_VERSION; // Layout of the records of the file
+    private long firstLsn; // LSN of the first record in the file
+    private long nextLsn; // LSN given to the next operation appended
+    private long durableLsn; // Every operation up to this LSN is forced to the file
+    private long writePosition; // End of the records written to the file
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(); // Records appended but not yet written
+    private final DataOutputStream pendingOutput = new DataOutputStream(pending);
+    private boolean flushing; // Whether a leader is writing and forcing a group of records
+    private volatile long replayingLsn = -1; // LSN of the operation being passed to a replayer, -1 while the log is not replayed
+
+    // Receives the operations of the log, in the order they were applied
+    interface Replayer {
+        void insert(long recordId, long dataFileBlockId, int slot, double[] point);
+        void delete(long recordId, double[] point);
+    }
+
+    // Opens the log, creating it if it does not exist, and cuts off a partly written record left at its end
+    WriteAheadLog(String filename, int dimensions) throws IOException {
+        this.filename = filename;
+        this.dimensions = dimensions;
+        this.raf = new RandomAccessFile(filename, "rw");
+        this.channel = raf.getChannel();
+        if (channel.size() < HEADER_SIZE) {
+            firstLsn = 1;
+            writeHeader();
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            version = header.getShort(0);
+            if (version != 1 && version != FORMAT_VERSION)
+                throw new IllegalStateException("Unsupported write-ahead log format version " + version + " in " + filename);
+            firstLsn = header.getLong(Short.BYTES);
+        }
+        // Finding the end of the last complete record
+        writePosition = HEADER_SIZE;
+        nextLsn = firstLsn;
+        replay(-1, null);
+        channel.truncate(writePosition);
+        durableLsn = nextLsn - 1;
+    }
+
+    // LSN of the last operation appended, durable or not
+    synchronized long getLastLsn() {
+        return nextLsn - 1;
+    }
+
+    // Passes every operation of the log with an LSN after afterLsn to the replayer, in LSN order
+    void replay(long afterLsn, Replayer replayer) throws IOException {
+        try {
+            replayRecords(afterLsn, replayer);
+        } finally {
+            replayingLsn = -1;
+        }
+    }
+
+    private void replayRecords(long afterLsn, Replayer replayer) throws IOException {
+        long position = HEADER_SIZE;
+        long lsn = firstLsn;
+        long fileSize = channel.size();
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        while (position + Integer.BYTES <= fileSize) {
+            length.clear();
+            channel.read(length, position);
+            int bodyLength = length.getInt(0);
+            if (bodyLength != bodySize() || position + Integer.BYTES + bodyLength + Integer.BYTES > fileSize)
+                break;
+            ByteBuffer record = ByteBuffer.allocate(bodyLength + Integer.BYTES);
+            while (record.hasRemaining())
+                if (channel.read(record, position + Integer.BYTES + record.position()) < 0)
+                    throw new IllegalStateException("Unexpected end of " + filename + " in record " + lsn);
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), 0, bodyLength);
+            if ((int) crc.getValue() != record.getInt(bodyLength) || record.getLong(0) != lsn)
+                break;
+
+            if (replayer != null && lsn > afterLsn) {
+                byte operation = record.get(Long.BYTES);
+                long recordId = record.getLong(Long.BYTES + 1);
+                long dataFileBlockId;
+                int slot;
+                if (version == 1) {
+                    dataFileBlockId = record.getLong(2 * Long.BYTES + 1);
+                    slot = LeafEntry.NO_SLOT;
+                } else {
+                    dataFileBlockId = record.getInt(2 * Long.BYTES + 1);
+                    slot = record.getInt(2 * Long.BYTES + 1 + Integer.BYTES);
+                }
+                double[] point = new double[dimensions];
+                for (int d = 0; d < dimensions; d++)
+                    point[d] = record.getDouble(3 * Long.BYTES + 1 + d * Double.BYTES);
+                replayingLsn = lsn;
+                if (operation == INSERT)
+                    replayer.insert(recordId, dataFileBlockId, slot, point);
+                else if (operation == DELETE)
+                    replayer.delete(recordId, point);
+                else
+                    throw new IllegalStateException("Unknown operation " + operation + " in record " + lsn + " of " + filename);
+            }
+            position += Integer.BYTES + bodyLength + Integer.BYTES;
+            lsn++;
+        }
+        if (replayer == null) {
+            writePosition = position;
+            nextLsn = lsn;
+        }
+    }
+
+    // LSN of the operation a replayer is redoing, -1 if the log is not being replayed. The log must not be truncated
+    // before the replay ends, and a checkpoint taken meanwhile only covers the operations up to this one
+    long getReplayingLsn() {
+        return replayingLsn;
+    }
+
+    // Appends the insert of a leaf entry and returns its LSN. The operation is durable once awaitDurable returns for it
+    synchronized long logInsert(long recordId, long dataFileBlockId, int slot, double[] point) {
+        return append(INSERT, recordId, dataFileBlockId, slot, point);
+    }
+
+    // Appends the delete of a leaf entry and returns its LSN
+    synchronized long logDelete(long recordId, double[] point) {
+        return append(DELETE, recordId, 0, 0, point);
+    }
+
+    private long append(byte operation, long recordId, long dataFileBlockId, int slot, double[] point) {
+        try {
+            if (version != 1 && dataFileBlockId > Integer.MAX_VALUE)
+                throw new IllegalStateException("Block " + dataFileBlockId + " of the data file cannot be addressed by the write-ahead log");
+            long lsn = nextLsn++;
+            ByteBuffer body = ByteBuffer.allocate(bodySize());
+            body.putLong(lsn).put(operation).putLong(recordId);
+            if (version == 1)
+                body.putLong(dataFileBlockId);
+            else
+                body.putInt((int) dataFileBlockId).putInt(slot);
+            for (int d = 0; d < dimensions; d++)
+                body.putDouble(point[d]);
+            CRC32 crc = new CRC32();
+            crc.update(body.array());
+            pendingOutput.writeInt(body.capacity());
+            pendingOutput.write(body.array());
+            pendingOutput.writeInt((int) crc.getValue());
+            return lsn;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Returns once every operation up to the given LSN has been forced to the file (group commit)
+    void awaitDurable(long lsn) {
+        byte[] group;
+        long groupLastLsn;
+        synchronized (this) {
+            while (durableLsn < lsn && flushing) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the write-ahead log", e);
+                }
+            }
+            if (durableLsn >= lsn)
+                return;
+            // This thread becomes the leader and writes every record appended so far
+            flushing = true;
+            group = pending.toByteArray();
+            groupLastLsn = nextLsn - 1;
+            pending.reset();
+        }
+        boolean forced = false;
+        long start = System.nanoTime();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(group);
+            while (buffer.hasRemaining())
+                channel.write(buffer, writePosition + buffer.position());
+            channel.force(false);
+            forced = true;
+            IndexMetrics.get().operationEnded(IndexMetrics.Operation.LOG_FORCE, start);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            synchronized (this) {
+                if (forced) {
+                    writePosition += group.length;
+                    durableLsn = groupLastLsn;
+                }
+                flushing = false;
+                notifyAll();
+            }
+        }
+    }
+
+    // Forces every operation appended so far to the file
+    void flush() {
+        awaitDurable(getLastLsn());
+    }
+
+    // Empties the log once a checkpoint has written every operation of it to the index file.
+    // The caller must make sure no operation is appended meanwhile
+    synchronized void truncate() throws IOException {
+        if (pending.size() > 0 || flushing)
+            throw new IllegalStateException("Cannot truncate the write-ahead log while operations are being written to it");
+        firstLsn = nextLsn;
+        version = FORMAT_VERSION;
+        channel.truncate(HEADER_SIZE);
+        writeHeader();
+        channel.force(false);
+        writePosition = HEADER_SIZE;
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putShort(version).putLong(firstLsn).flip();
+        while (header.hasRemaining())
+            channel.write(header, header.position());
+    }
+
+    private int bodySize() {
+        return 3 * Long.BYTES + 1 + dimensions * Double.BYTES;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+        raf.close();
+    }
+}
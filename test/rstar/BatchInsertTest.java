@@ -0,0 +1,42 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchInsertTest {
+    private static final int DIMENSIONS = 2;
+    private static final int POOL_PAGES = 32;
+    private static final BoundingBox EVERYTHING = new BoundingBox(new double[] {0, TestIndex.SIDE, 0, TestIndex.SIDE});
+    private static ArrayList<Record> records;
+    private static RStarTree tree;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records = TestIndex.randomRecords(20000, DIMENSIONS, 51, 1);
+        tree = TestIndex.create(new ArrayList<>(), DIMENSIONS, false);
+        DataHandler.setBufferPoolCapacity(POOL_PAGES);
+    }
+
+    // The batch changes many more nodes than the buffer pool holds, while the dirty blocks of the index file cannot be
+    // evicted before a checkpoint
+    @Test
+    void batchLargerThanTheBufferPoolIsInserted() {
+        long[] blocks = new long[records.size()];
+        tree.addRecords(records, blocks);
+        assertEquals(records.size(), tree.rangeCount(EVERYTHING));
+        Random random = new Random(52);
+        for (int q = 0; q < 50; q++) {
+            BoundingBox window = TestIndex.randomWindow(random, DIMENSIONS, 200);
+            ArrayList<Long> ids = new ArrayList<>();
+            tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+            assertArrayEquals(TestIndex.idsInWindow(records, window), ids.stream().mapToLong(Long::longValue).sorted().toArray());
+        }
+    }
+}
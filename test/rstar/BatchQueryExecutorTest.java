@@ -0,0 +1,64 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchQueryExecutorTest {
+    private static final int DIMENSIONS = 2;
+    private static RStarTree tree;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        tree = TestIndex.create(TestIndex.randomRecords(60000, DIMENSIONS, 141, 1), DIMENSIONS, true);
+    }
+
+    // A mixed batch returns what the same queries return one by one, with a node cache of 4 pages, far fewer than
+    // the nodes the batch reads, so most nodes are read from the snapshot every time
+    @Test
+    void mixedBatchMatchesSequentialQueries() {
+        Random random = new Random(142);
+        ArrayList<IndexQuery> queries = new ArrayList<>();
+        ArrayList<long[]> expected = new ArrayList<>();
+        for (int q = 0; q < 400; q++) {
+            if (q % 2 == 0) {
+                BoundingBox window = TestIndex.randomWindow(random, DIMENSIONS, 200);
+                queries.add(new RangeQuery(window));
+                ArrayList<Long> ids = new ArrayList<>();
+                tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+                expected.add(ids.stream().mapToLong(Long::longValue).sorted().toArray());
+            } else {
+                double[] point = {random.nextDouble() * TestIndex.SIDE, random.nextDouble() * TestIndex.SIDE};
+                int k = 1 + random.nextInt(40);
+                queries.add(new NearestNeighboursQuery(point, k));
+                expected.add(tree.nearestNeighbours(point, k).stream().mapToLong(LeafEntry::getRecordId).toArray());
+            }
+        }
+
+        try (BatchQueryExecutor executor = new BatchQueryExecutor(4, 4)) {
+            List<CompletableFuture<ArrayList<LeafEntry>>> results = executor.execute(queries);
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+            assertEquals(0, DataHandler.countOpenIndexSnapshots(), "snapshots left open by the batch");
+            for (int q = 0; q < queries.size(); q++) {
+                long[] ids = results.get(q).join().stream().mapToLong(LeafEntry::getRecordId).toArray();
+                if (q % 2 == 0)
+                    ids = Arrays.stream(ids).sorted().toArray();
+                assertArrayEquals(expected.get(q), ids, "query " + q);
+            }
+
+            assertEquals(0, executor.execute(List.of()).size());
+            assertEquals(0, DataHandler.countOpenIndexSnapshots());
+            executor.submit(new RangeQuery(TestIndex.randomWindow(random, DIMENSIONS, 100))).join();
+            assertEquals(0, DataHandler.countOpenIndexSnapshots());
+        }
+    }
+}
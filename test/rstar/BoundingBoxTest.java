@@ -0,0 +1,137 @@
+package rstar;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The kernels on packed bounds against values worked out by hand, for a = [0, 4] x [1, 3] and b = [2, 6] x [2, 5]
+ * unless stated otherwise.
+ */
+class BoundingBoxTest {
+    private static final double[] A = {0, 4, 1, 3};
+    private static final double[] B = {2, 6, 2, 5};
+
+    @Test
+    void areaAndMargin() {
+        assertEquals(8, BoundingBox.area(A));
+        assertEquals(12, BoundingBox.area(B));
+        assertEquals(6, BoundingBox.margin(A));
+        assertEquals(7, BoundingBox.margin(B));
+        double[] box3d = {0, 1, 0, 2, 0, 3};
+        assertEquals(6, BoundingBox.area(box3d));
+        assertEquals(6, BoundingBox.margin(box3d));
+        assertEquals(0, BoundingBox.area(new double[] {1, 1, 0, 5}), "a box flat in one dimension");
+        assertEquals(5, BoundingBox.margin(new double[] {1, 1, 0, 5}));
+    }
+
+    @Test
+    void unionAndIntersection() {
+        double[] union = new double[4];
+        BoundingBox.union(A, B, union);
+        assertArrayEquals(new double[] {0, 6, 1, 5}, union);
+        assertEquals(24, BoundingBox.unionArea(A, B));
+        assertEquals(BoundingBox.area(union), BoundingBox.unionArea(B, A));
+
+        double[] intersection = new double[4];
+        assertTrue(BoundingBox.intersection(A, B, intersection));
+        assertArrayEquals(new double[] {2, 4, 2, 3}, intersection);
+
+        // The output may be one of the inputs
+        double[] a = A.clone();
+        BoundingBox.union(a, B, a);
+        assertArrayEquals(union, a);
+        double[] b = B.clone();
+        assertTrue(BoundingBox.intersection(A, b, b));
+        assertArrayEquals(intersection, b);
+    }
+
+    @Test
+    void overlapAndContainment() {
+        assertEquals(2, BoundingBox.overlap(A, B));
+        assertEquals(2, BoundingBox.overlap(B, A));
+        assertEquals(8, BoundingBox.overlap(A, A));
+        assertTrue(BoundingBox.intersects(A, B));
+        assertFalse(BoundingBox.contains(A, B));
+        assertTrue(BoundingBox.contains(new double[] {0, 6, 1, 5}, A));
+        assertTrue(BoundingBox.contains(A, A));
+
+        // Touching at the corner (4, 1): they intersect, in a single point, but do not overlap
+        double[] corner = {4, 5, 0, 1};
+        assertTrue(BoundingBox.intersects(A, corner));
+        assertEquals(0, BoundingBox.overlap(A, corner));
+        double[] intersection = new double[4];
+        assertTrue(BoundingBox.intersection(A, corner, intersection));
+        assertArrayEquals(new double[] {4, 4, 1, 1}, intersection);
+
+        double[] apart = {10, 11, 10, 11};
+        assertFalse(BoundingBox.intersects(A, apart));
+        assertFalse(BoundingBox.intersection(A, apart, intersection));
+        assertEquals(0, BoundingBox.overlap(A, apart));
+        // Apart on the second dimension only
+        assertFalse(BoundingBox.intersects(A, new double[] {1, 2, 4, 5}));
+    }
+
+    @Test
+    void distances() {
+        assertEquals(Math.sqrt(13), BoundingBox.minDistance(A, new double[] {7, 5}));
+        assertEquals(0, BoundingBox.minDistance(A, new double[] {1, 2}), "inside");
+        assertEquals(0, BoundingBox.minDistance(A, new double[] {4, 3}), "on the corner");
+        assertEquals(1, BoundingBox.minDistance(A, new double[] {-1, 2}));
+        assertEquals(2, BoundingBox.minDistance(A, new double[] {2, -1}));
+        // Centres (2, 2) and (4, 3.5)
+        assertEquals(2.5, BoundingBox.centerDistance(A, B));
+        assertEquals(0, BoundingBox.centerDistance(A, A));
+    }
+
+    // The kernels on boxes stored side by side in one array give the same values as on separate arrays
+    @Test
+    void offsetKernels() {
+        double[] boxes = {9, 9, 0, 4, 1, 3, 2, 6, 2, 5};
+        assertEquals(8, BoundingBox.area(boxes, 2, 4));
+        assertEquals(12, BoundingBox.area(boxes, 6, 4));
+        assertEquals(7, BoundingBox.margin(boxes, 6, 4));
+        assertEquals(2, BoundingBox.overlap(boxes, 2, boxes, 6, 4));
+        double[] out = new double[6];
+        BoundingBox.union(boxes, 2, boxes, 6, out, 1, 4);
+        assertArrayEquals(new double[] {0, 0, 6, 1, 5, 0}, out);
+    }
+
+    @Test
+    void boxesDelegateToTheKernels() {
+        BoundingBox a = new BoundingBox(A.clone());
+        BoundingBox b = new BoundingBox(new ArrayList<>(List.of(new Bounds(6, 2), new Bounds(5, 2))));
+        assertArrayEquals(B, b.getPackedBounds());
+        assertEquals(2, b.getDimensions());
+        assertEquals(1, a.getLower(1));
+        assertEquals(4, a.getUpper(0));
+        assertEquals(8, a.getVolume());
+        assertEquals(6, a.getPerimeter());
+        assertEquals(2, a.getCenter(0));
+        assertEquals(3.5, b.getCenter(1));
+        assertEquals(2, BoundingBox.findOverlap(a, b));
+        assertEquals(2.5, BoundingBox.findDistanceBetweenBoundingBoxes(a, b));
+        assertEquals(Math.sqrt(13), a.findMinDistance(new double[] {7, 5}));
+        assertTrue(a.checkOverlapWithPoint(new double[] {7, 5}, Math.sqrt(13)));
+        assertFalse(a.checkOverlapWithPoint(new double[] {7, 5}, 3.6));
+
+        ArrayList<Bounds> bounds = a.getBounds();
+        assertEquals(0, bounds.get(0).getLower());
+        assertEquals(4, bounds.get(0).getUpper());
+        assertEquals(1, bounds.get(1).getLower());
+        assertEquals(3, bounds.get(1).getUpper());
+        assertThrows(IllegalArgumentException.class, () -> new Bounds(1, 2));
+
+        assertArrayEquals(new double[] {7, 7, 5, 5}, BoundingBox.ofPoint(new double[] {7, 5}).getPackedBounds());
+        List<Entry> entries = List.of(new Entry(a), new Entry(b), new Entry(BoundingBox.ofPoint(new double[] {-1, 2})));
+        assertArrayEquals(new double[] {-1, 6, 1, 5}, BoundingBox.fitting(entries).getPackedBounds());
+        assertArrayEquals(A, a.getPackedBounds(), "fitting leaves the boxes of the entries as they were");
+    }
+}
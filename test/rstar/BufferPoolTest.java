@@ -0,0 +1,133 @@
+package rstar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * CLOCK eviction of a small pool over a file of small blocks, each filled with its block id.
+ */
+class BufferPoolTest {
+    private static final int BLOCK_SIZE = 64;
+    private static final int BLOCKS = 10;
+    private PageFile file;
+
+    @BeforeEach
+    void writeFile() throws IOException {
+        Files.deleteIfExists(Paths.get("bufferpool.dat"));
+        file = new PageFile("bufferpool.dat", BLOCK_SIZE);
+        for (int blockId = 0; blockId < BLOCKS; blockId++)
+            file.writeBlock(blockId, block(blockId));
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        file.close();
+        Files.deleteIfExists(Paths.get("bufferpool.dat"));
+    }
+
+    @Test
+    void pinnedBlocksAreNotEvicted() throws IOException {
+        BufferPool pool = new BufferPool(3);
+        byte[] first = pool.pin(file, 0);
+        byte[] second = pool.pin(file, 1);
+        for (int blockId = 2; blockId < BLOCKS; blockId++)
+            assertArrayEquals(block(blockId), pool.readBlock(file, blockId));
+        assertSame(first, pool.readCachedBlock(file, 0));
+        assertSame(second, pool.readCachedBlock(file, 1));
+        assertNull(pool.readCachedBlock(file, 2), "evicted by the blocks read after it");
+
+        // With every frame pinned nothing can be read in
+        pool.pin(file, 2);
+        assertThrows(IllegalStateException.class, () -> pool.readBlock(file, 3));
+        pool.unpin(file, 2);
+        assertArrayEquals(block(3), pool.readBlock(file, 3));
+        assertNull(pool.readCachedBlock(file, 2));
+
+        pool.unpin(file, 0);
+        pool.unpin(file, 1);
+        assertThrows(IllegalStateException.class, () -> pool.unpin(file, 1));
+        assertThrows(IllegalStateException.class, () -> pool.unpin(file, 9));
+    }
+
+    // The sweep clears the reference bits it passes, so a block read again since the last sweep outlives one that was not
+    @Test
+    void referencedBlocksAreEvictedLast() throws IOException {
+        BufferPool pool = new BufferPool(3);
+        for (int blockId = 0; blockId < 3; blockId++)
+            pool.readBlock(file, blockId);
+        pool.readBlock(file, 3); // A full turn clears every bit, then evicts block 0
+        pool.readBlock(file, 1);
+        pool.readBlock(file, 4); // Block 1 was referenced again, so block 2 goes
+        assertEquals(5, pool.getMisses());
+        assertEquals(1, pool.getHits());
+        assertNull(pool.readCachedBlock(file, 0));
+        assertNull(pool.readCachedBlock(file, 2));
+        assertNotNull(pool.readCachedBlock(file, 1));
+    }
+
+    @Test
+    void dirtyBlocksAreWrittenBackWhenEvicted() throws IOException {
+        BufferPool pool = new BufferPool(2);
+        long writes = file.getMetrics().getWrites();
+        pool.writeBlock(file, 0, block(100));
+        assertArrayEquals(block(0), readFromFile(0), "only the frame changed");
+        pool.readBlock(file, 1);
+        pool.readBlock(file, 2);
+        pool.readBlock(file, 3);
+        assertNull(pool.readCachedBlock(file, 0));
+        assertArrayEquals(block(100), readFromFile(0));
+        assertEquals(writes + 1, file.getMetrics().getWrites(), "the clean blocks evicted are not written");
+        assertArrayEquals(block(100), pool.readBlock(file, 0));
+        assertThrows(IllegalArgumentException.class, () -> pool.writeBlock(file, 1, new byte[BLOCK_SIZE + 1]));
+    }
+
+    // With no-steal, dirty blocks stay in the pool until it is flushed, even when every other frame is taken
+    @Test
+    void noStealBlocksOnlyReachTheFileWhenFlushed() throws IOException {
+        BufferPool pool = new BufferPool(3);
+        pool.setNoSteal(file, true);
+        pool.writeBlock(file, 0, block(100));
+        pool.writeBlock(file, 1, block(101));
+        for (int blockId = 2; blockId < BLOCKS; blockId++)
+            pool.readBlock(file, blockId);
+        assertArrayEquals(block(100), pool.readCachedBlock(file, 0));
+        assertArrayEquals(block(101), pool.readCachedBlock(file, 1));
+        assertArrayEquals(block(0), readFromFile(0));
+        assertEquals(2, pool.countDirtyBlocks(file));
+        assertEquals(Arrays.asList(0L, 1L), pool.getDirtyBlocks(file).keySet().stream().toList());
+
+        pool.writeBlock(file, 2, block(102));
+        assertThrows(IllegalStateException.class, () -> pool.readBlock(file, 3), "every frame holds a dirty block");
+
+        pool.flush(file);
+        assertEquals(0, pool.countDirtyBlocks(file));
+        for (int blockId = 0; blockId < 3; blockId++)
+            assertArrayEquals(block(100 + blockId), readFromFile(blockId));
+        assertArrayEquals(block(3), pool.readBlock(file, 3));
+    }
+
+    private byte[] readFromFile(long blockId) throws IOException {
+        byte[] block = new byte[BLOCK_SIZE];
+        file.readBlock(blockId, block);
+        return block;
+    }
+
+    private static byte[] block(int value) {
+        byte[] block = new byte[BLOCK_SIZE];
+        Arrays.fill(block, (byte) value);
+        return block;
+    }
+}
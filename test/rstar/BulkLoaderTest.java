@@ -0,0 +1,108 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkLoaderTest {
+    private static final int DIMENSIONS = 3;
+    private static final double FILL_FACTOR = 0.5;
+    private static ArrayList<Record> records;
+    private static RStarTree tree;
+    private static int nodeCapacity;
+
+    // Enough records for three levels of half full nodes
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records = TestIndex.randomRecords(150000, DIMENSIONS, 131, 1);
+        TestIndex.writeCsv(records);
+        DataHandler dataHandler = new DataHandler();
+        dataHandler.initializeDataFile(DIMENSIONS);
+        dataHandler.initializeIndexFile(DIMENSIONS);
+        tree = new RStarTree(true, FILL_FACTOR);
+        nodeCapacity = (int) (FILL_FACTOR * Node.getMaxEntriesInNode());
+    }
+
+    // Every node but the root holds between the minimum and the maximum entries, the leaves about the packed
+    // capacity, every leaf is at the same depth and every entry's box is the exact box of its child node
+    @Test
+    void packedTreeIsBalancedAndTight() {
+        int leaves = (records.size() + nodeCapacity - 1) / nodeCapacity;
+        int expectedLevels = 1;
+        for (int nodes = leaves; nodes > Node.getMaxEntriesInNode(); nodes = (nodes + nodeCapacity - 1) / nodeCapacity)
+            expectedLevels++;
+        expectedLevels++;
+        assertEquals(3, expectedLevels);
+        assertEquals(expectedLevels, DataHandler.getTotalLevelsOfTreeIndex());
+
+        int[] nodesPerLevel = new int[expectedLevels + 1];
+        long[] entriesPerLevel = new long[expectedLevels + 1];
+        ArrayList<Long> ids = new ArrayList<>();
+        check(RStarTree.getRootBlockId(), expectedLevels, null, nodesPerLevel, entriesPerLevel, ids);
+
+        assertEquals(1, nodesPerLevel[expectedLevels]);
+        assertEquals(records.size(), entriesPerLevel[RStarTree.getLeafLevel()]);
+        // The last run of a slab can be merged with or balanced against its neighbour, so a few leaves may differ in size
+        double leafFill = (double) records.size() / nodesPerLevel[RStarTree.getLeafLevel()];
+        assertEquals(nodeCapacity, leafFill, 0.05 * nodeCapacity, "mean entries of " + nodesPerLevel[RStarTree.getLeafLevel()] + " leaves");
+        long[] sortedIds = ids.stream().mapToLong(Long::longValue).sorted().toArray();
+        assertArrayEquals(records.stream().mapToLong(Record::getId).sorted().toArray(), sortedIds);
+    }
+
+    @Test
+    void rangeQueriesMatchBruteForce() {
+        Random random = new Random(132);
+        for (int q = 0; q < 50; q++) {
+            BoundingBox window = TestIndex.randomWindow(random, DIMENSIONS, 200);
+            ArrayList<Long> ids = new ArrayList<>();
+            tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+            assertArrayEquals(TestIndex.idsInWindow(records, window), ids.stream().mapToLong(Long::longValue).sorted().toArray());
+        }
+    }
+
+    @Test
+    void nearestNeighboursMatchBruteForce() {
+        Random random = new Random(133);
+        for (int q = 0; q < 20; q++) {
+            double[] point = {random.nextDouble() * TestIndex.SIDE, random.nextDouble() * TestIndex.SIDE, random.nextDouble() * TestIndex.SIDE};
+            int k = 1 + random.nextInt(30);
+            long[] expected = records.stream()
+                    .sorted(Comparator.comparingDouble(record -> TestIndex.distance(point, record.getCoordinates())))
+                    .limit(k).mapToLong(Record::getId).toArray();
+            assertArrayEquals(expected, tree.nearestNeighbours(point, k).stream().mapToLong(LeafEntry::getRecordId).toArray());
+        }
+    }
+
+    // Checks the node of the block and the nodes below it, counting them per level and collecting the ids of the records
+    private static void check(long blockId, int level, BoundingBox parentBox, int[] nodesPerLevel, long[] entriesPerLevel, ArrayList<Long> ids) {
+        Node node = DataHandler.readIndexFileBlock(blockId);
+        assertEquals(level, node.getLevel(), "level of block " + blockId);
+        int entries = node.getEntries().size();
+        assertTrue(entries <= Node.getMaxEntriesInNode(), entries + " entries in block " + blockId);
+        if (parentBox != null) {
+            assertTrue(entries >= Node.getMinEntriesInNode(), entries + " entries in block " + blockId);
+            BoundingBox box = BoundingBox.fitting(node.getEntries());
+            for (int d = 0; d < DIMENSIONS; d++) {
+                assertEquals(box.getLower(d), parentBox.getLower(d), "lower bound of block " + blockId);
+                assertEquals(box.getUpper(d), parentBox.getUpper(d), "upper bound of block " + blockId);
+            }
+        }
+        nodesPerLevel[level]++;
+        entriesPerLevel[level] += entries;
+        for (Entry entry : node.getEntries()) {
+            if (level == RStarTree.getLeafLevel())
+                ids.add(((LeafEntry) entry).getRecordId());
+            else
+                check(entry.getBlockIdOfChildNode(), level - 1, entry.getBoundingBox(), nodesPerLevel, entriesPerLevel, ids);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentAccessTest {
+    private static final int DIMENSIONS = 2;
+    private static final int POOL_PAGES = 64; // Far fewer than the nodes of the tree, so that queries keep missing the pool
+    private static final BoundingBox EVERYTHING = new BoundingBox(new double[] {0, TestIndex.SIDE, 0, TestIndex.SIDE});
+    private static ArrayList<Record> records;
+    private static RStarTree tree;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records = TestIndex.randomRecords(30000, DIMENSIONS, 31, 1);
+        tree = TestIndex.create(records, DIMENSIONS, true);
+        DataHandler.setBufferPoolCapacity(POOL_PAGES);
+    }
+
+    // Readers query while a writer inserts. Every query must find all the bulk loaded records of its window, and the
+    // number of records a reader sees can only grow, since each query reads a committed version of the tree
+    @Test
+    void readersSeeCommittedVersionsWhileAWriterInserts() throws InterruptedException {
+        List<Record> inserted = TestIndex.randomRecords(3000, DIMENSIONS, 32, 100001);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        ArrayList<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            long seed = 33 + r;
+            readers.add(new Thread(() -> {
+                try {
+                    Random random = new Random(seed);
+                    long lastCount = 0;
+                    while (writing.get()) {
+                        BoundingBox window = TestIndex.randomWindow(random, DIMENSIONS, 150);
+                        ArrayList<Long> ids = new ArrayList<>();
+                        tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> {
+                            if (recordId <= records.size())
+                                ids.add(recordId);
+                        });
+                        assertArrayEquals(TestIndex.idsInWindow(records, window), ids.stream().mapToLong(Long::longValue).sorted().toArray());
+                        long count = tree.rangeCount(EVERYTHING);
+                        assertTrue(count >= lastCount, count + " records after " + lastCount);
+                        lastCount = count;
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+        try {
+            for (Record record : inserted)
+                tree.addRecord(record, 1);
+        } finally {
+            writing.set(false);
+            for (Thread reader : readers)
+                reader.join();
+        }
+        assertTrue(failures.isEmpty(), () -> "Reader failed: " + failures.peek());
+
+        ArrayList<Record> all = new ArrayList<>(records);
+        all.addAll(inserted);
+        assertEquals(all.size(), tree.rangeCount(EVERYTHING));
+        Random random = new Random(36);
+        for (int q = 0; q < 50; q++) {
+            BoundingBox window = TestIndex.randomWindow(random, DIMENSIONS, 150);
+            ArrayList<Long> ids = new ArrayList<>();
+            tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+            assertArrayEquals(TestIndex.idsInWindow(all, window), ids.stream().mapToLong(Long::longValue).sorted().toArray());
+        }
+        for (Record record : inserted)
+            assertTrue(tree.deleteRecord(record.getId(), record.getCoordinates()));
+    }
+
+    // A repack only completes once the snapshots reading the old index file are closed, so it would never complete
+    // if closing an iterator that was not exhausted left its snapshot open
+    @Test
+    void closingAnIteratorEarlyReleasesItsSnapshot() throws Exception {
+        double[] point = {TestIndex.SIDE / 2, TestIndex.SIDE / 2};
+        CloseableIterator<LeafEntry> nearest = tree.nearestNeighbours(point);
+        CloseableIterator<LeafEntry> inWindow = tree.rangeQuery(EVERYTHING);
+        CloseableIterator<LeafEntry> skyline = tree.skylineQuery();
+        for (int i = 0; i < 10; i++) {
+            nearest.next();
+            inWindow.next();
+        }
+        skyline.next();
+        nearest.close();
+        inWindow.close();
+        skyline.close();
+        assertFalse(nearest.hasNext());
+        assertFalse(inWindow.hasNext());
+        assertFalse(skyline.hasNext());
+
+        tree.repack().get(60, TimeUnit.SECONDS);
+        assertEquals(records.size(), tree.rangeCount(EVERYTHING));
+    }
+}
@@ -0,0 +1,97 @@
+package rstar;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes to an index in a JVM of its own and halts it without closing or flushing anything, as a crash would,
+ * leaving the files of the index in the working directory for the test that started it to recover.
+ * <p>
+ * It bulk loads the records of bulkLoadedRecords, inserts those of checkpointedRecords and takes a checkpoint, then
+ * inserts those of loggedRecords and deletes the first deletedRecords bulk loaded ones, which only reach the
+ * write-ahead log before the halt.
+ */
+final class CrashingWriter {
+    static final int DIMENSIONS = 2;
+    private static final int HALT_STATUS = 3;
+
+    private CrashingWriter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int bulkLoaded = Integer.parseInt(args[0]);
+        int checkpointed = Integer.parseInt(args[1]);
+        int logged = Integer.parseInt(args[2]);
+        int deleted = Integer.parseInt(args[3]);
+        TestIndex.writeCsv(bulkLoadedRecords(bulkLoaded));
+        RStarTree tree = TestIndex.open(DIMENSIONS, true);
+        for (Record record : checkpointedRecords(checkpointed))
+            tree.addRecord(record, 1);
+        DataHandler.checkpoint();
+        for (Record record : loggedRecords(logged))
+            tree.addRecord(record, 1);
+        for (Record record : bulkLoadedRecords(bulkLoaded).subList(0, deleted))
+            if (!tree.deleteRecord(record.getId(), record.getCoordinates()))
+                throw new IllegalStateException("Record " + record.getId() + " was not deleted");
+        Runtime.getRuntime().halt(HALT_STATUS);
+    }
+
+    // Runs the writer in a new JVM in the working directory and waits for it to halt
+    static void run(int bulkLoaded, int checkpointed, int logged, int deleted) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), CrashingWriter.class.getName(),
+                String.valueOf(bulkLoaded), String.valueOf(checkpointed), String.valueOf(logged), String.valueOf(deleted))
+                .inheritIO().start();
+        if (!process.waitFor(5, TimeUnit.MINUTES)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("The crashing writer did not halt");
+        }
+        if (process.exitValue() != HALT_STATUS)
+            throw new IllegalStateException("The crashing writer failed with status " + process.exitValue());
+    }
+
+    // Turns the halt into a crash in the middle of a checkpoint: every other block of the index file, root included, is
+    // kept by the double-write buffer as the checkpoint wrote it and torn in place halfway through
+    static void tearCheckpoint() throws IOException {
+        int blockSize = DataHandler.getBlockSize();
+        TreeMap<Long, byte[]> checkpoint = new TreeMap<>();
+        try (RandomAccessFile indexFile = new RandomAccessFile("indexfile.dat", "rw")) {
+            long blocks = indexFile.length() / blockSize;
+            for (long blockId = 1; blockId < blocks; blockId += 2) {
+                byte[] block = new byte[blockSize];
+                indexFile.seek(blockId * blockSize);
+                indexFile.readFully(block);
+                checkpoint.put(blockId, block);
+            }
+            new DoubleWriteBuffer("indexfile.dwb", blockSize).write(checkpoint, 0);
+            for (long blockId : checkpoint.keySet()) {
+                indexFile.seek(blockId * blockSize + blockSize / 2);
+                indexFile.write(new byte[blockSize / 2]);
+            }
+        }
+    }
+
+    // The records the index must hold once it has recovered from the crash of run with the same arguments
+    static ArrayList<Record> survivingRecords(int bulkLoaded, int checkpointed, int logged, int deleted) {
+        ArrayList<Record> records = new ArrayList<>(bulkLoadedRecords(bulkLoaded).subList(deleted, bulkLoaded));
+        records.addAll(checkpointedRecords(checkpointed));
+        records.addAll(loggedRecords(logged));
+        return records;
+    }
+
+    private static ArrayList<Record> bulkLoadedRecords(int count) {
+        return TestIndex.randomRecords(count, DIMENSIONS, 61, 1);
+    }
+
+    private static ArrayList<Record> checkpointedRecords(int count) {
+        return TestIndex.randomRecords(count, DIMENSIONS, 62, 100001);
+    }
+
+    private static ArrayList<Record> loggedRecords(int count) {
+        return TestIndex.randomRecords(count, DIMENSIONS, 63, 200001);
+    }
+}
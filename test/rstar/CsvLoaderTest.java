@@ -0,0 +1,98 @@
+package rstar;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvLoaderTest {
+    private static final int DIMENSIONS = 2;
+    private static final String MALFORMED_CSV = "malformed.csv";
+    private static int records;
+    private static int loadedBlocks;
+    private static ArrayList<Integer> metadataOnDisk;
+
+    // Enough records for more than 4096 full blocks, so that the metadata block is also written during the load.
+    // The coordinates of every record are derived from its id
+    @BeforeAll
+    static void loadDataFile() throws IOException {
+        records = 4200 * DataFileManager.slotsPerBlock(DataHandler.getBlockSize(), DIMENSIONS);
+        TestIndex.deleteFiles();
+        try (BufferedWriter csv = Files.newBufferedWriter(Paths.get("data.csv"))) {
+            for (int id = 1; id <= records; id++) {
+                double[] point = point(id);
+                csv.write(id + "," + (int) point[0] + "," + (int) point[1] + "\n");
+            }
+        }
+        new DataHandler().initializeDataFile(DIMENSIONS);
+        loadedBlocks = (int) DataHandler.getTotalBlocksInDataFile();
+        byte[] block0 = new byte[DataHandler.getBlockSize()];
+        try (RandomAccessFile dataFile = new RandomAccessFile("datafile.dat", "r")) {
+            dataFile.readFully(block0);
+        }
+        metadataOnDisk = DataFileManager.readMetadata(block0);
+    }
+
+    @AfterAll
+    static void deleteFiles() throws IOException {
+        TestIndex.deleteFiles();
+        Files.deleteIfExists(Paths.get(MALFORMED_CSV));
+    }
+
+    // The records are appended in the order of the file, each chunk of the file into blocks of its own
+    @Test
+    void recordsKeepTheirOrderAndIds() {
+        assertTrue(loadedBlocks > 4097, loadedBlocks + " blocks");
+        assertEquals(loadedBlocks, metadataOnDisk.get(2));
+        int id = 0;
+        for (int blockId = 1; blockId < loadedBlocks; blockId++) {
+            ArrayList<Record> block = DataHandler.readDataFileBlock(blockId);
+            assertTrue(block.size() > 0, "block " + blockId);
+            for (Record record : block) {
+                id++;
+                assertEquals(id, record.getId());
+                assertArrayEquals(point(id), record.getCoordinates());
+            }
+        }
+        assertEquals(records, id);
+    }
+
+    // Every kind of line that is not a record fails with its line number in the file, empty lines counted
+    @Test
+    void malformedLinesAreReportedWithTheirLineNumber() throws IOException {
+        assertMalformed("1,2,3\n\n3,4,5\n4,x,6\n", 4);
+        assertMalformed("1,2,3\n2,3\n", 2);
+        assertMalformed("1,2,3,4\n", 1);
+        assertMalformed("1,2,3\r\n2.5,3,4\r\n", 2);
+        assertMalformed("1,2,3\n,3,4\n", 2);
+        // A line far enough into the file to be parsed in a later chunk than the first one
+        StringBuilder csv = new StringBuilder();
+        for (int line = 1; line < 600000; line++)
+            csv.append(line).append(",1,2\n");
+        csv.append("600000,1,2,3\n");
+        assertMalformed(csv.toString(), 600000);
+    }
+
+    private static void assertMalformed(String csv, int line) throws IOException {
+        Files.write(Paths.get(MALFORMED_CSV), csv.getBytes());
+        int maxRecordsInBlock = DataFileManager.slotsPerBlock(DataHandler.getBlockSize(), DIMENSIONS);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new CsvLoader(MALFORMED_CSV, DIMENSIONS, maxRecordsInBlock).load());
+        assertTrue(e.getMessage().startsWith("Line " + line + " of " + MALFORMED_CSV + " "), e.getMessage());
+    }
+
+    private static double[] point(int id) {
+        return new double[] {id % 1000, (id / 1000) % 1000};
+    }
+}
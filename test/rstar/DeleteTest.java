@@ -0,0 +1,83 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeleteTest {
+    private static final int DIMENSIONS = 2;
+    private static final BoundingBox EVERYTHING = new BoundingBox(new double[] {0, TestIndex.SIDE, 0, TestIndex.SIDE});
+    private static ArrayList<Record> records;
+    private static RStarTree tree;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records = TestIndex.randomRecords(20000, DIMENSIONS, 21, 1);
+        tree = TestIndex.create(records, DIMENSIONS, true);
+    }
+
+    // Deletes most records in random order, so that leaves underflow and their entries are reinserted, checking after
+    // each round that exactly the remaining records are found
+    @Test
+    void deletedRecordsAreNoLongerFound() {
+        ArrayList<Record> remaining = new ArrayList<>(records);
+        Collections.shuffle(remaining, new Random(22));
+        Random random = new Random(23);
+        for (int round = 0; round < 4; round++) {
+            int deletions = remaining.size() * 3 / 4;
+            for (int i = 0; i < deletions; i++) {
+                Record record = remaining.remove(remaining.size() - 1);
+                assertTrue(tree.deleteRecord(record.getId(), record.getCoordinates()), "record " + record.getId());
+            }
+            assertEquals(remaining.size(), tree.rangeCount(EVERYTHING));
+            for (int q = 0; q < 50; q++) {
+                BoundingBox window = TestIndex.randomWindow(random, DIMENSIONS, 300);
+                ArrayList<Long> ids = new ArrayList<>();
+                tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+                assertArrayEquals(TestIndex.idsInWindow(remaining, window), ids.stream().mapToLong(Long::longValue).sorted().toArray());
+            }
+        }
+        for (Record record : remaining)
+            assertTrue(tree.deleteRecord(record.getId(), record.getCoordinates()));
+        assertEquals(0, tree.rangeCount(EVERYTHING));
+
+        // The emptied tree takes new records again
+        for (Record record : records.subList(0, 500))
+            tree.addRecord(record, 1);
+        assertArrayEquals(TestIndex.idsInWindow(records.subList(0, 500), EVERYTHING), ids(EVERYTHING));
+        for (Record record : records.subList(0, 500))
+            assertTrue(tree.deleteRecord(record.getId(), record.getCoordinates()));
+    }
+
+    @Test
+    void deletingAMissingRecordChangesNothing() {
+        ArrayList<Record> others = TestIndex.randomRecords(10, DIMENSIONS, 24, 50001);
+        for (Record record : others)
+            tree.addRecord(record, 1);
+        long count = tree.rangeCount(EVERYTHING);
+        Record record = others.get(0);
+        assertFalse(tree.deleteRecord(record.getId() + 5000, record.getCoordinates()), "unknown id");
+        assertFalse(tree.deleteRecord(record.getId(), new double[] {TestIndex.SIDE + 1, TestIndex.SIDE + 1}), "wrong point");
+        assertEquals(count, tree.rangeCount(EVERYTHING));
+        assertTrue(tree.deleteRecord(record.getId(), record.getCoordinates()));
+        assertFalse(tree.deleteRecord(record.getId(), record.getCoordinates()), "deleted twice");
+        assertEquals(count - 1, tree.rangeCount(EVERYTHING));
+        for (Record other : others.subList(1, others.size()))
+            assertTrue(tree.deleteRecord(other.getId(), other.getCoordinates()));
+    }
+
+    private static long[] ids(BoundingBox window) {
+        ArrayList<Long> ids = new ArrayList<>();
+        tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+        return ids.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+}
@@ -0,0 +1,25 @@
+package rstar;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class DoubleWriteBufferRecoveryTest {
+    private static final BoundingBox EVERYTHING = new BoundingBox(new double[] {0, TestIndex.SIDE, 0, TestIndex.SIDE});
+
+    // A crash while a checkpoint writes its blocks in place leaves some of them torn. The copies the checkpoint forced to
+    // the double-write buffer before are written over them when the index is opened again, and the log is then redone
+    @Test
+    void tornCheckpointIsRestoredBeforeTheLogIsRedone() throws Exception {
+        CrashingWriter.run(5000, 500, 700, 300);
+        CrashingWriter.tearCheckpoint();
+
+        RStarTree tree = TestIndex.open(CrashingWriter.DIMENSIONS, false);
+        ArrayList<Record> records = CrashingWriter.survivingRecords(5000, 500, 700, 300);
+        ArrayList<Long> ids = new ArrayList<>();
+        tree.rangeQuery(EVERYTHING, (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+        assertArrayEquals(TestIndex.idsInWindow(records, EVERYTHING), ids.stream().mapToLong(Long::longValue).sorted().toArray());
+    }
+}
@@ -0,0 +1,139 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deletes free the blocks of the nodes they eliminate and of the root's only child, and inserts reuse them
+ * before the index file grows.
+ */
+class FreeIndexBlocksTest {
+    private static final int DIMENSIONS = 2;
+    private static final BoundingBox EVERYTHING = new BoundingBox(new double[] {0, TestIndex.SIDE, 0, TestIndex.SIDE});
+    private static ArrayList<Record> records;
+    private static RStarTree tree;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records = TestIndex.randomRecords(40000, DIMENSIONS, 111, 1);
+        tree = TestIndex.create(records, DIMENSIONS, false);
+        // Inserted one by one, the nodes are about 70% full and many of them underflow as records are deleted
+        for (Record record : records)
+            tree.addRecord(record, 1);
+    }
+
+    @Test
+    void deletesFreeBlocksThatInsertsReuse() throws IOException {
+        ArrayList<Record> remaining = new ArrayList<>(records);
+        Collections.shuffle(remaining, new Random(112));
+        ArrayList<Record> deleted = new ArrayList<>();
+        while (remaining.size() > 2000) {
+            Record record = remaining.remove(remaining.size() - 1);
+            assertTrue(tree.deleteRecord(record.getId(), record.getCoordinates()));
+            deleted.add(record);
+        }
+        long totalBlocks = DataHandler.getTotalBlocksInIndexFile();
+        assertFalse(DataHandler.getFreeIndexBlocks().length == 0, "the eliminated nodes freed their blocks");
+        assertBlocksAccountedFor();
+        assertFreeBlocksOnDisk();
+
+        // The deleted records fill the free blocks again before any block is appended
+        for (Record record : deleted)
+            tree.addRecord(record, 1);
+        assertTrue(DataHandler.getTotalBlocksInIndexFile() == totalBlocks || DataHandler.getFreeIndexBlocks().length == 0,
+                "blocks were appended while free ones were left");
+        assertBlocksAccountedFor();
+        assertArrayEquals(TestIndex.idsInWindow(records, EVERYTHING), ids(EVERYTHING));
+        Random random = new Random(113);
+        for (int q = 0; q < 50; q++) {
+            BoundingBox window = TestIndex.randomWindow(random, DIMENSIONS, 300);
+            assertArrayEquals(TestIndex.idsInWindow(records, window), ids(window));
+        }
+
+        // Emptying the tree shrinks it to its root, freeing the block of every other node
+        for (Record record : records)
+            assertTrue(tree.deleteRecord(record.getId(), record.getCoordinates()));
+        assertEquals(RStarTree.getLeafLevel(), DataHandler.getTotalLevelsOfTreeIndex());
+        assertEquals(DataHandler.getTotalBlocksInIndexFile() - 2, DataHandler.getFreeIndexBlocks().length);
+        assertBlocksAccountedFor();
+        assertFreeBlocksOnDisk();
+    }
+
+    // Index files written before the free blocks were kept have none
+    @Test
+    void versionOneMetadataHasNoFreeBlocks() {
+        byte[] block = new byte[DataHandler.getBlockSize()];
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        buffer.putShort((short) 1);
+        buffer.putInt(DIMENSIONS);
+        buffer.putInt(block.length);
+        buffer.putInt(40);
+        buffer.putInt(2);
+        buffer.putLong(RStarTree.getRootBlockId());
+        buffer.putInt(Node.getMaxEntriesInNode());
+        buffer.putInt(Node.getMinEntriesInNode());
+        buffer.putInt(7); // Not a count of free blocks in version 1
+        IndexMetadata metadata = IndexManager.readIndexMetadata(block);
+        assertEquals(40, metadata.getTotalBlocks());
+        assertEquals(0, metadata.getFreeBlockIds().length);
+    }
+
+    // Every block of the index file but block 0 holds a node of the tree or is free, never both
+    private static void assertBlocksAccountedFor() {
+        HashSet<Long> nodes = new HashSet<>();
+        try (IndexSnapshot snapshot = DataHandler.openIndexSnapshot()) {
+            collectNodes(snapshot, RStarTree.getRootBlockId(), nodes);
+        }
+        for (long blockId : DataHandler.getFreeIndexBlocks()) {
+            assertTrue(blockId > 0 && blockId < DataHandler.getTotalBlocksInIndexFile(), "block " + blockId);
+            assertFalse(nodes.contains(blockId), "free block " + blockId + " holds a node");
+        }
+        assertEquals(DataHandler.getFreeIndexBlocks().length, Arrays.stream(DataHandler.getFreeIndexBlocks()).distinct().count());
+
+        TreeAnalyzer analyzer = new TreeAnalyzer();
+        assertEquals(DataHandler.getTotalBlocksInIndexFile(), analyzer.getTotalBlocks());
+        assertEquals(DataHandler.getFreeIndexBlocks().length, analyzer.getFreeBlocks());
+        assertEquals(0, analyzer.getLeakedBlocks());
+    }
+
+    private static void collectNodes(IndexSnapshot snapshot, long blockId, HashSet<Long> nodes) {
+        assertTrue(nodes.add(blockId), "block " + blockId + " is reached twice");
+        try (NodeView node = snapshot.readNodeView(blockId)) {
+            if (!node.isLeaf())
+                for (int i = 0; i < node.getEntryCount(); i++)
+                    collectNodes(snapshot, node.child(i), nodes);
+        }
+    }
+
+    // The free blocks reach block 0 of the index file with the checkpoint
+    private static void assertFreeBlocksOnDisk() throws IOException {
+        DataHandler.flush();
+        byte[] block = new byte[DataHandler.getBlockSize()];
+        try (RandomAccessFile file = new RandomAccessFile("indexfile.dat", "r")) {
+            file.readFully(block);
+        }
+        IndexMetadata metadata = IndexManager.readIndexMetadata(block);
+        assertEquals(DataHandler.getTotalBlocksInIndexFile(), metadata.getTotalBlocks());
+        assertArrayEquals(DataHandler.getFreeIndexBlocks(), metadata.getFreeBlockIds());
+    }
+
+    private static long[] ids(BoundingBox window) {
+        ArrayList<Long> ids = new ArrayList<>();
+        tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+        return ids.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+}
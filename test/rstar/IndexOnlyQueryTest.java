@@ -0,0 +1,72 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IndexOnlyQueryTest {
+    private static final int DIMENSIONS = 3;
+    private static ArrayList<Record> records;
+    private static final HashMap<Long, double[]> pointsById = new HashMap<>();
+    private static RStarTree tree;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records = TestIndex.randomRecords(15000, DIMENSIONS, 81, 1);
+        for (Record record : records)
+            pointsById.put(record.getId(), record.getCoordinates());
+        tree = TestIndex.create(records, DIMENSIONS, true);
+    }
+
+    @Test
+    void rangeQueriesAndCountsAreAnsweredFromTheIndex() {
+        long dataFileAccesses = dataFileAccesses();
+        Random random = new Random(82);
+        for (int q = 0; q < 100; q++) {
+            BoundingBox window = TestIndex.randomWindow(random, DIMENSIONS, 300);
+            ArrayList<Long> ids = new ArrayList<>();
+            tree.rangeQueryPoints(window, (recordId, point) -> {
+                assertArrayEquals(pointsById.get(recordId), point);
+                ids.add(recordId);
+            });
+            long[] expected = TestIndex.idsInWindow(records, window);
+            assertArrayEquals(expected, ids.stream().mapToLong(Long::longValue).sorted().toArray());
+            assertEquals(expected.length, tree.rangeCount(window));
+        }
+        assertEquals(records.size(), tree.rangeCount(new BoundingBox(new double[] {0, TestIndex.SIDE, 0, TestIndex.SIDE, 0, TestIndex.SIDE})));
+        assertEquals(dataFileAccesses, dataFileAccesses(), "data file accesses");
+    }
+
+    // The points streamed by the nearest neighbour query are those of the entries it returns, in the same order
+    @Test
+    void nearestNeighbourPointsAreAnsweredFromTheIndex() {
+        long dataFileAccesses = dataFileAccesses();
+        Random random = new Random(83);
+        for (int q = 0; q < 100; q++) {
+            double[] point = {random.nextDouble() * TestIndex.SIDE, random.nextDouble() * TestIndex.SIDE, random.nextDouble() * TestIndex.SIDE};
+            int k = 1 + random.nextInt(40);
+            ArrayList<LeafEntry> nearest = tree.nearestNeighbours(point, k);
+            ArrayList<Long> ids = new ArrayList<>();
+            tree.nearestNeighbourPoints(point, k, (recordId, nearestPoint) -> {
+                assertArrayEquals(pointsById.get(recordId), nearestPoint);
+                ids.add(recordId);
+            });
+            assertEquals(k, ids.size());
+            for (int i = 0; i < k; i++)
+                assertEquals(nearest.get(i).getRecordId(), ids.get(i));
+        }
+        assertEquals(dataFileAccesses, dataFileAccesses(), "data file accesses");
+    }
+
+    private static long dataFileAccesses() {
+        PageFileMetrics metrics = IndexMetrics.get().getPageFileMetrics("datafile.dat");
+        return metrics.getReads() + metrics.getCacheHits() + metrics.getCacheMisses();
+    }
+}
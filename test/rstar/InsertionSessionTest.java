@@ -0,0 +1,106 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Sessions written by hand against an empty index: the nodes they add take the blocks after the last one in the
+ * order they were added, and a node moved into the root leaves its new block empty.
+ */
+class InsertionSessionTest {
+    private static final int DIMENSIONS = 2;
+    private static ArrayList<Record> records;
+
+    @BeforeAll
+    static void openIndex() throws IOException {
+        records = TestIndex.randomRecords(30, DIMENSIONS, 151, 1);
+        TestIndex.create(records, DIMENSIONS, false);
+    }
+
+    @Test
+    void addedNodesAreAppendedInOrderOnCommit() {
+        long firstNewBlockId = DataHandler.getTotalBlocksInIndexFile();
+        Node first = leaf(records.subList(0, 10));
+        Node second = leaf(records.subList(10, 20));
+        DataHandler.beginIndexWrite();
+        try {
+            InsertionSession session = new InsertionSession();
+            Node root = session.readNode(RStarTree.getRootBlockId());
+            assertSame(root, session.readNode(RStarTree.getRootBlockId()), "a block is decoded once per session");
+            session.addNode(first);
+            session.addNode(second);
+            assertEquals(firstNewBlockId, first.getBlockId());
+            assertEquals(firstNewBlockId + 1, second.getBlockId());
+            assertSame(second, session.readNode(firstNewBlockId + 1), "a node added is read back before it is written");
+
+            Node newRoot = new Node(2, new ArrayList<>(List.of(new Entry(first), new Entry(second))));
+            newRoot.setBlockId(RStarTree.getRootBlockId());
+            session.markDirty(newRoot);
+            session.markDirty(newRoot);
+            assertEquals(3, session.getDirtyNodeCount(), "a node marked twice is written once");
+            session.commit(2);
+        } finally {
+            DataHandler.endIndexWrite();
+        }
+
+        assertEquals(firstNewBlockId + 2, DataHandler.getTotalBlocksInIndexFile());
+        assertEquals(2, DataHandler.getTotalLevelsOfTreeIndex());
+        Node root = DataHandler.readIndexFileBlock(RStarTree.getRootBlockId());
+        assertEquals(2, root.getLevel());
+        assertEquals(List.of(firstNewBlockId, firstNewBlockId + 1), List.of(root.getEntries().get(0).getBlockIdOfChildNode(), root.getEntries().get(1).getBlockIdOfChildNode()));
+        assertSameEntries(first, DataHandler.readIndexFileBlock(firstNewBlockId));
+        assertSameEntries(second, DataHandler.readIndexFileBlock(firstNewBlockId + 1));
+    }
+
+    // As when the root is replaced by its only child: the block the node was added to is still appended, empty
+    @Test
+    void nodeMovedIntoTheRootLeavesItsNewBlockEmpty() {
+        long firstNewBlockId = DataHandler.getTotalBlocksInIndexFile();
+        Node node = leaf(records.subList(20, 30));
+        DataHandler.beginIndexWrite();
+        try {
+            InsertionSession session = new InsertionSession();
+            session.addNode(node);
+            session.moveNode(node, RStarTree.getRootBlockId());
+            assertSame(node, session.readNode(RStarTree.getRootBlockId()));
+            assertEquals(1, session.getDirtyNodeCount());
+            session.commit(RStarTree.getLeafLevel());
+        } finally {
+            DataHandler.endIndexWrite();
+        }
+
+        assertEquals(firstNewBlockId + 1, DataHandler.getTotalBlocksInIndexFile());
+        assertEquals(RStarTree.getLeafLevel(), DataHandler.getTotalLevelsOfTreeIndex());
+        assertSameEntries(node, DataHandler.readIndexFileBlock(RStarTree.getRootBlockId()));
+        Node left = DataHandler.readIndexFileBlock(firstNewBlockId);
+        assertEquals(RStarTree.getLeafLevel(), left.getLevel());
+        assertEquals(0, left.getEntries().size());
+    }
+
+    private static Node leaf(List<Record> records) {
+        ArrayList<Entry> entries = new ArrayList<>();
+        for (Record record : records)
+            entries.add(new LeafEntry(record, 1, (int) record.getId()));
+        return new Node(RStarTree.getLeafLevel(), entries);
+    }
+
+    private static void assertSameEntries(Node expected, Node actual) {
+        assertEquals(expected.getLevel(), actual.getLevel());
+        assertEquals(expected.getEntries().size(), actual.getEntries().size());
+        for (int i = 0; i < expected.getEntries().size(); i++) {
+            LeafEntry expectedEntry = (LeafEntry) expected.getEntries().get(i);
+            LeafEntry actualEntry = (LeafEntry) actual.getEntries().get(i);
+            assertEquals(expectedEntry.getRecordId(), actualEntry.getRecordId());
+            assertEquals(expectedEntry.getSlot(), actualEntry.getSlot());
+            assertArrayEquals(expectedEntry.getPoint(), actualEntry.getPoint());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Reads a data file of serialized blocks, as written before the slotted layout, and index pages of both versions of
+ * the page layout.
+ */
+class LegacyFormatTest {
+    private static final int DIMENSIONS = 2;
+    private static final int RECORDS_PER_BLOCK = 100;
+    private static ArrayList<Record> records;
+    private static RStarTree tree;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records = TestIndex.randomRecords(3000, DIMENSIONS, 91, 1);
+        TestIndex.deleteFiles();
+        writeSerializedDataFile(records);
+        tree = TestIndex.open(DIMENSIONS, true);
+    }
+
+    @Test
+    void serializedDataFileBlocksAreRead() {
+        assertFalse(DataHandler.isSlottedDataFile());
+        assertEquals(1 + records.size() / RECORDS_PER_BLOCK, DataHandler.getTotalBlocksInDataFile());
+        for (int blockId = 1; blockId < DataHandler.getTotalBlocksInDataFile(); blockId++) {
+            List<Record> expected = records.subList((blockId - 1) * RECORDS_PER_BLOCK, blockId * RECORDS_PER_BLOCK);
+            ArrayList<Record> block = DataHandler.readDataFileBlock(blockId);
+            assertEquals(expected.size(), block.size());
+            for (int slot = 0; slot < expected.size(); slot++) {
+                assertSameRecord(expected.get(slot), block.get(slot));
+                assertSameRecord(expected.get(slot), DataHandler.readRecord(blockId, slot));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> DataHandler.readRecord(1, RECORDS_PER_BLOCK));
+    }
+
+    // An entry indexed before the data file had slots finds its record in its block by id
+    @Test
+    void recordsOfEntriesWithoutSlotsAreFoundById() {
+        for (int i = 0; i < records.size(); i += 37) {
+            Record record = records.get(i);
+            LeafEntry entry = new LeafEntry(record.getId(), 1 + i / RECORDS_PER_BLOCK, record.getCoordinates());
+            assertSameRecord(record, DataHandler.readRecord(entry));
+        }
+        Record record = records.get(0);
+        assertThrows(IllegalArgumentException.class, () -> DataHandler.readRecord(new LeafEntry(record.getId(), 2, record.getCoordinates())));
+    }
+
+    // The tree bulk loaded from the serialized blocks answers queries with entries whose records can be read back
+    @Test
+    void treeBuiltFromSerializedBlocksAnswersQueries() {
+        Random random = new Random(92);
+        for (int q = 0; q < 50; q++) {
+            BoundingBox window = TestIndex.randomWindow(random, DIMENSIONS, 300);
+            ArrayList<Long> ids = new ArrayList<>();
+            try (CloseableIterator<LeafEntry> results = tree.rangeQuery(window)) {
+                while (results.hasNext()) {
+                    LeafEntry entry = results.next();
+                    Record record = DataHandler.readRecord(entry);
+                    assertEquals(entry.getRecordId(), record.getId());
+                    assertArrayEquals(entry.getPoint(), record.getCoordinates());
+                    ids.add(entry.getRecordId());
+                }
+            }
+            assertArrayEquals(TestIndex.idsInWindow(records, window), ids.stream().mapToLong(Long::longValue).sorted().toArray());
+        }
+    }
+
+    // Version 1 pages hold long recordId, long dataFileBlockId in the entries of a leaf node and no slot
+    @Test
+    void versionOnePagesAreReadWithoutSlots() {
+        int blockSize = DataHandler.getBlockSize();
+        byte[] block = new byte[blockSize];
+        ByteBuffer page = ByteBuffer.wrap(block);
+        page.putShort((short) 1);
+        page.put((byte) 1);
+        page.put((byte) 0);
+        page.putInt(RStarTree.getLeafLevel());
+        page.putInt(3);
+        for (int i = 0; i < 3; i++) {
+            double[] point = records.get(i).getCoordinates();
+            for (int d = 0; d < DIMENSIONS; d++) {
+                page.putDouble(point[d]);
+                page.putDouble(point[d]);
+            }
+            page.putLong(records.get(i).getId());
+            page.putLong(1L + i);
+        }
+
+        Node node = IndexManager.readNode(block, 7, DIMENSIONS);
+        assertEquals(7, node.getBlockId());
+        assertEquals(RStarTree.getLeafLevel(), node.getLevel());
+        assertEquals(3, node.getEntries().size());
+        NodeView view = new NodeView(block, 7, DIMENSIONS, null, null);
+        assertEquals(3, view.getEntryCount());
+        for (int i = 0; i < 3; i++) {
+            LeafEntry entry = (LeafEntry) node.getEntries().get(i);
+            assertEquals(records.get(i).getId(), entry.getRecordId());
+            assertEquals(1L + i, entry.getDataFileBlockId());
+            assertEquals(LeafEntry.NO_SLOT, entry.getSlot());
+            assertArrayEquals(records.get(i).getCoordinates(), entry.getPoint());
+
+            assertEquals(records.get(i).getId(), view.recordId(i));
+            assertEquals(1L + i, view.dataFileBlockId(i));
+            assertEquals(LeafEntry.NO_SLOT, view.slot(i));
+            double[] point = new double[DIMENSIONS];
+            view.point(i, point);
+            assertArrayEquals(records.get(i).getCoordinates(), point);
+        }
+    }
+
+    @Test
+    void versionTwoPagesKeepTheSlots() {
+        int blockSize = DataHandler.getBlockSize();
+        ArrayList<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            entries.add(new LeafEntry(records.get(i), 10L + i, 20 + i));
+        Node leaf = new Node(RStarTree.getLeafLevel(), entries);
+        leaf.setBlockId(4);
+        byte[] block = IndexManager.writeNode(leaf, blockSize, DIMENSIONS);
+        assertEquals(IndexManager.PAGE_FORMAT_VERSION, ByteBuffer.wrap(block).getShort(IndexManager.VERSION_OFFSET));
+
+        Node node = IndexManager.readNode(block, 4, DIMENSIONS);
+        NodeView view = new NodeView(block, 4, DIMENSIONS, null, null);
+        for (int i = 0; i < 5; i++) {
+            LeafEntry entry = (LeafEntry) node.getEntries().get(i);
+            assertEquals(records.get(i).getId(), entry.getRecordId());
+            assertEquals(10L + i, entry.getDataFileBlockId());
+            assertEquals(20 + i, entry.getSlot());
+            assertArrayEquals(records.get(i).getCoordinates(), entry.getPoint());
+            assertEquals(10L + i, view.dataFileBlockId(i));
+            assertEquals(20 + i, view.slot(i));
+        }
+    }
+
+    // A block that was never written starts with version 0
+    @Test
+    void unwrittenPagesAreRejected() {
+        byte[] block = new byte[DataHandler.getBlockSize()];
+        assertThrows(IllegalStateException.class, () -> IndexManager.readNode(block, 9, DIMENSIONS));
+        assertThrows(IllegalStateException.class, () -> new NodeView(block, 9, DIMENSIONS, null, null));
+    }
+
+    private static void assertSameRecord(Record expected, Record actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertArrayEquals(expected.getCoordinates(), actual.getCoordinates());
+    }
+
+    // Writes datafile.dat as it was written before the slotted layout: every block holds the serialized length of a
+    // serialized object followed by the object, the list of dimensions, block size and total blocks in block 0 and
+    // an ArrayList<Record> of RECORDS_PER_BLOCK records in the others
+    private static void writeSerializedDataFile(List<Record> records) throws IOException {
+        int blockSize = DataHandler.getBlockSize();
+        int totalBlocks = 1 + records.size() / RECORDS_PER_BLOCK;
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(serializedBlock(new ArrayList<>(List.of(DIMENSIONS, blockSize, totalBlocks)), blockSize));
+        for (int from = 0; from < records.size(); from += RECORDS_PER_BLOCK)
+            file.write(serializedBlock(new ArrayList<>(records.subList(from, from + RECORDS_PER_BLOCK)), blockSize));
+        Files.write(Paths.get("datafile.dat"), file.toByteArray());
+    }
+
+    private static byte[] serializedBlock(Serializable object, int blockSize) throws IOException {
+        byte[] objectBytes = serialize(object);
+        byte[] lengthBytes = serialize(objectBytes.length);
+        byte[] block = new byte[blockSize];
+        System.arraycopy(lengthBytes, 0, block, 0, lengthBytes.length);
+        System.arraycopy(objectBytes, 0, block, lengthBytes.length, objectBytes.length);
+        return block;
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,122 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reads and writes through memory-mapped regions return the same pages as read and write calls on the channel.
+ */
+class MemoryMappedIoTest {
+    private static final int DIMENSIONS = 2;
+    private static ArrayList<Record> records;
+    private static RStarTree tree;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records = TestIndex.randomRecords(20000, DIMENSIONS, 131, 1);
+        tree = TestIndex.create(records, DIMENSIONS, true);
+    }
+
+    @Test
+    void mappedAndChannelFilesReadTheSameBlocks() throws IOException {
+        DataHandler.flush();
+        for (String filename : new String[] {"datafile.dat", "indexfile.dat"}) {
+            int blockSize = DataHandler.getBlockSize();
+            PageFile channelFile = new PageFile(filename, blockSize);
+            PageFile mappedFile = new MappedPageFile(filename, blockSize);
+            long blocks = Files.size(Paths.get(filename)) / blockSize;
+            byte[] channelBlock = new byte[blockSize];
+            byte[] mappedBlock = new byte[blockSize];
+            byte[] channelBytes = new byte[24];
+            byte[] mappedBytes = new byte[24];
+            // Checked before the file is mapped, since the mapping may extend the file past its blocks until it is closed
+            assertThrows(IllegalStateException.class, () -> channelFile.readBlock(blocks, channelBlock));
+            for (long blockId = 0; blockId < blocks; blockId++) {
+                channelFile.readBlock(blockId, channelBlock);
+                mappedFile.readBlock(blockId, mappedBlock);
+                assertArrayEquals(channelBlock, mappedBlock, filename + " block " + blockId);
+                channelFile.read(blockId, 8, channelBytes);
+                mappedFile.read(blockId, 8, mappedBytes);
+                assertArrayEquals(channelBytes, mappedBytes, filename + " block " + blockId);
+            }
+            assertThrows(IllegalStateException.class, () -> mappedFile.readBlock(blocks, mappedBlock));
+            assertThrows(IllegalArgumentException.class, () -> mappedFile.read(0, blockSize - 8, channelBytes));
+            channelFile.close();
+            mappedFile.close();
+            assertEquals(blocks * blockSize, Files.size(Paths.get(filename)), "closing the mapped file left it as it was");
+        }
+    }
+
+    // Blocks appended through a mapping grow it past its first region size, and closing it cuts the file back to them
+    @Test
+    void blocksAppendedThroughTheMappingAreReadThroughTheChannel() throws IOException {
+        Files.deleteIfExists(Paths.get("mapped.dat"));
+        int blockSize = 64;
+        PageFile mappedFile = new MappedPageFile("mapped.dat", blockSize);
+        byte[] blocks = new byte[600 * blockSize];
+        new Random(132).nextBytes(blocks);
+        mappedFile.writeBlocks(0, blocks, 300);
+        for (int blockId = 300; blockId < 600; blockId++)
+            mappedFile.writeBlock(blockId, Arrays.copyOfRange(blocks, blockId * blockSize, (blockId + 1) * blockSize));
+        mappedFile.close();
+        assertEquals(blocks.length, Files.size(Paths.get("mapped.dat")));
+
+        PageFile channelFile = new PageFile("mapped.dat", blockSize);
+        byte[] block = new byte[blockSize];
+        for (int blockId = 0; blockId < 600; blockId++) {
+            channelFile.readBlock(blockId, block);
+            assertArrayEquals(Arrays.copyOfRange(blocks, blockId * blockSize, (blockId + 1) * blockSize), block, "block " + blockId);
+        }
+        channelFile.close();
+        Files.delete(Paths.get("mapped.dat"));
+    }
+
+    // Switching modes reopens the files of the index, which answers the same and keeps taking inserts
+    @Test
+    void indexAnswersTheSameInEitherMode() throws IOException {
+        Random random = new Random(133);
+        ArrayList<BoundingBox> windows = new ArrayList<>();
+        for (int q = 0; q < 30; q++)
+            windows.add(TestIndex.randomWindow(random, DIMENSIONS, 300));
+        ArrayList<long[]> channelResults = new ArrayList<>();
+        for (BoundingBox window : windows)
+            channelResults.add(ids(window));
+
+        DataHandler.setMemoryMappedIo(true);
+        try {
+            assertTrue(DataHandler.isMemoryMappedIo());
+            for (int q = 0; q < windows.size(); q++)
+                assertArrayEquals(channelResults.get(q), ids(windows.get(q)));
+            ArrayList<Record> added = TestIndex.randomRecords(5000, DIMENSIONS, 134, 100001);
+            for (Record record : added)
+                tree.addRecord(record, 1);
+            records.addAll(added);
+        } finally {
+            DataHandler.setMemoryMappedIo(false);
+        }
+        assertFalse(DataHandler.isMemoryMappedIo());
+        assertEquals(DataHandler.getTotalBlocksInIndexFile() * DataHandler.getBlockSize(), Files.size(Paths.get("indexfile.dat")),
+                "the blocks mapped ahead of the inserts were cut off");
+        for (BoundingBox window : windows)
+            assertArrayEquals(TestIndex.idsInWindow(records, window), ids(window));
+    }
+
+    private static long[] ids(BoundingBox window) {
+        ArrayList<Long> ids = new ArrayList<>();
+        tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+        return ids.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+}
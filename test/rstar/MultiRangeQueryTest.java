@@ -0,0 +1,52 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiRangeQueryTest {
+    private static final int DIMENSIONS = 2;
+    private static ArrayList<Record> records;
+    private static RStarTree tree;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records = TestIndex.randomRecords(20000, DIMENSIONS, 41, 1);
+        tree = TestIndex.create(records, DIMENSIONS, true);
+    }
+
+    // The batch answers each window, in the order of the windows, with what a query of that window alone returns
+    @Test
+    void answersEachWindowLikeASeparateQuery() {
+        Random random = new Random(42);
+        ArrayList<BoundingBox> windows = new ArrayList<>();
+        for (int q = 0; q < 300; q++)
+            windows.add(TestIndex.randomWindow(random, DIMENSIONS, q % 3 == 0 ? 400 : 60));
+        windows.add(windows.get(0)); // The same window twice
+
+        ArrayList<ArrayList<LeafEntry>> results = tree.rangeQueries(windows);
+        assertEquals(windows.size(), results.size());
+        for (int q = 0; q < windows.size(); q++) {
+            long[] ids = results.get(q).stream().mapToLong(LeafEntry::getRecordId).sorted().toArray();
+            assertArrayEquals(TestIndex.idsInWindow(records, windows.get(q)), ids, "window " + q);
+        }
+    }
+
+    @Test
+    void windowsWithoutResultsGetEmptyLists() {
+        List<BoundingBox> windows = Collections.nCopies(3, new BoundingBox(new double[] {-20, -10, -20, -10}));
+        ArrayList<ArrayList<LeafEntry>> results = tree.rangeQueries(windows);
+        assertEquals(3, results.size());
+        results.forEach(result -> assertTrue(result.isEmpty()));
+        assertTrue(tree.rangeQueries(new ArrayList<>()).isEmpty());
+    }
+}
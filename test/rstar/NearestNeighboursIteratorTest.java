@@ -0,0 +1,95 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearestNeighboursIteratorTest {
+    private static final int DIMENSIONS = 2;
+    private static ArrayList<Record> records;
+    private static RStarTree tree;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records = TestIndex.randomRecords(12000, DIMENSIONS, 111, 1);
+        tree = TestIndex.create(records, DIMENSIONS, true);
+    }
+
+    // The first n entries returned are the n records closest to the point, in increasing distance
+    @Test
+    void returnsTheRecordsInIncreasingDistance() {
+        Random random = new Random(112);
+        for (int q = 0; q < 50; q++) {
+            double[] point = {random.nextDouble() * TestIndex.SIDE, random.nextDouble() * TestIndex.SIDE};
+            ArrayList<Record> nearest = sortedByDistance(point);
+            int n = 1 + random.nextInt(300);
+            try (NearestNeighboursIterator neighbours = new NearestNeighboursIterator(point)) {
+                for (int i = 0; i < n; i++) {
+                    assertTrue(neighbours.hasNext());
+                    LeafEntry entry = neighbours.next();
+                    double expected = TestIndex.distance(point, nearest.get(i).getCoordinates());
+                    assertEquals(expected, TestIndex.distance(point, entry.getPoint()), 1e-9, "neighbour " + i);
+                    assertEquals(nearest.get(i).getId(), entry.getRecordId(), "neighbour " + i);
+                    assertEquals(expected, neighbours.getLastDistance(), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void closingEarlyEndsTheIteration() {
+        long iterations = IndexMetrics.get().getLatency(IndexMetrics.Operation.NEAREST_NEIGHBOURS_ITERATION).getCount();
+        CloseableIterator<LeafEntry> neighbours = tree.nearestNeighbours(new double[] {TestIndex.SIDE / 2, TestIndex.SIDE / 2});
+        for (int i = 0; i < 10; i++)
+            neighbours.next();
+        neighbours.close();
+        neighbours.close();
+        assertFalse(neighbours.hasNext());
+        assertThrows(NoSuchElementException.class, neighbours::next);
+        assertEquals(iterations + 1, IndexMetrics.get().getLatency(IndexMetrics.Operation.NEAREST_NEIGHBOURS_ITERATION).getCount());
+    }
+
+    // Exhausting the iterator returns every record once and ends its trace, with the nodes it read
+    @Test
+    void exhaustingTheIteratorReturnsEveryRecord() {
+        long iterations = IndexMetrics.get().getLatency(IndexMetrics.Operation.NEAREST_NEIGHBOURS_ITERATION).getCount();
+        double[] point = {-TestIndex.SIDE, 2 * TestIndex.SIDE};
+        ArrayList<Record> nearest = sortedByDistance(point);
+        int returned = 0;
+        double previous = 0;
+        try (CloseableIterator<LeafEntry> neighbours = tree.nearestNeighbours(point)) {
+            while (neighbours.hasNext()) {
+                double distance = TestIndex.distance(point, neighbours.next().getPoint());
+                assertTrue(distance >= previous);
+                previous = distance;
+                returned++;
+            }
+            assertThrows(NoSuchElementException.class, neighbours::next);
+            assertEquals(iterations + 1, IndexMetrics.get().getLatency(IndexMetrics.Operation.NEAREST_NEIGHBOURS_ITERATION).getCount());
+        }
+        assertEquals(records.size(), returned);
+        assertEquals(TestIndex.distance(point, nearest.get(nearest.size() - 1).getCoordinates()), previous, 1e-9);
+        assertTrue(IndexMetrics.get().getNodesVisited(IndexMetrics.Operation.NEAREST_NEIGHBOURS_ITERATION).getMax() > 1);
+    }
+
+    @Test
+    void rejectsAPointOfAnotherDimension() {
+        assertThrows(IllegalArgumentException.class, () -> new NearestNeighboursIterator(new double[] {1, 2, 3}));
+    }
+
+    private static ArrayList<Record> sortedByDistance(double[] point) {
+        ArrayList<Record> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparingDouble(record -> TestIndex.distance(point, record.getCoordinates())));
+        return sorted;
+    }
+}
@@ -0,0 +1,68 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NearestNeighboursQueryTest {
+    private static final int DIMENSIONS = 3;
+    private static ArrayList<Record> records;
+    private static RStarTree tree;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records = TestIndex.randomRecords(15000, DIMENSIONS, 11, 1);
+        tree = TestIndex.create(records, DIMENSIONS, true);
+    }
+
+    @Test
+    void returnsTheClosestRecordsInIncreasingDistance() {
+        Random random = new Random(12);
+        for (int q = 0; q < 100; q++) {
+            double[] point = randomPoint(random);
+            int k = 1 + random.nextInt(50);
+            long[] ids = tree.nearestNeighbours(point, k).stream().mapToLong(LeafEntry::getRecordId).toArray();
+            assertArrayEquals(nearestIds(point, k), ids, "k = " + k);
+        }
+    }
+
+    @Test
+    void returnsEveryRecordWhenKExceedsTheirNumber() {
+        double[] point = {TestIndex.SIDE / 2, TestIndex.SIDE / 2, TestIndex.SIDE / 2};
+        assertEquals(records.size(), tree.nearestNeighbours(point, records.size() + 10).size());
+    }
+
+    @Test
+    void pointOutsideTheDataFindsTheRecordsOnItsSide() {
+        double[] point = {-TestIndex.SIDE, TestIndex.SIDE / 2, 2 * TestIndex.SIDE};
+        long[] ids = tree.nearestNeighbours(point, 10).stream().mapToLong(LeafEntry::getRecordId).toArray();
+        assertArrayEquals(nearestIds(point, 10), ids);
+    }
+
+    @Test
+    void rejectsInvalidQueries() {
+        assertThrows(IllegalArgumentException.class, () -> tree.nearestNeighbours(new double[] {1, 2}, 5));
+        assertThrows(IllegalArgumentException.class, () -> tree.nearestNeighbours(new double[] {1, 2, 3}, 0));
+    }
+
+    private static double[] randomPoint(Random random) {
+        double[] point = new double[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++)
+            point[d] = random.nextDouble() * TestIndex.SIDE;
+        return point;
+    }
+
+    private static long[] nearestIds(double[] point, int k) {
+        return records.stream()
+                .sorted(Comparator.comparingDouble(record -> TestIndex.distance(point, record.getCoordinates())))
+                .limit(k).mapToLong(Record::getId).toArray();
+    }
+}
@@ -0,0 +1,124 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every field a NodeView reads from a page matches the Node decoded from the same page, for every node of a tree.
+ */
+class NodeViewTest {
+    private static final int DIMENSIONS = 3;
+    private static ArrayList<Record> records;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records = TestIndex.randomRecords(30000, DIMENSIONS, 141, 1);
+        TestIndex.create(records, DIMENSIONS, true);
+        // Inserted entries share their leaves with bulk loaded ones
+        RStarTree tree = new RStarTree(false);
+        for (Record record : TestIndex.randomRecords(2000, DIMENSIONS, 142, 100001))
+            tree.addRecord(record, 7, 11);
+    }
+
+    @Test
+    void viewsMatchTheDecodedNodes() {
+        Random random = new Random(143);
+        int nodes = 0;
+        long leafEntries = 0;
+        ArrayList<Long> blockIds = new ArrayList<>();
+        blockIds.add((long) RStarTree.getRootBlockId());
+        while (!blockIds.isEmpty()) {
+            long blockId = blockIds.remove(blockIds.size() - 1);
+            Node node = DataHandler.readIndexFileBlock(blockId);
+            try (NodeView view = DataHandler.readIndexNodeView(blockId)) {
+                nodes++;
+                assertEquals(blockId, view.getBlockId());
+                assertEquals(node.getLevel(), view.getLevel());
+                assertEquals(node.getLevel() == RStarTree.getLeafLevel(), view.isLeaf());
+                assertEquals(node.getEntries().size(), view.getEntryCount());
+                for (int i = 0; i < view.getEntryCount(); i++) {
+                    Entry entry = node.getEntries().get(i);
+                    BoundingBox box = entry.getBoundingBox();
+                    for (int d = 0; d < DIMENSIONS; d++) {
+                        assertEquals(box.getLower(d), view.lower(i, d));
+                        assertEquals(box.getUpper(d), view.upper(i, d));
+                    }
+                    assertPredicatesMatch(view, i, box.getPackedBounds(), random);
+                    if (view.isLeaf()) {
+                        LeafEntry leafEntry = (LeafEntry) entry;
+                        assertEquals(leafEntry.getRecordId(), view.recordId(i));
+                        assertEquals(leafEntry.getDataFileBlockId(), view.dataFileBlockId(i));
+                        assertEquals(leafEntry.getSlot(), view.slot(i));
+                        double[] point = new double[DIMENSIONS + 1];
+                        view.point(i, point, 1);
+                        for (int d = 0; d < DIMENSIONS; d++)
+                            assertEquals(leafEntry.getPoint()[d], point[d + 1]);
+                        LeafEntry decoded = view.toLeafEntry(i);
+                        assertEquals(leafEntry.getRecordId(), decoded.getRecordId());
+                        assertEquals(leafEntry.getDataFileBlockId(), decoded.getDataFileBlockId());
+                        assertEquals(leafEntry.getSlot(), decoded.getSlot());
+                        assertArrayEquals(box.getPackedBounds(), decoded.getBoundingBox().getPackedBounds());
+                        leafEntries++;
+                    } else {
+                        assertEquals(entry.getBlockIdOfChildNode().longValue(), view.child(i));
+                        blockIds.add(view.child(i));
+                    }
+                }
+                int last = view.getEntryCount() - 1;
+                if (view.isLeaf())
+                    assertThrows(IllegalStateException.class, () -> view.child(last));
+                else {
+                    assertThrows(IllegalStateException.class, () -> view.recordId(last));
+                    assertThrows(IllegalStateException.class, () -> view.slot(last));
+                }
+            }
+        }
+        assertTrue(nodes > 50, nodes + " nodes");
+        assertEquals(records.size() + 2000, leafEntries);
+    }
+
+    // The views of a small pool are unpinned when closed, so a walk of many more blocks than the pool holds goes through
+    @Test
+    void closedViewsReleaseTheirBlocks() {
+        DataHandler.setBufferPoolCapacity(4);
+        try {
+            for (int round = 0; round < 3; round++)
+                for (long blockId = 1; blockId < DataHandler.getTotalBlocksInIndexFile(); blockId++) {
+                    NodeView view = DataHandler.readIndexNodeView(blockId);
+                    view.close();
+                    view.close();
+                }
+        } finally {
+            DataHandler.setBufferPoolCapacity(1024);
+        }
+    }
+
+    // The predicates of the view agree with the kernels of BoundingBox on the entry's box, for boxes and points
+    // drawn around it
+    private static void assertPredicatesMatch(NodeView view, int i, double[] box, Random random) {
+        for (int t = 0; t < 3; t++) {
+            double[] point = new double[DIMENSIONS];
+            double[] window = new double[2 * DIMENSIONS];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double extent = box[2 * d + 1] - box[2 * d] + 1;
+                point[d] = box[2 * d] + (random.nextDouble() * 3 - 1) * extent;
+                window[2 * d] = box[2 * d] + (random.nextDouble() * 3 - 1.5) * extent;
+                window[2 * d + 1] = window[2 * d] + random.nextDouble() * 2 * extent;
+            }
+            BoundingBox windowBox = new BoundingBox(window);
+            assertEquals(BoundingBox.intersects(box, window), view.intersects(i, windowBox));
+            assertEquals(BoundingBox.contains(window, box), view.within(i, windowBox));
+            assertEquals(BoundingBox.contains(box, BoundingBox.ofPoint(point).getPackedBounds()), view.contains(i, point));
+            assertEquals(BoundingBox.minDistance(box, point), view.minDistance(i, point), 1e-9);
+        }
+    }
+}
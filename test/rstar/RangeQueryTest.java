@@ -0,0 +1,97 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RangeQueryTest {
+    private static final int DIMENSIONS = 2;
+    private static final ArrayList<Record> records = new ArrayList<>();
+    private static RStarTree tree;
+
+    // Bulk loads part of the records and inserts the rest one write at a time, so the tree holds both packed and split nodes
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records.addAll(TestIndex.randomRecords(20000, DIMENSIONS, 1, 1));
+        tree = TestIndex.create(records, DIMENSIONS, true);
+        ArrayList<Record> inserted = TestIndex.randomRecords(3000, DIMENSIONS, 2, 100001);
+        for (Record record : inserted)
+            tree.addRecord(record, 1);
+        records.addAll(inserted);
+    }
+
+    @Test
+    void streamedResultsAreTheRecordsInTheWindow() {
+        Random random = new Random(3);
+        for (int q = 0; q < 200; q++) {
+            BoundingBox window = TestIndex.randomWindow(random, DIMENSIONS, 200);
+            ArrayList<Long> ids = new ArrayList<>();
+            tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+            assertArrayEquals(TestIndex.idsInWindow(records, window), ids.stream().mapToLong(Long::longValue).sorted().toArray(), "window " + window);
+        }
+    }
+
+    @Test
+    void iteratedResultsAreTheRecordsInTheWindowWithTheirPoints() {
+        Random random = new Random(4);
+        for (int q = 0; q < 200; q++) {
+            BoundingBox window = TestIndex.randomWindow(random, DIMENSIONS, 200);
+            ArrayList<Long> ids = new ArrayList<>();
+            try (CloseableIterator<LeafEntry> entries = tree.rangeQuery(window)) {
+                while (entries.hasNext()) {
+                    LeafEntry entry = entries.next();
+                    assertArrayEquals(records.get(indexOf(entry.getRecordId())).getCoordinates(), entry.getPoint());
+                    ids.add(entry.getRecordId());
+                }
+            }
+            assertArrayEquals(TestIndex.idsInWindow(records, window), ids.stream().mapToLong(Long::longValue).sorted().toArray(), "window " + window);
+        }
+    }
+
+    @Test
+    void pointsOnTheBoundaryOfTheWindowAreInIt() {
+        double[] point = records.get(0).getCoordinates();
+        ArrayList<Long> ids = new ArrayList<>();
+        tree.rangeQuery(BoundingBox.ofPoint(point), (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+        assertEquals(Arrays.asList(records.get(0).getId()), ids);
+    }
+
+    @Test
+    void windowOutsideTheDataHasNoResults() {
+        BoundingBox window = new BoundingBox(new double[] {2 * TestIndex.SIDE, 3 * TestIndex.SIDE, 2 * TestIndex.SIDE, 3 * TestIndex.SIDE});
+        tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> {
+            throw new AssertionError("Record " + recordId + " is outside the window");
+        });
+        try (CloseableIterator<LeafEntry> entries = tree.rangeQuery(window)) {
+            assertFalse(entries.hasNext());
+        }
+    }
+
+    // A window of another dimension than the index is rejected before any node is read, by every form of the query
+    @Test
+    void windowsOfAnotherDimensionAreRejected() {
+        BoundingBox oneDimension = new BoundingBox(new double[] {0, TestIndex.SIDE});
+        BoundingBox threeDimensions = new BoundingBox(new double[] {0, TestIndex.SIDE, 0, TestIndex.SIDE, 0, TestIndex.SIDE});
+        for (BoundingBox window : Arrays.asList(oneDimension, threeDimensions)) {
+            assertThrows(IllegalArgumentException.class, () -> tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> { }));
+            assertThrows(IllegalArgumentException.class, () -> tree.rangeQueryPoints(window, (recordId, point) -> { }));
+            assertThrows(IllegalArgumentException.class, () -> tree.rangeCount(window));
+            assertThrows(IllegalArgumentException.class, () -> tree.rangeQuery(window));
+            assertThrows(IllegalArgumentException.class, () -> tree.rangeQueries(Arrays.asList(BoundingBox.ofPoint(records.get(0).getCoordinates()), window)));
+        }
+        assertEquals(0, DataHandler.countOpenIndexSnapshots());
+    }
+
+    private static int indexOf(long recordId) {
+        return recordId > 100000 ? (int) (20000 + recordId - 100001) : (int) recordId - 1;
+    }
+}
@@ -0,0 +1,58 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReadRecordTest {
+    private static final int DIMENSIONS = 2;
+    private static ArrayList<Record> records;
+    private static int slotsPerBlock;
+
+    // The records fill two blocks of the data file and part of a third one
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        slotsPerBlock = DataFileManager.slotsPerBlock(DataHandler.getBlockSize(), DIMENSIONS);
+        records = TestIndex.randomRecords(2 * slotsPerBlock + 100, DIMENSIONS, 121, 1);
+        TestIndex.create(records, DIMENSIONS, false);
+    }
+
+    @Test
+    void readsEveryRecordFromItsSlot() {
+        emptyBufferPool();
+        for (int i = 0; i < records.size(); i++)
+            assertSameRecord(records.get(i), DataHandler.readRecord(1 + i / slotsPerBlock, i % slotsPerBlock));
+    }
+
+    // A slot past the records of its block is rejected whether the block is cached or not, instead of being decoded
+    // as a record of zeros
+    @Test
+    void rejectsSlotsPastTheRecordsOfTheBlock() {
+        emptyBufferPool();
+        assertThrows(IllegalArgumentException.class, () -> DataHandler.readRecord(3, 100));
+        assertThrows(IllegalArgumentException.class, () -> DataHandler.readRecord(3, slotsPerBlock - 1));
+        assertThrows(IllegalArgumentException.class, () -> DataHandler.readRecord(1, slotsPerBlock));
+        assertThrows(IllegalArgumentException.class, () -> DataHandler.readRecord(1, -1));
+        assertSameRecord(records.get(records.size() - 1), DataHandler.readRecord(3, 99));
+
+        assertEquals(100, DataHandler.readDataFileBlock(3).size());
+        assertThrows(IllegalArgumentException.class, () -> DataHandler.readRecord(3, 100));
+        assertSameRecord(records.get(records.size() - 1), DataHandler.readRecord(3, 99));
+    }
+
+    // Replaces the buffer pool with an empty one, so that records are read from the file
+    private static void emptyBufferPool() {
+        DataHandler.setBufferPoolCapacity(64);
+    }
+
+    private static void assertSameRecord(Record expected, Record actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertArrayEquals(expected.getCoordinates(), actual.getCoordinates());
+    }
+}
@@ -0,0 +1,34 @@
+package rstar;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecoveryCheckpointTest {
+    private static final BoundingBox EVERYTHING = new BoundingBox(new double[] {0, TestIndex.SIDE, 0, TestIndex.SIDE});
+
+    // With a pool of 8 pages, redoing the logged writes dirties more than half of the pool many times over, so
+    // checkpoints are taken in the middle of the replay. They must neither cut the log off under the replay nor
+    // lose the operations that are still to be redone
+    @Test
+    void checkpointsTakenDuringTheReplayKeepTheLog() throws Exception {
+        CrashingWriter.run(5000, 500, 700, 300);
+        DataHandler.setBufferPoolCapacity(8);
+        RStarTree tree = TestIndex.open(CrashingWriter.DIMENSIONS, false);
+        assertTrue(IndexMetrics.get().getLatency(IndexMetrics.Operation.CHECKPOINT).getCount() > 1, "checkpoints during the replay");
+
+        ArrayList<Record> records = CrashingWriter.survivingRecords(5000, 500, 700, 300);
+        ArrayList<Long> ids = new ArrayList<>();
+        tree.rangeQuery(EVERYTHING, (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+        assertArrayEquals(TestIndex.idsInWindow(records, EVERYTHING), ids.stream().mapToLong(Long::longValue).sorted().toArray());
+        // The checkpoint at the end of the replay empties the log and the double-write buffer
+        assertEquals(0, Files.size(Paths.get("indexfile.dwb")));
+        assertEquals(Short.BYTES + Long.BYTES, Files.size(Paths.get("indexfile.wal")));
+    }
+}
@@ -0,0 +1,63 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RepackTest {
+    private static final int DIMENSIONS = 2;
+    private static final BoundingBox EVERYTHING = new BoundingBox(new double[] {0, TestIndex.SIDE, 0, TestIndex.SIDE});
+    private static ArrayList<Record> records;
+    private static RStarTree tree;
+
+    // A tree degraded by deleting most of its records one at a time
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        records = TestIndex.randomRecords(20000, DIMENSIONS, 71, 1);
+        tree = TestIndex.create(records, DIMENSIONS, true);
+        List<Record> deleted = records.subList(0, 14000);
+        for (Record record : deleted)
+            tree.deleteRecord(record.getId(), record.getCoordinates());
+        deleted.clear();
+    }
+
+    // The writes committed while the repack builds its tree are applied to it before it replaces the index
+    @Test
+    void repackedTreeHoldsTheWritesMadeWhileItWasBuilt() throws Exception {
+        long blocksBefore = DataHandler.getTotalBlocksInIndexFile();
+        List<Record> inserted = TestIndex.randomRecords(2000, DIMENSIONS, 72, 100001);
+        List<Record> deleted = new ArrayList<>(records.subList(0, 1000));
+        CompletableFuture<Void> repack = tree.repack();
+        for (int i = 0; i < inserted.size(); i++) {
+            tree.addRecord(inserted.get(i), 1);
+            if (i < deleted.size())
+                assertTrue(tree.deleteRecord(deleted.get(i).getId(), deleted.get(i).getCoordinates()));
+        }
+        repack.get(60, TimeUnit.SECONDS);
+
+        ArrayList<Record> expected = new ArrayList<>(records.subList(deleted.size(), records.size()));
+        expected.addAll(inserted);
+        assertEquals(expected.size(), tree.rangeCount(EVERYTHING));
+        Random random = new Random(73);
+        for (int q = 0; q < 50; q++) {
+            BoundingBox window = TestIndex.randomWindow(random, DIMENSIONS, 200);
+            ArrayList<Long> ids = new ArrayList<>();
+            tree.rangeQuery(window, (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+            assertArrayEquals(TestIndex.idsInWindow(expected, window), ids.stream().mapToLong(Long::longValue).sorted().toArray());
+        }
+        assertTrue(DataHandler.getTotalBlocksInIndexFile() < blocksBefore, "the repacked index file is smaller");
+        assertTrue(Files.notExists(Paths.get("indexfile.repack")));
+    }
+}
@@ -0,0 +1,106 @@
+package rstar;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SkylineQueryTest {
+    private static final int DIMENSIONS = 2;
+    private static ArrayList<Record> records;
+    private static RStarTree tree;
+
+    // Points on a grid of integers, so that many share a coordinate, above the anti-diagonal, half of them close to it,
+    // which makes the skyline long. Some skyline points are then added a second time
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        Random random = new Random(101);
+        records = new ArrayList<>();
+        for (int i = 0; i < 12000; i++) {
+            double x = Math.floor(random.nextDouble() * TestIndex.SIDE);
+            double spread = i % 2 == 0 ? TestIndex.SIDE / 2 : 20;
+            double y = Math.floor(TestIndex.SIDE - x + random.nextDouble() * spread);
+            records.add(new Record(i + 1, new double[] {x, y}));
+        }
+        long[] skyline = bruteForceSkyline();
+        for (int i = 0; i < skyline.length; i += 3)
+            records.add(new Record(records.size() + 1, records.get((int) skyline[i] - 1).getCoordinates()));
+        tree = TestIndex.create(records, DIMENSIONS, true);
+    }
+
+    @Test
+    void skylineMatchesPairwiseDominance() {
+        long[] expected = bruteForceSkyline();
+        assertTrue(expected.length > 20, "skyline of " + expected.length + " records");
+
+        ArrayList<Long> ids = new ArrayList<>();
+        tree.skylineQuery((recordId, dataFileBlockId, slot) -> ids.add(recordId));
+        assertArrayEquals(expected, ids.stream().mapToLong(Long::longValue).sorted().toArray());
+    }
+
+    // Every record is returned as soon as it is known to be in the skyline, in increasing mindist from the origin,
+    // and duplicate points are both returned, since neither dominates the other
+    @Test
+    void skylineIsReturnedProgressivelyInMindistOrder() {
+        ArrayList<Long> ids = new ArrayList<>();
+        double previous = -1;
+        try (CloseableIterator<LeafEntry> skyline = tree.skylineQuery()) {
+            while (skyline.hasNext()) {
+                LeafEntry entry = skyline.next();
+                double[] point = entry.getPoint();
+                assertTrue(point[0] + point[1] >= previous, "mindist of record " + entry.getRecordId());
+                previous = point[0] + point[1];
+                for (Record record : records)
+                    assertFalse(dominates(record.getCoordinates(), point), "record " + entry.getRecordId() + " is dominated by " + record.getId());
+                ids.add(entry.getRecordId());
+            }
+            assertFalse(skyline.hasNext());
+        }
+        assertArrayEquals(bruteForceSkyline(), ids.stream().mapToLong(Long::longValue).sorted().toArray());
+        assertTrue(ids.stream().anyMatch(id -> id > 12000), "duplicates of skyline points");
+    }
+
+    @Test
+    void closingEarlyStopsTheQuery() {
+        try (CloseableIterator<LeafEntry> skyline = tree.skylineQuery()) {
+            assertTrue(skyline.hasNext());
+            skyline.next();
+            skyline.close();
+            assertFalse(skyline.hasNext());
+        }
+    }
+
+    // Ids of the records no other record dominates, sorted
+    private static long[] bruteForceSkyline() {
+        ArrayList<Long> skyline = new ArrayList<>();
+        for (Record record : records) {
+            boolean dominated = false;
+            for (Record other : records)
+                if (dominates(other.getCoordinates(), record.getCoordinates())) {
+                    dominated = true;
+                    break;
+                }
+            if (!dominated)
+                skyline.add(record.getId());
+        }
+        return skyline.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    // Whether a is smaller or equal to b in every dimension and strictly smaller in at least one
+    private static boolean dominates(double[] a, double[] b) {
+        boolean strictlySmaller = false;
+        for (int d = 0; d < a.length; d++) {
+            if (a[d] > b[d])
+                return false;
+            if (a[d] < b[d])
+                strictlySmaller = true;
+        }
+        return strictlySmaller;
+    }
+}
@@ -0,0 +1,91 @@
+package rstar;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the data file and the index of a test in the working directory, from points drawn uniformly from
+ * [0, SIDE) in every dimension, and answers queries by brute force over the same points.
+ */
+final class TestIndex {
+    static final double SIDE = 1000;
+    private static final String[] FILES = {"data.csv", "datafile.dat", "indexfile.dat", "indexfile.wal", "indexfile.dwb", "indexfile.dwb.partial", "indexfile.repack"};
+
+    private TestIndex() {
+    }
+
+    // Deletes every file left in the working directory by an earlier test
+    static void deleteFiles() throws IOException {
+        for (String file : FILES)
+            Files.deleteIfExists(Paths.get(file));
+    }
+
+    static ArrayList<Record> randomRecords(int count, int dimensions, long seed, long firstId) {
+        Random random = new Random(seed);
+        ArrayList<Record> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double[] point = new double[dimensions];
+            for (int d = 0; d < dimensions; d++)
+                point[d] = random.nextDouble() * SIDE;
+            records.add(new Record(firstId + i, point));
+        }
+        return records;
+    }
+
+    // Writes the records to data.csv, loads them into a new data file and builds the index, bulk loaded or empty
+    static RStarTree create(List<Record> records, int dimensions, boolean bulkLoad) throws IOException {
+        writeCsv(records);
+        return open(dimensions, bulkLoad);
+    }
+
+    // Deletes the files of an earlier test and writes the records to data.csv, from which the data file is loaded
+    static void writeCsv(List<Record> records) throws IOException {
+        deleteFiles();
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(Paths.get("data.csv")))) {
+            for (Record record : records)
+                csv.println(record);
+        }
+    }
+
+    // Opens the data file and the index file of the working directory
+    static RStarTree open(int dimensions, boolean bulkLoad) throws IOException {
+        DataHandler dataHandler = new DataHandler();
+        dataHandler.initializeDataFile(dimensions);
+        dataHandler.initializeIndexFile(dimensions);
+        return new RStarTree(bulkLoad);
+    }
+
+    static BoundingBox randomWindow(Random random, int dimensions, double maxSide) {
+        double[] bounds = new double[2 * dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            double side = random.nextDouble() * maxSide;
+            bounds[2 * d] = random.nextDouble() * SIDE - side / 2;
+            bounds[2 * d + 1] = bounds[2 * d] + side;
+        }
+        return new BoundingBox(bounds);
+    }
+
+    static boolean contains(BoundingBox window, double[] point) {
+        for (int d = 0; d < point.length; d++)
+            if (point[d] < window.getLower(d) || point[d] > window.getUpper(d))
+                return false;
+        return true;
+    }
+
+    // Ids of the records in the window, sorted
+    static long[] idsInWindow(List<Record> records, BoundingBox window) {
+        return records.stream().filter(record -> contains(window, record.getCoordinates())).mapToLong(Record::getId).sorted().toArray();
+    }
+
+    static double distance(double[] a, double[] b) {
+        double sum = 0;
+        for (int d = 0; d < a.length; d++)
+            sum += (a[d] - b[d]) * (a[d] - b[d]);
+        return Math.sqrt(sum);
+    }
+}
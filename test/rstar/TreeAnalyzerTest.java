@@ -0,0 +1,51 @@
+package rstar;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TreeAnalyzerTest {
+    private static final String[] INDEX_FILES = {"indexfile.dat", "indexfile.wal", "indexfile.dwb", "indexfile.repack"};
+
+    @Test
+    void failsClearlyWithoutAnIndexFile() throws Exception {
+        TestIndex.deleteFiles();
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> TreeAnalyzer.main(new String[0]));
+        assertTrue(e.getMessage().contains("indexfile.dat"), e.getMessage());
+        assertTrue(Files.notExists(Paths.get("indexfile.dat")));
+    }
+
+    // After a crash in the middle of a checkpoint, the analyzer reads the index as of that checkpoint, taking the torn
+    // blocks from the double-write buffer, and leaves every file of the index as it found it
+    @Test
+    void analyzesACrashedIndexWithoutChangingIt() throws Exception {
+        CrashingWriter.run(5000, 500, 700, 300);
+        CrashingWriter.tearCheckpoint();
+        Files.write(Paths.get("indexfile.repack"), new byte[DataHandler.getBlockSize()]);
+        byte[][] before = readIndexFiles();
+
+        TreeAnalyzer.main(new String[0]);
+
+        for (int i = 0; i < INDEX_FILES.length; i++)
+            assertArrayEquals(before[i], Files.readAllBytes(Paths.get(INDEX_FILES[i])), INDEX_FILES[i]);
+        TreeAnalyzer analyzer = new TreeAnalyzer();
+        assertEquals(5000 + 500, analyzer.getLevels().get(0).getEntries());
+    }
+
+    private static byte[][] readIndexFiles() throws Exception {
+        byte[][] contents = new byte[INDEX_FILES.length][];
+        for (int i = 0; i < INDEX_FILES.length; i++) {
+            Path file = Paths.get(INDEX_FILES[i]);
+            assertTrue(Files.exists(file), INDEX_FILES[i]);
+            contents[i] = Files.readAllBytes(file);
+        }
+        return contents;
+    }
+}
@@ -0,0 +1,22 @@
+package rstar;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class WriteAheadLogRecoveryTest {
+    private static final BoundingBox EVERYTHING = new BoundingBox(new double[] {0, TestIndex.SIDE, 0, TestIndex.SIDE});
+
+    // The inserts and deletes logged after the last checkpoint are redone when the index is opened again
+    @Test
+    void loggedWritesAreRedoneAfterACrash() throws Exception {
+        CrashingWriter.run(5000, 500, 700, 300);
+        RStarTree tree = TestIndex.open(CrashingWriter.DIMENSIONS, false);
+        ArrayList<Record> records = CrashingWriter.survivingRecords(5000, 500, 700, 300);
+        ArrayList<Long> ids = new ArrayList<>();
+        tree.rangeQuery(EVERYTHING, (recordId, dataFileBlockId, slot) -> ids.add(recordId));
+        assertArrayEquals(TestIndex.idsInWindow(records, EVERYTHING), ids.stream().mapToLong(Long::longValue).sorted().toArray());
+    }
+}